@@ -20,7 +20,7 @@
 
 import java.io.IOException;
 
-import com.thoughtworks.qdox.builder.Builder;
+import com.thoughtworks.qdox.builder.CommentBuilder;
 import com.thoughtworks.qdox.parser.Lexer;
 import com.thoughtworks.qdox.parser.ParseException;
 import com.thoughtworks.qdox.parser.structs.TagDef;
@@ -70,7 +70,7 @@ javadoctag: JAVADOCTAG
 %%
 
 private Lexer lexer;
-private Builder builder;
+private CommentBuilder builder;
 
 private int line;
 private int column;
@@ -78,7 +78,7 @@ private boolean debugLexer;
 
 private StringBuffer textBuffer = new StringBuffer();
 
-public DefaultJavaCommentParser(Lexer lexer, Builder builder) {
+public DefaultJavaCommentParser(Lexer lexer, CommentBuilder builder) {
     this.lexer = lexer;
     this.builder = builder;
 }
@@ -19,6 +19,7 @@
  */
 
 import com.thoughtworks.qdox.builder.Builder;
+import com.thoughtworks.qdox.builder.SymbolTable;
 import com.thoughtworks.qdox.parser.*;
 import com.thoughtworks.qdox.parser.expression.*;
 import com.thoughtworks.qdox.parser.structs.*;
@@ -313,7 +314,7 @@ Wildcard: QUERY
 // 6.5 Determining the Meaning of a Name
 // PackageName | TypeName | ExpressionName | MethodName | PackageOrTypeName | AmbiguousName 
 AnyName: IDENTIFIER { $$ = $1; } 
-       | AnyName DOT IDENTIFIER { $$ = $1 + '.' + $3; };
+       | AnyName DOT IDENTIFIER { $$ = intern( $1 + '.' + $3 ); };
 
 
 // 15.8 Primary Expressions
@@ -890,6 +891,7 @@ private Stack<TypeDef> typeStack = new Stack<TypeDef>();
 private int line;
 private int column;
 private boolean debugLexer;
+private SymbolTable symbolTable;
 
 private void appendToBuffer(String word) {
     if (textBuffer.length() > 0) {
@@ -918,6 +920,18 @@ public void setDebugParser(boolean debug) {
     yydebug = debug;
 }
 
+/**
+ * @param symbolTable the table to canonicalize identifiers and names with, may be <code>null</code>
+ * @since 2.0
+ */
+public void setSymbolTable(SymbolTable symbolTable) {
+    this.symbolTable = symbolTable;
+}
+
+private String intern(String symbol) {
+    return ( symbolTable != null ? symbolTable.intern( symbol ) : symbol );
+}
+
 public void setDebugLexer(boolean debug) {
     debugLexer = debug;
 }
@@ -933,9 +947,33 @@ private int yylex() {
     try {
         final int result = lexer.lex();
         yylval = new Value();
-        yylval.sval = lexer.text();
+        switch (result) {
+            case IDENTIFIER:
+                yylval.sval = intern(lexer.text());
+                break;
+            case BOOLEAN_LITERAL:
+            case INTEGER_LITERAL:
+            case FLOAT_LITERAL:
+            case CHAR_LITERAL:
+            case STRING_LITERAL:
+            case EQUALS:
+            case STAREQUALS:
+            case SLASHEQUALS:
+            case PERCENTEQUALS:
+            case PLUSEQUALS:
+            case MINUSEQUALS:
+            case LESSTHAN2EQUALS:
+            case GREATERTHAN2EQUALS:
+            case GREATERTHAN3EQUALS:
+            case AMPERSANDEQUALS:
+            case CIRCUMFLEXEQUALS:
+            case VERTLINEEQUALS:
+                // only these tokens have a semantic value
+                yylval.sval = lexer.text();
+                break;
+        }
         if (debugLexer) {
-            System.err.println("Token: " + yyname[result] + " \"" + yylval.sval + "\"");
+            System.err.println("Token: " + yyname[result] + " \"" + lexer.text() + "\"");
         }
         return result;
     }
@@ -970,6 +1008,10 @@ private void makeField(TypeDef field, String body, boolean enumConstant) {
 }
 
 public void onComment( String comment, int line, int column ) {
+  if ( builder.addJavaDocComment( comment, line, column, this.debugLexer, this.yydebug ) ) {
+    // the builder parses the comment when the javadoc is requested
+    return;
+  }
   DefaultJavaCommentLexer commentLexer  = new DefaultJavaCommentLexer( new java.io.StringReader( comment ) );
   commentLexer.setLineOffset( line );
   commentLexer.setColumnOffset( column );
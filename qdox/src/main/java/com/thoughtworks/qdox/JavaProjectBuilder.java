@@ -19,26 +19,44 @@ package com.thoughtworks.qdox;
  * under the License.
  */
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Reader;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.thoughtworks.qdox.directorywalker.DirectoryScanner;
 import com.thoughtworks.qdox.directorywalker.FileVisitor;
 import com.thoughtworks.qdox.directorywalker.SuffixFilter;
 import com.thoughtworks.qdox.library.ClassLibraryBuilder;
 import com.thoughtworks.qdox.library.ErrorHandler;
+import com.thoughtworks.qdox.library.SnapshotReader;
+import com.thoughtworks.qdox.library.SnapshotWriter;
 import com.thoughtworks.qdox.library.SortedClassLibraryBuilder;
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaPackage;
 import com.thoughtworks.qdox.model.JavaSource;
+import com.thoughtworks.qdox.model.impl.ModelCompactor;
+import com.thoughtworks.qdox.model.impl.TypeLinker;
 
 /**
  * This is the improved version of the JavaDocBuilder of QDox 1.x, which has the following tasks:
@@ -57,6 +75,11 @@ import com.thoughtworks.qdox.model.JavaSource;
  * implementation for the ClassLibraryBuilder is the {@link com.thoughtworks.qdox.library.OrderedClassLibraryBuilder}, which preserves the order in
  * which resources are added. By creating a new JavaProjectBuilder with your own ClassLibraryBuilder you can decide
  * which loading strategy should be used.
+ * <p>
+ * Once all resources have been added, the model can be queried by several threads at the same time without any
+ * external locking. Types, classes and packages which are resolved lazily are resolved only once and are published
+ * safely to the other threads. Adding or refreshing sources while other threads query the model is not supported.
+ * </p>
  * 
  * @author Robert Scholte
  * @since 2.0
@@ -65,6 +88,10 @@ public class JavaProjectBuilder
 {
     private final ClassLibraryBuilder classLibraryBuilder;
 
+    private ExecutorService executorService;
+
+    private int threadCount = 1;
+
     // Constructors
 
     /**
@@ -113,6 +140,20 @@ public class JavaProjectBuilder
         return this;
     }
 
+    /**
+     * Skip the content of method, constructor and initializer bodies while parsing. Only the braces are matched, so
+     * parsing is faster and uses less memory, but the sourcecode of methods and constructors will be an empty String.
+     * 
+     * @param skipMethodBodies <code>true</code> to skip the bodies, <code>false</code> to keep them (default)
+     * @return this javaProjectBuilder itself
+     * @since 2.0
+     */
+    public JavaProjectBuilder setSkipMethodBodies( boolean skipMethodBodies )
+    {
+        classLibraryBuilder.setSkipMethodBodies( skipMethodBodies );
+        return this;
+    }
+
     /**
      * Sets the encoding when using Files or URL's to parse.
      * 
@@ -137,6 +178,44 @@ public class JavaProjectBuilder
         return this;
     }
 
+    /**
+     * Use this executor to parse the files of a sourcetree in parallel. Every file gets its own Lexer, Parser and
+     * ModelBuilder, the parsed sources are added to the library by the calling thread. The executor won't be shut down
+     * by this JavaProjectBuilder.
+     * <p>
+     * Be aware that an {@link ErrorHandler} will be called by the threads of this executor.
+     * </p>
+     * 
+     * @param executorService the executor to parse the files with, <code>null</code> to use the threadCount
+     * @return this javaProjectBuilder itself
+     * @see #addSourceTree(File, FileVisitor)
+     * @since 2.0
+     */
+    public JavaProjectBuilder setExecutorService( ExecutorService executorService )
+    {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads used to parse the files of a sourcetree. With the default value <code>1</code> all
+     * files are parsed by the calling thread. This value is ignored when an executorService has been set.
+     * 
+     * @param threadCount the number of threads, for instance <code>Runtime.getRuntime().availableProcessors()</code>
+     * @return this javaProjectBuilder itself
+     * @see #setExecutorService(ExecutorService)
+     * @since 2.0
+     */
+    public JavaProjectBuilder setThreadCount( int threadCount )
+    {
+        if ( threadCount < 1 )
+        {
+            throw new IllegalArgumentException( "threadCount should be at least 1, but was " + threadCount );
+        }
+        this.threadCount = threadCount;
+        return this;
+    }
+
     /**
      * Add a java source from a file to this JavaProjectBuilder
      * 
@@ -204,31 +283,311 @@ public class JavaProjectBuilder
     }
 
     /**
-     * Add all java files of the {@code directory} recursively
+     * Add all java files of the {@code directory} recursively.
+     * If an executorService or a threadCount larger than 1 has been set, the files are parsed in parallel. In both
+     * cases the sources are added in the order in which the directory has been scanned.
      * 
      * @param directory the directory from which all java files should be parsed.
      * @param errorHandler a fileVisitor which will be triggered when an {@link IOException} occurs.
+     * @see #setExecutorService(ExecutorService)
+     * @see #setThreadCount(int)
      */
     public void addSourceTree( File directory, final FileVisitor errorHandler )
     {
         DirectoryScanner scanner = new DirectoryScanner( directory );
         scanner.addFilter( new SuffixFilter( ".java" ) );
-        scanner.scan( new FileVisitor()
+        if ( executorService == null && threadCount == 1 )
+        {
+            scanner.scan( new FileVisitor()
+            {
+                public void visitFile( File currentFile )
+                {
+                    try
+                    {
+                        addSource( currentFile );
+                    }
+                    catch ( IOException e )
+                    {
+                        errorHandler.visitFile( currentFile );
+                    }
+                }
+            } );
+        }
+        else
+        {
+            addSourcesConcurrently( scanner.scan(), errorHandler );
+        }
+    }
+
+    /**
+     * Bring the sources of these files up to date. Only the files which have been changed, added or deleted since they
+     * have been added with {@link #addSource(File)} or {@link #addSourceTree(File)} are parsed again, their former
+     * sources and classes are replaced. Whether a file has been changed is detected by its modification time and
+     * length, followed by a checksum of its content.
+     * 
+     * @param files the files to refresh
+     * @return the sources which have been parsed
+     * @throws IOException if a file can't be read
+     * @since 2.0
+     */
+    public Collection<JavaSource> refresh( File... files )
+        throws IOException
+    {
+        return classLibraryBuilder.refreshSources( Arrays.asList( files ) );
+    }
+
+    /**
+     * Bring the sources of all java files of the {@code directory} up to date. New files are added, the sources of
+     * changed files are replaced and the sources of deleted files are removed.
+     * 
+     * @param directory the directory which has been added by {@link #addSourceTree(File)}
+     * @return the sources which have been parsed
+     * @throws IOException if a file can't be read
+     * @see #refresh(File...)
+     * @since 2.0
+     */
+    public Collection<JavaSource> refreshSourceTree( File directory )
+        throws IOException
+    {
+        DirectoryScanner scanner = new DirectoryScanner( directory );
+        scanner.addFilter( new SuffixFilter( ".java" ) );
+        Set<File> files = new LinkedHashSet<File>();
+        for ( File file : scanner.scan() )
+        {
+            files.add( file.getAbsoluteFile() );
+        }
+        // files which don't exist anymore
+        String directoryPath = directory.getAbsolutePath() + File.separator;
+        for ( File file : classLibraryBuilder.getSourceFiles() )
+        {
+            if ( file.getPath().startsWith( directoryPath ) )
+            {
+                files.add( file );
+            }
+        }
+        return classLibraryBuilder.refreshSources( files );
+    }
+
+    /**
+     * Resolve all type references of the sources at once, instead of on their first access. This covers the
+     * supertypes, fields, parameters, return types, exceptions, annotation types, type arguments and the bounds of
+     * type variables. If an executorService or a threadCount larger than 1 has been set, the sources are linked in
+     * parallel. Call this method after all sources have been added.
+     * 
+     * @return the number of resolved references and the names which couldn't be resolved
+     * @see #setExecutorService(ExecutorService)
+     * @see #setThreadCount(int)
+     * @since 2.0
+     */
+    public LinkStatistics link()
+    {
+        Map<JavaSource, JavaSource> sources = new IdentityHashMap<JavaSource, JavaSource>();
+        for ( JavaSource source : getSources() )
+        {
+            sources.put( source, source );
+        }
+        List<String> unresolvedNames = new ArrayList<String>();
+        int typeCount = 0;
+        if ( executorService == null && threadCount == 1 )
+        {
+            for ( JavaSource source : sources.keySet() )
+            {
+                typeCount += TypeLinker.link( source, unresolvedNames );
+            }
+        }
+        else
+        {
+            typeCount = linkConcurrently( sources.keySet(), unresolvedNames );
+        }
+        return new LinkStatistics( sources.size(), typeCount, unresolvedNames );
+    }
+
+    /**
+     * Replace the lists of the model by right-sized immutable ones, so it takes less memory and the accessors no
+     * longer have to copy them. This covers the sources and all classes which have been loaded so far, including
+     * those of the classloaders. Call this method after all sources have been added; classes which are changed
+     * afterwards use modifiable lists again.
+     * 
+     * @see ModelCompactor
+     * @since 2.0
+     */
+    public void compact()
+    {
+        Map<JavaSource, JavaSource> sources = new IdentityHashMap<JavaSource, JavaSource>();
+        for ( JavaSource source : getSources() )
+        {
+            sources.put( source, source );
+            ModelCompactor.compact( source );
+        }
+        for ( JavaClass cls : getClasses() )
+        {
+            JavaSource source = cls.getSource();
+            if ( source == null )
+            {
+                ModelCompactor.compact( cls );
+            }
+            else if ( sources.put( source, source ) == null )
+            {
+                ModelCompactor.compact( source );
+            }
+        }
+    }
+
+    private int linkConcurrently( Collection<JavaSource> sources, final List<String> unresolvedNames )
+    {
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>( sources.size() );
+        final List<List<String>> names = new ArrayList<List<String>>( sources.size() );
+        for ( final JavaSource source : sources )
+        {
+            final List<String> sourceNames = new ArrayList<String>();
+            names.add( sourceNames );
+            tasks.add( new Callable<Integer>()
+            {
+                public Integer call()
+                {
+                    return TypeLinker.link( source, sourceNames );
+                }
+            } );
+        }
+        final int[] result = new int[1];
+        runConcurrently( tasks, new ResultHandler<Integer>()
+        {
+            public void handle( int index, Integer typeCount )
+            {
+                result[0] += typeCount;
+                unresolvedNames.addAll( names.get( index ) );
+            }
+        } );
+        return result[0];
+    }
+
+    private void addSourcesConcurrently( final List<File> files, final FileVisitor errorHandler )
+    {
+        List<Callable<ParsedFile>> tasks = new ArrayList<Callable<ParsedFile>>( files.size() );
+        for ( final File file : files )
+        {
+            tasks.add( new Callable<ParsedFile>()
+            {
+                public ParsedFile call()
+                {
+                    try
+                    {
+                        return new ParsedFile( classLibraryBuilder.parseSource( file ), null );
+                    }
+                    catch ( IOException e )
+                    {
+                        // reported by the calling thread, in the order of the files
+                        return new ParsedFile( null, e );
+                    }
+                }
+            } );
+        }
+        runConcurrently( tasks, new ResultHandler<ParsedFile>()
         {
-            public void visitFile( File currentFile )
+            public void handle( int index, ParsedFile result )
             {
                 try
                 {
-                    addSource( currentFile );
+                    if ( result.exception != null )
+                    {
+                        throw result.exception;
+                    }
+                    // null for a package-info.java or a parse error which the ErrorHandler handled
+                    if ( result.source != null )
+                    {
+                        classLibraryBuilder.addSource( result.source );
+                    }
                 }
                 catch ( IOException e )
                 {
-                    errorHandler.visitFile( currentFile );
+                    errorHandler.visitFile( files.get( index ) );
                 }
             }
         } );
     }
 
+    // the outcome of parsing a file by another thread
+    private static final class ParsedFile
+    {
+        private final JavaSource source;
+
+        private final IOException exception;
+
+        private ParsedFile( JavaSource source, IOException exception )
+        {
+            this.source = source;
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * Runs the tasks with the executorService, or with a pool of threadCount threads, and hands their results to the
+     * handler by the calling thread, in the order of the tasks. So the result doesn't depend on the scheduling of the
+     * threads. The tasks which are still pending are cancelled when a task or the handler fails.
+     */
+    private <T> void runConcurrently( List<Callable<T>> tasks, ResultHandler<T> handler )
+    {
+        ExecutorService executor = executorService;
+        if ( executor == null )
+        {
+            executor = Executors.newFixedThreadPool( threadCount );
+        }
+        List<Future<T>> futures = new ArrayList<Future<T>>( tasks.size() );
+        try
+        {
+            for ( Callable<T> task : tasks )
+            {
+                futures.add( executor.submit( task ) );
+            }
+            for ( int index = 0; index < futures.size(); index++ )
+            {
+                handler.handle( index, getResult( futures.get( index ) ) );
+            }
+        }
+        finally
+        {
+            for ( Future<T> future : futures )
+            {
+                future.cancel( true );
+            }
+            if ( executor != executorService )
+            {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private static <T> T getResult( Future<T> future )
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( "Interrupted while waiting for the other threads", e );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            else if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            throw new RuntimeException( cause );
+        }
+    }
+
+    private interface ResultHandler<T>
+    {
+        void handle( int index, T result );
+    }
+
     /**
      * Add the {@link java.lang.ClassLoader} to this JavaProjectBuilder
      * 
@@ -239,6 +598,30 @@ public class JavaProjectBuilder
         classLibraryBuilder.appendClassLoader( classLoader );
     }
 
+    /**
+     * Add a directory with class files to this JavaProjectBuilder. The classes are read from their class files when
+     * they are requested, they are never loaded.
+     * 
+     * @param classFolder the root directory of the class files
+     * @since 2.0
+     */
+    public void addClassFolder( File classFolder )
+    {
+        classLibraryBuilder.appendClassFolder( classFolder );
+    }
+
+    /**
+     * Add a jar or zip file to this JavaProjectBuilder. Its entries are indexed once, the source files and class files
+     * are parsed when their classes are requested.
+     * 
+     * @param archive the jar or zip file
+     * @since 2.0
+     */
+    public void addArchive( File archive )
+    {
+        classLibraryBuilder.appendArchive( archive );
+    }
+
     // Java Object Model -getters
 
     /**
@@ -280,6 +663,20 @@ public class JavaProjectBuilder
         return classLibraryBuilder.getClassLibrary().getJavaClasses();
     }
 
+    /**
+     * Retrieve the classes, fields, constructors and methods which were added by sources and carry a doclet tag, like
+     * <code>@hibernate.class</code>. The elements are indexed by their tags the first time this method is called after
+     * sources have been added, so repeated queries only cost the size of their result.
+     * 
+     * @param tagName the name of the tag, without the leading <code>@</code>
+     * @return the tagged elements in the order of their classes, never <code>null</code>
+     * @since 2.0
+     */
+    public List<JavaAnnotatedElement> getTaggedElements( String tagName )
+    {
+        return classLibraryBuilder.getClassLibrary().getTaggedElements( tagName );
+    }
+
     /**
      * Try to retrieve a {@link JavaPackage} by its name.
      * 
@@ -322,40 +719,82 @@ public class JavaProjectBuilder
     }
 
     /**
-     * Persist the classLibraryBuilder to a file
+     * Persist the sources of this builder to a file, using the compact snapshot format of the {@link SnapshotWriter}.
+     * Next to the sources the type of the ClassLibraryBuilder, its default classloaders, class folders, archives,
+     * source folders and settings are stored. Other classloaders, factories, the symbol table and an errorhandler which
+     * isn't serializable need to be set again after loading.
      * 
-     * @param file the file to serialize to
+     * @param file the file to write the snapshot to
      * @throws IOException Any exception thrown by the underlying OutputStream
      */
     public void save( File file )
         throws IOException
     {
         FileOutputStream fos = new FileOutputStream( file );
-        ObjectOutputStream out = new ObjectOutputStream( fos );
         try
         {
-            out.writeObject( classLibraryBuilder );
+            SnapshotWriter writer = new SnapshotWriter( fos, classLibraryBuilder );
+            // a source might be registered more than once, but should only be written once
+            Map<JavaSource, JavaSource> sources = new IdentityHashMap<JavaSource, JavaSource>();
+            for ( JavaSource source : getSources() )
+            {
+                if ( sources.put( source, source ) == null )
+                {
+                    writer.writeSource( source );
+                }
+            }
+            writer.finish();
         }
         finally
         {
-            out.close();
             fos.close();
         }
     }
 
     /**
-     * Note that after loading JavaDocBuilder classloaders need to be re-added.
+     * Add the sources of a snapshot written by {@link #save(File)}, without parsing them again.
+     * 
+     * @param file the snapshot
+     * @return the sources of the snapshot
+     * @throws IOException if the snapshot can't be read
+     * @since 2.0
      */
-    public static JavaProjectBuilder load( File file )
+    public Collection<JavaSource> addSnapshot( File file )
         throws IOException
     {
         FileInputStream fis = new FileInputStream( file );
-        ObjectInputStream in = new ObjectInputStream( fis );
-        JavaProjectBuilder builder;
         try
         {
-            ClassLibraryBuilder libraryBuilder = (ClassLibraryBuilder) in.readObject();
-            builder = new JavaProjectBuilder( libraryBuilder );
+            return classLibraryBuilder.addSnapshot( fis );
+        }
+        finally
+        {
+            fis.close();
+        }
+    }
+
+    /**
+     * Load a JavaProjectBuilder from a file written by {@link #save(File)}, with a ClassLibraryBuilder configured like
+     * the one which saved it. If that builder can't be created, the default classloaders are used. Files written with
+     * the serialized ClassLibraryBuilder of previous versions can still be loaded.
+     */
+    public static JavaProjectBuilder load( File file )
+        throws IOException
+    {
+        InputStream in = new BufferedInputStream( new FileInputStream( file ) );
+        try
+        {
+            if ( SnapshotReader.isSnapshot( in ) )
+            {
+                ClassLibraryBuilder libraryBuilder = new SnapshotReader( in ).createClassLibraryBuilder();
+                JavaProjectBuilder builder =
+                    libraryBuilder != null ? new JavaProjectBuilder( libraryBuilder ) : new JavaProjectBuilder();
+                // the reader buffers the stream, so the sources are read from the start of the file again
+                builder.addSnapshot( file );
+                return builder;
+            }
+            ClassLibraryBuilder libraryBuilder = (ClassLibraryBuilder) new ObjectInputStream( in ).readObject();
+            return new JavaProjectBuilder( libraryBuilder );
         }
         catch ( ClassNotFoundException e )
         {
@@ -364,8 +803,6 @@ public class JavaProjectBuilder
         finally
         {
             in.close();
-            fis.close();
         }
-        return builder;
     }
 }
@@ -0,0 +1,96 @@
+package com.thoughtworks.qdox;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The result of {@link JavaProjectBuilder#link()}: how many type references have been resolved and which names
+ * couldn't be resolved, for instance because a dependency is missing.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public final class LinkStatistics
+{
+    private final int sourceCount;
+
+    private final int typeCount;
+
+    private final int unresolvedCount;
+
+    private final Map<String, Integer> unresolvedNames;
+
+    LinkStatistics( int sourceCount, int typeCount, Collection<String> unresolvedNames )
+    {
+        this.sourceCount = sourceCount;
+        this.typeCount = typeCount;
+        this.unresolvedCount = unresolvedNames.size();
+        Map<String, Integer> names = new TreeMap<String, Integer>();
+        for ( String name : unresolvedNames )
+        {
+            Integer count = names.get( name );
+            names.put( name, count == null ? 1 : count + 1 );
+        }
+        this.unresolvedNames = Collections.unmodifiableMap( names );
+    }
+
+    /**
+     * @return the number of linked sources
+     */
+    public int getSourceCount()
+    {
+        return sourceCount;
+    }
+
+    /**
+     * @return the number of visited type references
+     */
+    public int getTypeCount()
+    {
+        return typeCount;
+    }
+
+    /**
+     * @return the number of type references which couldn't be resolved
+     */
+    public int getUnresolvedCount()
+    {
+        return unresolvedCount;
+    }
+
+    /**
+     * @return the names which couldn't be resolved, sorted by name, mapped to the number of their references
+     */
+    public Map<String, Integer> getUnresolvedNames()
+    {
+        return unresolvedNames;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "linked " + typeCount + " type references of " + sourceCount + " sources, " + unresolvedCount
+            + " references to " + unresolvedNames.size() + " names unresolved";
+    }
+}
@@ -25,10 +25,10 @@ import com.thoughtworks.qdox.parser.structs.ClassDef;
 import com.thoughtworks.qdox.parser.structs.FieldDef;
 import com.thoughtworks.qdox.parser.structs.MethodDef;
 import com.thoughtworks.qdox.parser.structs.PackageDef;
-import com.thoughtworks.qdox.parser.structs.TagDef;
 import com.thoughtworks.qdox.writer.ModelWriterFactory;
 
 public interface Builder
+    extends CommentBuilder
 {
     void setModelWriterFactory( ModelWriterFactory writer );
 
@@ -36,9 +36,6 @@ public interface Builder
 
     void addImport( String importName );
 
-    void addJavaDoc( String text );
-    void addJavaDocTag( TagDef def );
-
     void beginClass( ClassDef def );
     void endClass();
 
@@ -0,0 +1,52 @@
+package com.thoughtworks.qdox.builder;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.thoughtworks.qdox.parser.structs.TagDef;
+
+/**
+ * Receives the description and the tags of a javadoc comment, as recognized by the comment parser. A builder can
+ * also take over a complete comment and parse it later, when its description or tags are requested.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public interface CommentBuilder
+{
+    /**
+     * Offer a javadoc comment as found in the source, before it is parsed. If the builder accepts it, the builder is
+     * responsible for parsing it and for reporting its errors. Otherwise the comment is parsed right away and its
+     * description and tags are passed to {@link #addJavaDoc(String)} and {@link #addJavaDocTag(TagDef)}.
+     * 
+     * @param comment the complete comment, including the <code>/**</code> and <code>*&#47;</code>
+     * @param lineNumber the line number where the comment starts
+     * @param columnNumber the column number where the comment starts
+     * @param debugLexer <code>true</code> if the comment lexer should print its tokens
+     * @param debugParser <code>true</code> if the comment parser should print its states
+     * @return <code>true</code> if the builder parses the comment itself, <code>false</code> if it should be parsed
+     *         right away
+     */
+    boolean addJavaDocComment( String comment, int lineNumber, int columnNumber, boolean debugLexer,
+                               boolean debugParser );
+
+    void addJavaDoc( String text );
+
+    void addJavaDocTag( TagDef def );
+}
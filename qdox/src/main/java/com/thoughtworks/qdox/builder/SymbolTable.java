@@ -0,0 +1,42 @@
+package com.thoughtworks.qdox.builder;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Serializable;
+
+/**
+ * Canonicalizes the names found while parsing, like identifiers, type names, package names and tag names. Every file
+ * produces new String instances for the same names, with a SymbolTable they all share one instance. Since sources can
+ * be parsed in parallel, implementations must be thread-safe.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public interface SymbolTable
+    extends Serializable
+{
+    /**
+     * Return the canonical instance of the symbol.
+     * 
+     * @param symbol the symbol, may be <code>null</code>
+     * @return the canonical instance, which is equal to the symbol
+     */
+    String intern( String symbol );
+}
@@ -0,0 +1,64 @@
+package com.thoughtworks.qdox.builder.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.thoughtworks.qdox.builder.SymbolTable;
+
+/**
+ * SymbolTable backed by a ConcurrentMap. Symbols are kept as long as the table is used.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public class DefaultSymbolTable
+    implements SymbolTable
+{
+    private final ConcurrentMap<String, String> symbols = new ConcurrentHashMap<String, String>();
+
+    /** {@inheritDoc} */
+    public String intern( String symbol )
+    {
+        if ( symbol == null )
+        {
+            return null;
+        }
+        String result = symbols.get( symbol );
+        if ( result == null )
+        {
+            result = symbols.putIfAbsent( symbol, symbol );
+            if ( result == null )
+            {
+                result = symbol;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of symbols in this table
+     */
+    public int size()
+    {
+        return symbols.size();
+    }
+}
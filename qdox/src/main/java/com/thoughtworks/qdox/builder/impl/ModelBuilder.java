@@ -26,8 +26,10 @@ import java.util.List;
 import java.util.Set;
 
 import com.thoughtworks.qdox.builder.Builder;
+import com.thoughtworks.qdox.builder.SymbolTable;
 import com.thoughtworks.qdox.builder.TypeAssembler;
 import com.thoughtworks.qdox.library.ClassLibrary;
+import com.thoughtworks.qdox.library.ErrorHandler;
 import com.thoughtworks.qdox.model.DocletTag;
 import com.thoughtworks.qdox.model.DocletTagFactory;
 import com.thoughtworks.qdox.model.JavaAnnotatedElement;
@@ -51,6 +53,7 @@ import com.thoughtworks.qdox.model.impl.DefaultJavaParameter;
 import com.thoughtworks.qdox.model.impl.DefaultJavaSource;
 import com.thoughtworks.qdox.model.impl.DefaultJavaType;
 import com.thoughtworks.qdox.model.impl.DefaultJavaTypeVariable;
+import com.thoughtworks.qdox.model.impl.DeferredJavaDoc;
 import com.thoughtworks.qdox.parser.expression.ElemValueDef;
 import com.thoughtworks.qdox.parser.expression.ExpressionDef;
 import com.thoughtworks.qdox.parser.structs.AnnoDef;
@@ -89,10 +92,16 @@ public class ModelBuilder implements Builder {
 
     private List<TagDef> lastTagSet = new LinkedList<TagDef>();
 
+    private DeferredJavaDoc lastJavaDoc;
+
     private DocletTagFactory docletTagFactory;
 
     private ModelWriterFactory modelWriterFactory;
 
+    private SymbolTable symbolTable;
+
+    private ErrorHandler errorHandler;
+
     public ModelBuilder( ClassLibrary classLibrary, DocletTagFactory docletTagFactory )
     {
         this.docletTagFactory = docletTagFactory;
@@ -108,6 +117,26 @@ public class ModelBuilder implements Builder {
         source.setModelWriterFactory( modelWriterFactory );
     }
 
+    /**
+     * @param symbolTable the table to canonicalize names with, may be <code>null</code>
+     * @since 2.0
+     */
+    public void setSymbolTable( SymbolTable symbolTable )
+    {
+        this.symbolTable = symbolTable;
+        source.setSymbolTable( symbolTable );
+    }
+
+    /**
+     * @param errorHandler the handler for errors in the javadoc, which is parsed after the source, may be
+     *            <code>null</code>
+     * @since 2.0
+     */
+    public void setErrorHandler( ErrorHandler errorHandler )
+    {
+        this.errorHandler = errorHandler;
+    }
+
     /** {@inheritDoc} */
     public void addPackage( PackageDef packageDef )
     {
@@ -123,7 +152,7 @@ public class ModelBuilder implements Builder {
     /** {@inheritDoc} */
     public void addImport( String importName )
     {
-        source.addImport( importName );
+        source.addImport( intern( importName ) );
     }
 
     /** {@inheritDoc} */
@@ -138,6 +167,24 @@ public class ModelBuilder implements Builder {
         lastTagSet.add( tagDef );
     }
 
+    /**
+     * Register a javadoc comment as found in the source. Its description and tags are only extracted when they're
+     * requested for the first time, errors are reported to the {@link ErrorHandler} of this builder at that moment.
+     * 
+     * @return always <code>true</code>
+     * @since 2.0
+     */
+    public boolean addJavaDocComment( String comment, int lineNumber, int columnNumber, boolean debugLexer,
+                                      boolean debugParser )
+    {
+        if ( lastJavaDoc == null )
+        {
+            lastJavaDoc = new DeferredJavaDoc( docletTagFactory, symbolTable, source.getURL(), errorHandler );
+        }
+        lastJavaDoc.addComment( comment, lineNumber, columnNumber, debugLexer, debugParser );
+        return true;
+    }
+
     /** {@inheritDoc} */
     public void beginClass(ClassDef def)
     {
@@ -241,15 +288,23 @@ public class ModelBuilder implements Builder {
 
     private void addJavaDoc( AbstractBaseJavaEntity entity )
     {
-        entity.setComment( lastComment );
-        List<DocletTag> tagList = new LinkedList<DocletTag>();
-        for ( TagDef tagDef : lastTagSet )
+        if ( lastJavaDoc != null )
+        {
+            entity.setDeferredJavaDoc( lastJavaDoc );
+        }
+        else
         {
-            tagList.add( docletTagFactory.createDocletTag( tagDef.getName(), tagDef.getText(),
-                                                           (JavaAnnotatedElement) entity, tagDef.getLineNumber() ) );
+            entity.setComment( lastComment );
+            List<DocletTag> tagList = new LinkedList<DocletTag>();
+            for ( TagDef tagDef : lastTagSet )
+            {
+                tagList.add( docletTagFactory.createDocletTag( intern( tagDef.getName() ), tagDef.getText(),
+                                                               (JavaAnnotatedElement) entity, tagDef.getLineNumber() ) );
+            }
+            entity.setTags( tagList );
         }
-        entity.setTags( tagList );
 
+        lastJavaDoc = null;
         lastTagSet.clear();
         lastComment = null;
     }
@@ -486,4 +541,9 @@ public class ModelBuilder implements Builder {
     {
         source.setURL( url );
     }
+
+    private String intern( String symbol )
+    {
+        return ( symbolTable != null ? symbolTable.intern( symbol ) : symbol );
+    }
 }
\ No newline at end of file
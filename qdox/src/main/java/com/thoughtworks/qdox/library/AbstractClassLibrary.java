@@ -22,11 +22,15 @@ package com.thoughtworks.qdox.library;
 import java.net.URL;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import com.thoughtworks.qdox.builder.ModelBuilderFactory;
+import com.thoughtworks.qdox.builder.SymbolTable;
 import com.thoughtworks.qdox.builder.impl.ModelBuilder;
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaPackage;
 import com.thoughtworks.qdox.model.JavaSource;
@@ -52,9 +56,19 @@ public abstract class AbstractClassLibrary
     private ModelBuilderFactory modelBuilderFactory;
 
     private ModelWriterFactory modelWriterFactory;
+
+    private SymbolTable symbolTable;
+
+    private MissingClassCache missingClassCache;
     
     private JavaClassContext context = new JavaClassContext();
 
+    private SubtypeIndex subtypeIndex = new SubtypeIndex();
+
+    private DocletTagIndex docletTagIndex = new DocletTagIndex();
+
+    private volatile int modificationCount;
+
     /**
      * constructor for root ClassLibrary
      */
@@ -82,6 +96,24 @@ public abstract class AbstractClassLibrary
     }
     
     public final JavaClass getJavaClass( String name, boolean createStub ) {
+        JavaClass result = context.getClassByName( name );
+        if ( result == null && mightContainClass( name ) && !isMissing( name, true ) )
+        {
+            result = resolveAndRegisterJavaClass( name );
+        }
+        if ( result == null && parentClassLibrary != null )
+        {
+            result = parentClassLibrary.getJavaClass( name );
+        }
+        if (result == null && createStub) {
+            result = createStub(name);
+        }
+        return result;
+    }
+
+    // a class is resolved only once, even if several threads ask for it at the same time
+    private synchronized JavaClass resolveAndRegisterJavaClass( String name )
+    {
         JavaClass result = context.getClassByName( name );
         if ( result == null )
         {
@@ -91,6 +123,7 @@ public abstract class AbstractClassLibrary
             {
                 context.add( result );
                 context.add( result.getSource() );
+                subtypeIndex.add( result );
                 
                 JavaPackage contextPackage = context.getPackageByName( result.getPackageName() ); 
                 if( contextPackage == null ) {
@@ -100,15 +133,15 @@ public abstract class AbstractClassLibrary
 
                     contextPackage  = newContextPackage;
                 }
-                contextPackage.getClasses().addAll( result.getNestedClasses() );
+                for ( JavaClass nestedClass : result.getNestedClasses() )
+                {
+                    addClass( contextPackage, nestedClass );
+                }
+            }
+            else
+            {
+                addMissing( name, true );
             }
-        }
-        if ( result == null && parentClassLibrary != null )
-        {
-            result = parentClassLibrary.getJavaClass( name );
-        }
-        if (result == null && createStub) {
-            result = createStub(name);
         }
         return result;
     }
@@ -122,6 +155,98 @@ public abstract class AbstractClassLibrary
         return unknownSource.getClasses().get( 0 );
     }
 
+    /**
+     * Remove the source and all of its classes, including the nested classes, from the context of this library and
+     * from the classes of their packages. Subclasses can use this to replace a source which has been changed.
+     * 
+     * @param source the source to remove
+     * @since 2.0
+     */
+    protected void removeJavaSource( JavaSource source )
+    {
+        clearMissingClasses();
+        context.remove( source );
+        for ( JavaClass cls : source.getClasses() )
+        {
+            removeJavaClass( cls );
+        }
+    }
+
+    private void removeJavaClass( JavaClass cls )
+    {
+        context.remove( cls );
+        subtypeIndex.remove( cls );
+        docletTagIndex.remove( cls );
+        JavaPackage contextPackage = context.getPackageByName( cls.getPackageName() );
+        if ( contextPackage != null )
+        {
+            removeClass( contextPackage, cls );
+        }
+        JavaPackage pckg = getJavaPackage( cls.getPackageName() );
+        if ( pckg != null && pckg != contextPackage )
+        {
+            removeClass( pckg, cls );
+        }
+        for ( JavaClass nestedClass : cls.getNestedClasses() )
+        {
+            removeJavaClass( nestedClass );
+        }
+    }
+
+    // the classes of a DefaultJavaPackage are a read-only copy, other packages are changed through their classes
+    static void addClass( JavaPackage pckg, JavaClass cls )
+    {
+        if ( pckg instanceof DefaultJavaPackage )
+        {
+            ( (DefaultJavaPackage) pckg ).addClass( cls );
+        }
+        else
+        {
+            pckg.getClasses().add( cls );
+        }
+    }
+
+    // JavaClass.equals() compares names, but only this instance should be removed
+    private static void removeClass( JavaPackage pckg, JavaClass cls )
+    {
+        if ( pckg instanceof DefaultJavaPackage )
+        {
+            ( (DefaultJavaPackage) pckg ).removeClass( cls );
+            return;
+        }
+        for ( Iterator<JavaClass> iter = pckg.getClasses().iterator(); iter.hasNext(); )
+        {
+            if ( iter.next() == cls )
+            {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the index of the classes of this library by their supertypes
+     */
+    final SubtypeIndex getSubtypeIndex()
+    {
+        return subtypeIndex;
+    }
+
+    /**
+     * @return the index of the elements of this library by their doclet tags
+     */
+    final DocletTagIndex getDocletTagIndex()
+    {
+        return docletTagIndex;
+    }
+
+    /**
+     * @return the parent of this library, otherwise <code>null</code>
+     */
+    final AbstractClassLibrary getParentClassLibrary()
+    {
+        return parentClassLibrary;
+    }
+
     /**
      * The implementation should check it's sources to see if it can build a JavaClass Model If not, just return null;
      * Once found it will be mapped, so there's no need to keep a reference to this object.
@@ -194,6 +319,80 @@ public abstract class AbstractClassLibrary
         return Collections.unmodifiableList( result );
     }
     
+    /**
+     * Get the classes of the current {@link AbstractClassLibrary} which extend or implement the class. The classes are
+     * indexed by their supertypes, so the cost of a query depends on the size of its result.
+     * Subclasses which overwrite {@link #getJavaClasses()} should overwrite this method too, using
+     * {@link #getDerivedClasses(ClassLibraryFilter, JavaClass, boolean)} with the same filter.
+     * 
+     * @param javaClass the supertype
+     * @param transitive <code>true</code> to include the subclasses of subclasses, otherwise <code>false</code>
+     * @return the derived classes, excluding the class itself, never <code>null</code>
+     */
+    public List<JavaClass> getDerivedClasses( JavaClass javaClass, boolean transitive )
+    {
+        return SubtypeIndex.getDerivedClasses( Collections.singletonList( subtypeIndex ), javaClass, transitive );
+    }
+
+    /**
+     * Subclasses can call this method to gather the derived classes of all libraries matching the filter, including
+     * the parent.
+     * 
+     * @param filter the filter
+     * @param javaClass the supertype
+     * @param transitive <code>true</code> to include the subclasses of subclasses, otherwise <code>false</code>
+     * @return the derived classes of the libraries matching the filter
+     */
+    protected final List<JavaClass> getDerivedClasses( ClassLibraryFilter filter, JavaClass javaClass,
+                                                       boolean transitive )
+    {
+        List<SubtypeIndex> indexes = new LinkedList<SubtypeIndex>();
+        for ( AbstractClassLibrary library = this; library != null; library = library.parentClassLibrary )
+        {
+            if ( filter.accept( library ) )
+            {
+                indexes.add( library.subtypeIndex );
+            }
+        }
+        return SubtypeIndex.getDerivedClasses( indexes, javaClass, transitive );
+    }
+
+    /**
+     * Get the classes, fields, constructors and methods of the current {@link AbstractClassLibrary} which carry a
+     * doclet tag. The elements are indexed by their tags, so the cost of a query depends on the size of its result.
+     * Only classes which have been added from sources are indexed.
+     * Subclasses which overwrite {@link #getJavaClasses()} should overwrite this method too, using
+     * {@link #getTaggedElements(ClassLibraryFilter, String)} with the same filter.
+     * 
+     * @param tagName the name of the tag, without the leading <code>@</code>
+     * @return the tagged elements in the order of their classes, never <code>null</code>
+     */
+    public List<JavaAnnotatedElement> getTaggedElements( String tagName )
+    {
+        return DocletTagIndex.getTaggedElements( Collections.singletonList( docletTagIndex ), tagName );
+    }
+
+    /**
+     * Subclasses can call this method to gather the tagged elements of all libraries matching the filter, including
+     * the parent.
+     * 
+     * @param filter the filter
+     * @param tagName the name of the tag, without the leading <code>@</code>
+     * @return the tagged elements of the libraries matching the filter
+     */
+    protected final List<JavaAnnotatedElement> getTaggedElements( ClassLibraryFilter filter, String tagName )
+    {
+        List<DocletTagIndex> indexes = new LinkedList<DocletTagIndex>();
+        for ( AbstractClassLibrary library = this; library != null; library = library.parentClassLibrary )
+        {
+            if ( filter.accept( library ) )
+            {
+                indexes.add( library.docletTagIndex );
+            }
+        }
+        return DocletTagIndex.getTaggedElements( indexes, tagName );
+    }
+
     /**
      * Get all packages of the current {@link AbstractClassLibrary}.
      * Subclasses can overwrite this method by including the following code
@@ -225,10 +424,7 @@ public abstract class AbstractClassLibrary
     public final JavaPackage getJavaPackage( String name ) {
         JavaPackage result = context.getPackageByName( name );
         if (result == null) {
-        	result = resolveJavaPackage( name );
-        	if (result != null) {
-        		context.add(result);
-        	}
+            result = resolveAndRegisterJavaPackage( name );
         }
         if(result == null  && parentClassLibrary != null ) {
             result = parentClassLibrary.getJavaPackage( name );
@@ -236,6 +432,20 @@ public abstract class AbstractClassLibrary
         return result;
     }
     
+    private synchronized JavaPackage resolveAndRegisterJavaPackage( String name )
+    {
+        JavaPackage result = context.getPackageByName( name );
+        if ( result == null )
+        {
+            result = resolveJavaPackage( name );
+            if ( result != null )
+            {
+                context.add( result );
+            }
+        }
+        return result;
+    }
+
     protected abstract JavaPackage resolveJavaPackage(String name);
 
 	protected final Collection<JavaPackage> getJavaPackages( ClassLibraryFilter filter) {
@@ -260,8 +470,11 @@ public abstract class AbstractClassLibrary
     public boolean hasClassReference( String name )
     {
         boolean result = context.getClassByName( name ) != null;
-        if ( !result ) {
+        if ( !result && mightContainClass( name ) && !isMissing( name, false ) ) {
             result = containsClassReference( name );
+            if ( !result ) {
+                addMissing( name, false );
+            }
         }
         if ( !result && parentClassLibrary != null ) {
             result = parentClassLibrary.hasClassReference( name );
@@ -269,6 +482,31 @@ public abstract class AbstractClassLibrary
         return result;
     }
     
+    /**
+     * The simple names of the top level classes of a package which this library can resolve, excluding its parents.
+     * Libraries which can enumerate their classes should override this method, because every name which isn't part of
+     * the set will be rejected without calling {@link #resolveJavaClass(String)} or
+     * {@link #containsClassReference(String)}.
+     * 
+     * @param packageName the fully qualified name of the package, an empty String for the default package
+     * @return the simple names, otherwise <code>null</code> if this library can't enumerate the classes of the package
+     * @since 2.0
+     */
+    public Set<String> getClassNames( String packageName )
+    {
+        return null;
+    }
+
+    // false if the index of this library doesn't contain the top level class of the name
+    private boolean mightContainClass( String name )
+    {
+        int dollar = name.indexOf( '$' );
+        String topLevelName = ( dollar > 0 ? name.substring( 0, dollar ) : name );
+        int dot = topLevelName.lastIndexOf( '.' );
+        Set<String> classNames = getClassNames( dot > 0 ? topLevelName.substring( 0, dot ) : "" );
+        return classNames == null || classNames.contains( topLevelName.substring( dot + 1 ) );
+    }
+
     /**
      * This method is used to detect if there's a match with this classname.
      * The name could be constructed based on imports and inner class paths.
@@ -297,7 +535,81 @@ public abstract class AbstractClassLibrary
         this.modelWriterFactory = factory;
     }
 
+
+    /**
+     * Set the SymbolTable for this class, which is shared by the parsers and the ModelBuilders.
+     * 
+     * @param symbolTable the symbol table, may be <code>null</code>
+     * @since 2.0
+     */
+    public final void setSymbolTable( SymbolTable symbolTable )
+    {
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * @return the symbol table, may be <code>null</code>
+     * @since 2.0
+     */
+    protected final SymbolTable getSymbolTable()
+    {
+        return symbolTable;
+    }
     
+    /**
+     * Set the cache for the names of the classes which couldn't be found, which is shared by all libraries of the
+     * chain.
+     * 
+     * @param missingClassCache the cache, may be <code>null</code> to look up every name again
+     * @since 2.0
+     */
+    public final void setMissingClassCache( MissingClassCache missingClassCache )
+    {
+        this.missingClassCache = missingClassCache;
+    }
+
+    /**
+     * Subclasses must call this method when classes become available which couldn't be found before, e.g. when a
+     * source or a classloader has been added.
+     * 
+     * @since 2.0
+     */
+    protected final void clearMissingClasses()
+    {
+        if ( missingClassCache != null )
+        {
+            missingClassCache.clear();
+        }
+        modificationCount++;
+    }
+
+    /**
+     * The sum of the modification counts of this library and its parent. The count of a library is changed by
+     * {@link #clearMissingClasses()}, which every change of the available classes must call.
+     */
+    public int getModificationCount()
+    {
+        int result = modificationCount;
+        if ( parentClassLibrary != null )
+        {
+            result += parentClassLibrary.getModificationCount();
+        }
+        return result;
+    }
+
+    private boolean isMissing( String name, boolean resolve )
+    {
+        return missingClassCache != null && missingClassCache.isMissing( this, name, resolve );
+    }
+
+    private void addMissing( String name, boolean resolve )
+    {
+        if ( missingClassCache != null )
+        {
+            missingClassCache.addMissing( this, name, resolve );
+        }
+    }
+
     /**
      * If there's a modelBuilderFactory available, ask it for a new instance.
      * Otherwise, return a default ModelBuilder.
@@ -317,6 +629,7 @@ public abstract class AbstractClassLibrary
             result = new ModelBuilder( this, new DefaultDocletTagFactory() );
         }
         result.setModelWriterFactory( modelWriterFactory );
+        result.setSymbolTable( symbolTable );
         return result;
     }
     
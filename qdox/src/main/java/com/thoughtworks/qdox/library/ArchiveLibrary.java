@@ -0,0 +1,413 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.thoughtworks.qdox.builder.impl.ModelBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaPackage;
+import com.thoughtworks.qdox.model.impl.DefaultJavaPackage;
+import com.thoughtworks.qdox.parser.ParseException;
+import com.thoughtworks.qdox.parser.impl.ClassFileParser;
+import com.thoughtworks.qdox.parser.impl.JFlexLexer;
+import com.thoughtworks.qdox.parser.impl.Parser;
+
+/**
+ * Builds the JavaClasses by reading the entries of jar and zip files. The central directory of every archive is read
+ * only once into an index of its source files, class files and packages, so asking for a class reference never touches
+ * the archive again. The entries are parsed when the class is requested: a source file is preferred over a class file,
+ * because it contains the javadoc and the parameter names. Every archive keeps a single open {@link ZipFile}.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public class ArchiveLibrary
+    extends AbstractClassLibrary
+{
+    private List<File> archiveFiles = new LinkedList<File>();
+
+    private transient List<Archive> archives = new CopyOnWriteArrayList<Archive>();
+
+    // package name to the class names of all archives
+    private transient Map<String, Set<String>> classNames = new ConcurrentHashMap<String, Set<String>>();
+
+    private boolean debugLexer;
+
+    private boolean debugParser;
+
+    private boolean skipMethodBodies;
+
+    private String encoding;
+
+    private ErrorHandler errorHandler;
+
+    public ArchiveLibrary( AbstractClassLibrary parent )
+    {
+        super( parent );
+    }
+
+    /**
+     * Read the source and class files of this jar or zip file.
+     * 
+     * @param archive the archive
+     */
+    public void addArchive( File archive )
+    {
+        synchronized ( this )
+        {
+            archiveFiles.add( archive );
+        }
+        classNames.clear();
+        clearMissingClasses();
+    }
+
+    // used to store the configuration in a snapshot
+    synchronized List<File> getArchiveFiles()
+    {
+        return new ArrayList<File>( archiveFiles );
+    }
+
+    @Override
+    protected JavaClass resolveJavaClass( String name )
+    {
+        String topLevelName = getTopLevelName( name );
+        for ( Archive archive : getArchives() )
+        {
+            JavaClass result = null;
+            ZipEntry sourceEntry = archive.sourceEntries.get( topLevelName );
+            if ( sourceEntry != null )
+            {
+                result = parseSource( archive, sourceEntry, name );
+            }
+            if ( result == null && archive.classEntries.containsKey( topLevelName ) )
+            {
+                result = parseClass( archive, topLevelName, name );
+            }
+            if ( result == null && !topLevelName.equals( name ) && archive.classEntries.containsKey( name ) )
+            {
+                result = parseClass( archive, name, name );
+            }
+            if ( result != null )
+            {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private JavaClass parseSource( Archive archive, ZipEntry entry, String name )
+    {
+        JavaClass result = null;
+        try
+        {
+            InputStream stream = archive.zipFile.getInputStream( entry );
+            try
+            {
+                Reader reader =
+                    ( encoding != null ? new InputStreamReader( stream, encoding ) : new InputStreamReader( stream ) );
+                ModelBuilder builder = getModelBuilder();
+                JFlexLexer lexer = new JFlexLexer( reader );
+                lexer.setSkipMethodBodies( skipMethodBodies );
+                Parser parser = new Parser( lexer, builder );
+                parser.setDebugLexer( debugLexer );
+                parser.setDebugParser( debugParser );
+                parser.setSymbolTable( getSymbolTable() );
+                if ( parser.parse() )
+                {
+                    result = builder.getSource().getClassByName( name );
+                }
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+        catch ( ParseException pe )
+        {
+            pe.setSourceInfo( archive.file.getPath() + "!/" + entry.getName() );
+            if ( errorHandler != null )
+            {
+                errorHandler.handle( pe );
+            }
+            else
+            {
+                throw pe;
+            }
+        }
+        catch ( IOException e )
+        {
+            // just like a missing source file
+        }
+        return result;
+    }
+
+    private JavaClass parseClass( final Archive archive, String binaryName, String name )
+    {
+        JavaClass result = null;
+        ModelBuilder builder = getModelBuilder();
+        ClassFileParser.ClassFileProvider provider = new ClassFileParser.ClassFileProvider()
+        {
+            public InputStream getClassFile( String className )
+                throws IOException
+            {
+                ZipEntry entry = archive.classEntries.get( className );
+                return ( entry != null ? archive.zipFile.getInputStream( entry ) : null );
+            }
+        };
+        try
+        {
+            if ( new ClassFileParser( binaryName, provider, builder ).parse() )
+            {
+                result = builder.getSource().getClassByName( name );
+            }
+        }
+        catch ( IOException e )
+        {
+            // just like a missing class file
+        }
+        return result;
+    }
+
+    @Override
+    protected JavaPackage resolveJavaPackage( String name )
+    {
+        DefaultJavaPackage result = null;
+        for ( Archive archive : getArchives() )
+        {
+            if ( archive.packages.contains( name ) )
+            {
+                result = new DefaultJavaPackage( name );
+                result.setClassLibrary( this );
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean containsClassReference( String name )
+    {
+        String topLevelName = getTopLevelName( name );
+        for ( Archive archive : getArchives() )
+        {
+            if ( archive.classEntries.containsKey( name ) || archive.sourceEntries.containsKey( topLevelName ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The names of the top level classes of the package, read from the index of the archives.
+     */
+    @Override
+    public Set<String> getClassNames( String packageName )
+    {
+        Set<String> result = classNames.get( packageName );
+        if ( result == null )
+        {
+            Set<String> names = new HashSet<String>();
+            for ( Archive archive : getArchives() )
+            {
+                Set<String> archiveNames = archive.classNames.get( packageName );
+                if ( archiveNames != null )
+                {
+                    names.addAll( archiveNames );
+                }
+            }
+            result = Collections.unmodifiableSet( names );
+            classNames.put( packageName, result );
+        }
+        return result;
+    }
+
+    // nested classes are part of the source of the top level class
+    private static String getTopLevelName( String name )
+    {
+        int dollar = name.indexOf( '$' );
+        return ( dollar > 0 ? name.substring( 0, dollar ) : name );
+    }
+
+    // archives are opened and indexed once, when the first class is looked up
+    private synchronized List<Archive> getArchives()
+    {
+        for ( int index = archives.size(); index < archiveFiles.size(); index++ )
+        {
+            archives.add( new Archive( archiveFiles.get( index ) ) );
+        }
+        return archives;
+    }
+
+    /**
+     * Use the Lexer in debug mode
+     * 
+     * @param debugLexer
+     */
+    public void setDebugLexer( boolean debugLexer )
+    {
+        this.debugLexer = debugLexer;
+    }
+
+    /**
+     * Use the Parser in debug mode
+     * 
+     * @param debugParser
+     */
+    public void setDebugParser( boolean debugParser )
+    {
+        this.debugParser = debugParser;
+    }
+
+    /**
+     * Don't collect the sourcecode of methods, constructors and initializers.
+     * 
+     * @param skipMethodBodies <code>true</code> to skip the bodies
+     */
+    public void setSkipMethodBodies( boolean skipMethodBodies )
+    {
+        this.skipMethodBodies = skipMethodBodies;
+    }
+
+    /**
+     * Sets the encoding of the source files in the archives, <code>null</code> for the platform default
+     * 
+     * @param encoding the encoding
+     */
+    public void setEncoding( String encoding )
+    {
+        this.encoding = encoding;
+    }
+
+    public void setErrorHandler( ErrorHandler errorHandler )
+    {
+        this.errorHandler = errorHandler;
+    }
+
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        archives = new CopyOnWriteArrayList<Archive>();
+        classNames = new ConcurrentHashMap<String, Set<String>>();
+    }
+
+    /**
+     * The index of a single archive. The maps are never modified after the constructor, so they can be read by
+     * several threads.
+     */
+    private static class Archive
+    {
+        private final File file;
+
+        private ZipFile zipFile;
+
+        // binary name to class file
+        private final Map<String, ZipEntry> classEntries = new HashMap<String, ZipEntry>();
+
+        // fully qualified name of the top level class to source file
+        private final Map<String, ZipEntry> sourceEntries = new HashMap<String, ZipEntry>();
+
+        private final Set<String> packages = new HashSet<String>();
+
+        // package name to the simple names of the top level classes
+        private final Map<String, Set<String>> classNames = new HashMap<String, Set<String>>();
+
+        Archive( File file )
+        {
+            this.file = file;
+            try
+            {
+                zipFile = new ZipFile( file );
+            }
+            catch ( IOException e )
+            {
+                // an unreadable archive doesn't contain anything
+                return;
+            }
+            for ( Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); )
+            {
+                ZipEntry entry = entries.nextElement();
+                String path = entry.getName();
+                int slash = path.lastIndexOf( '/' );
+                if ( slash > 0 )
+                {
+                    packages.add( path.substring( 0, slash ).replace( '/', '.' ) );
+                }
+                if ( entry.isDirectory() )
+                {
+                    continue;
+                }
+                if ( path.endsWith( ".class" ) )
+                {
+                    String className = toClassName( path, ".class" );
+                    classEntries.put( className, entry );
+                    addClassName( className );
+                }
+                else if ( path.endsWith( ".java" ) )
+                {
+                    String className = toClassName( path, ".java" );
+                    sourceEntries.put( className, entry );
+                    addClassName( className );
+                }
+            }
+        }
+
+        private void addClassName( String className )
+        {
+            int dot = className.lastIndexOf( '.' );
+            String packageName = ( dot > 0 ? className.substring( 0, dot ) : "" );
+            int dollar = className.indexOf( '$', dot + 1 );
+            String simpleName = className.substring( dot + 1, dollar > 0 ? dollar : className.length() );
+            Set<String> names = classNames.get( packageName );
+            if ( names == null )
+            {
+                names = new HashSet<String>();
+                classNames.put( packageName, names );
+            }
+            names.add( simpleName );
+        }
+
+        private static String toClassName( String path, String extension )
+        {
+            return path.substring( 0, path.length() - extension.length() ).replace( '/', '.' );
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.thoughtworks.qdox.builder.impl.ModelBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaPackage;
+import com.thoughtworks.qdox.model.impl.DefaultJavaPackage;
+import com.thoughtworks.qdox.parser.impl.ClassFileParser;
+
+/**
+ * Builds the JavaClasses by reading the class files, which can be found by classloaders or in directories. Archives
+ * are handled by the {@link ArchiveLibrary}. In contrast to the {@link ClassLoaderLibrary} no class is ever loaded,
+ * so static initializers are never executed and classes can be resolved even if some of their dependencies are
+ * missing. The generic types are read from the class files too.
+ * <p>
+ * As long as only directories have been added, the directory of a package is listed once, on the first lookup of a
+ * class in that package, so names which aren't part of the listing are rejected without probing the file system.
+ * Class files which are added to a directory afterwards aren't found until another directory or classloader is added.
+ * </p>
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public class ClassFileLibrary
+    extends AbstractClassLibrary
+{
+    private transient List<ClassLoader> classLoaders = new LinkedList<ClassLoader>();
+
+    private List<File> directories = new LinkedList<File>();
+
+    // package name to the top level class names in the directories of that package
+    private transient ConcurrentMap<String, Set<String>> classNames = new ConcurrentHashMap<String, Set<String>>();
+
+    public ClassFileLibrary( AbstractClassLibrary parent )
+    {
+        super( parent );
+    }
+
+    /**
+     * Read the class files which can be found as resources of this classloader.
+     * 
+     * @param classLoader the classloader
+     */
+    public void addClassLoader( ClassLoader classLoader )
+    {
+        classLoaders.add( classLoader );
+        classNames.clear();
+        clearMissingClasses();
+    }
+
+    /**
+     * Read the class files in this directory, which is the root of the package structure.
+     * 
+     * @param directory the directory
+     */
+    public void addDirectory( File directory )
+    {
+        directories.add( directory );
+        classNames.clear();
+        clearMissingClasses();
+    }
+
+    // used to store the configuration in a snapshot
+    List<File> getDirectories()
+    {
+        return directories;
+    }
+
+    @Override
+    protected JavaClass resolveJavaClass( String name )
+    {
+        JavaClass result = null;
+        // nested classes are part of the source of the top level class
+        int dollar = name.indexOf( '$' );
+        if ( dollar > 0 )
+        {
+            result = parse( name.substring( 0, dollar ), name );
+        }
+        if ( result == null )
+        {
+            result = parse( name, name );
+        }
+        return result;
+    }
+
+    private JavaClass parse( String topLevelName, String name )
+    {
+        JavaClass result = null;
+        ModelBuilder builder = getModelBuilder();
+        ClassFileParser.ClassFileProvider provider = new ClassFileParser.ClassFileProvider()
+        {
+            public InputStream getClassFile( String binaryName )
+                throws IOException
+            {
+                return openClassFile( binaryName );
+            }
+        };
+        try
+        {
+            if ( new ClassFileParser( topLevelName, provider, builder ).parse() )
+            {
+                result = builder.getSource().getClassByName( name );
+            }
+        }
+        catch ( IOException e )
+        {
+            // just like a missing class file
+        }
+        return result;
+    }
+
+    @Override
+    protected JavaPackage resolveJavaPackage( String name )
+    {
+        DefaultJavaPackage result = null;
+        if ( containsResource( name.replace( '.', '/' ) + '/' ) )
+        {
+            result = new DefaultJavaPackage( name );
+            result.setClassLibrary( this );
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean containsClassReference( String name )
+    {
+        return containsResource( getPath( name ) );
+    }
+
+    /**
+     * The names of the class files in the directories of the package. Classloaders can't enumerate their classes, so
+     * once a classloader has been added every name has to be probed.
+     */
+    @Override
+    public Set<String> getClassNames( String packageName )
+    {
+        if ( !classLoaders.isEmpty() )
+        {
+            return null;
+        }
+        Set<String> result = classNames.get( packageName );
+        if ( result == null )
+        {
+            result = listClassNames( packageName );
+            Set<String> current = classNames.putIfAbsent( packageName, result );
+            if ( current != null )
+            {
+                result = current;
+            }
+        }
+        return result;
+    }
+
+    private Set<String> listClassNames( String packageName )
+    {
+        Set<String> result = new HashSet<String>();
+        String path = packageName.replace( '.', File.separatorChar );
+        for ( File directory : directories )
+        {
+            String[] fileNames = new File( directory, path ).list();
+            if ( fileNames != null )
+            {
+                for ( String fileName : fileNames )
+                {
+                    if ( fileName.endsWith( ".class" ) )
+                    {
+                        // the class files of nested classes belong to their top level class
+                        int dollar = fileName.indexOf( '$' );
+                        result.add( fileName.substring( 0, dollar > 0 ? dollar : fileName.length() - 6 ) );
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableSet( result );
+    }
+
+    private static String getPath( String binaryName )
+    {
+        return binaryName.replace( '.', '/' ) + ".class";
+    }
+
+    private boolean containsResource( String path )
+    {
+        for ( ClassLoader classLoader : classLoaders )
+        {
+            if ( classLoader.getResource( path ) != null )
+            {
+                return true;
+            }
+        }
+        for ( File directory : directories )
+        {
+            if ( new File( directory, path ).exists() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private InputStream openClassFile( String binaryName )
+        throws IOException
+    {
+        String path = getPath( binaryName );
+        for ( ClassLoader classLoader : classLoaders )
+        {
+            InputStream stream = classLoader.getResourceAsStream( path );
+            if ( stream != null )
+            {
+                return stream;
+            }
+        }
+        for ( File directory : directories )
+        {
+            File classFile = new File( directory, path );
+            if ( classFile.isFile() )
+            {
+                return new FileInputStream( classFile );
+            }
+        }
+        return null;
+    }
+
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        classLoaders = new LinkedList<ClassLoader>();
+        classNames = new ConcurrentHashMap<String, Set<String>>();
+    }
+}
@@ -21,7 +21,9 @@ package com.thoughtworks.qdox.library;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.List;
 
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaPackage;
 import com.thoughtworks.qdox.model.JavaSource;
@@ -69,6 +71,36 @@ public interface ClassLibrary
      * @return all JavaClasses as a List, never <code>null</code>
      */
     Collection<JavaClass> getJavaClasses();
+
+    /**
+     * Return the JavaClasses of the current library which extend or implement the class.
+     * The same classes are searched as by {@link #getJavaClasses()}.
+     * 
+     * @param javaClass the supertype
+     * @param transitive <code>true</code> to include the subclasses of subclasses, otherwise <code>false</code>
+     * @return the derived classes, excluding the class itself, never <code>null</code>
+     * @since 2.0
+     */
+    List<JavaClass> getDerivedClasses( JavaClass javaClass, boolean transitive );
+
+    /**
+     * Return the classes, fields, constructors and methods of the current library which carry a doclet tag.
+     * The same classes are searched as by {@link #getJavaClasses()}.
+     * 
+     * @param tagName the name of the tag, without the leading <code>@</code>
+     * @return the tagged elements in the order of their classes, never <code>null</code>
+     * @since 2.0
+     */
+    List<JavaAnnotatedElement> getTaggedElements( String tagName );
+
+    /**
+     * A counter which changes every time classes are added to or removed from this library or its ancestors, which
+     * could change the result of a lookup. Models can use it to find out if what they've cached is still valid.
+     * 
+     * @return the modification count
+     * @since 2.0
+     */
+    int getModificationCount();
     
     /**
      * Return all JavaSources of the current library.
@@ -25,8 +25,10 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.net.URL;
+import java.util.Collection;
 
 import com.thoughtworks.qdox.builder.ModelBuilderFactory;
+import com.thoughtworks.qdox.builder.SymbolTable;
 import com.thoughtworks.qdox.model.JavaSource;
 import com.thoughtworks.qdox.writer.ModelWriterFactory;
 
@@ -56,6 +58,24 @@ public interface ClassLibraryBuilder extends Serializable
      */
     ClassLibraryBuilder appendDefaultClassLoaders();
 
+    /**
+     * Append a directory with class files, which are read without loading the classes.
+     * 
+     * @param classFolder the root directory of the class files
+     * @return this ClassLibraryBuilder instance
+     * @since 2.0
+     */
+    ClassLibraryBuilder appendClassFolder( File classFolder );
+
+    /**
+     * Append a jar or zip file, which may contain source files and class files.
+     * 
+     * @param archive the archive
+     * @return this ClassLibraryBuilder instance
+     * @since 2.0
+     */
+    ClassLibraryBuilder appendArchive( File archive );
+
     /**
      * 
      * @param sourceFolder
@@ -123,6 +143,58 @@ public interface ClassLibraryBuilder extends Serializable
      * @throws IOException
      */
     JavaSource addSource( File file ) throws IOException;
+
+    /**
+     * Parse the file, but don't add it to the library yet.
+     * Implementations must support calling this method from several threads at the same time,
+     * so files can be parsed in parallel.
+     * 
+     * @param file the file to parse
+     * @return the created JavaSource, might be <code>null</code>
+     * @throws IOException if the file can't be read
+     * @see #addSource(JavaSource)
+     * @since 2.0
+     */
+    JavaSource parseSource( File file ) throws IOException;
+
+    /**
+     * Add a JavaSource created by {@link #parseSource(File)} to the library.
+     * This method should only be called by one thread at a time.
+     * 
+     * @param source the parsed source, might be <code>null</code>
+     * @return the added JavaSource
+     * @throws IOException if a related file, like the package-info.java, can't be read
+     * @since 2.0
+     */
+    JavaSource addSource( JavaSource source ) throws IOException;
+    
+    /**
+     * Parse the files again which have been changed, added or deleted since they were parsed by
+     * {@link #parseSource(File)} and replace their sources in the library.
+     * 
+     * @param files the files to check
+     * @return the sources which have been parsed
+     * @throws IOException if a file can't be read
+     * @since 2.0
+     */
+    Collection<JavaSource> refreshSources( Collection<File> files ) throws IOException;
+
+    /**
+     * 
+     * @return the files which have been parsed by {@link #parseSource(File)}
+     * @since 2.0
+     */
+    Collection<File> getSourceFiles();
+
+    /**
+     * Add the sources of a snapshot written by a {@link SnapshotWriter}, without parsing them again.
+     * 
+     * @param stream the snapshot
+     * @return the sources of the snapshot
+     * @throws IOException if the snapshot can't be read
+     * @since 2.0
+     */
+    Collection<JavaSource> addSnapshot( InputStream stream ) throws IOException;
     
     /**
      * 
@@ -138,6 +210,17 @@ public interface ClassLibraryBuilder extends Serializable
      */
     ClassLibraryBuilder setDebugParser( boolean debugParser );
     
+    /**
+     * Only match the braces of method, constructor and initializer bodies, without collecting their content.
+     * This speeds up parsing and reduces memory usage, but {@link com.thoughtworks.qdox.model.JavaMethod#getSourceCode()}
+     * will return an empty String.
+     * 
+     * @param skipMethodBodies <code>true</code> to skip the bodies
+     * @return this ClassLibraryBuilder instance
+     * @since 2.0
+     */
+    ClassLibraryBuilder setSkipMethodBodies( boolean skipMethodBodies );
+    
     /**
      * 
      * @param encoding
@@ -160,6 +243,16 @@ public interface ClassLibraryBuilder extends Serializable
      * @return this ClassLibraryBuilder instance
      */
     ClassLibraryBuilder setModelWriterFactory( ModelWriterFactory factory );
+
+    /**
+     * Define the {@link SymbolTable} which the parsers and the ModelBuilders should use to canonicalize names. By
+     * default every ClassLibraryBuilder has its own {@link com.thoughtworks.qdox.builder.impl.DefaultSymbolTable}.
+     * 
+     * @param symbolTable the symbolTable, may be <code>null</code> to disable canonicalization
+     * @return this ClassLibraryBuilder instance
+     * @since 2.0
+     */
+    ClassLibraryBuilder setSymbolTable( SymbolTable symbolTable );
     
     /**
      * Get the library based on the strategy of the implementation
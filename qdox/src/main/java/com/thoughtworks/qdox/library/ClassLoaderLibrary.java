@@ -30,7 +30,6 @@ import com.thoughtworks.qdox.builder.impl.ModelBuilder;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaPackage;
 import com.thoughtworks.qdox.model.impl.DefaultJavaPackage;
-import com.thoughtworks.qdox.parser.JavaLexer;
 import com.thoughtworks.qdox.parser.ParseException;
 import com.thoughtworks.qdox.parser.impl.BinaryClassParser;
 import com.thoughtworks.qdox.parser.impl.JFlexLexer;
@@ -67,6 +66,8 @@ public class ClassLoaderLibrary
     private boolean debugLexer;
 
     private boolean debugParser;
+
+    private boolean skipMethodBodies;
     
     private ErrorHandler errorHandler;
     
@@ -84,6 +85,7 @@ public class ClassLoaderLibrary
     public void addClassLoader( ClassLoader classLoader )
     {
         classLoaders.add( classLoader );
+        clearMissingClasses();
     }
 
     public void addDefaultLoader()
@@ -92,10 +94,17 @@ public class ClassLoaderLibrary
         {
             classLoaders.add( getClass().getClassLoader() );
             classLoaders.add( Thread.currentThread().getContextClassLoader() );
+            clearMissingClasses();
         }
         defaultClassLoadersAdded = true;
     }
 
+    // used to store the configuration in a snapshot
+    boolean hasDefaultLoaders()
+    {
+        return defaultClassLoadersAdded;
+    }
+
     @Override
     protected JavaClass resolveJavaClass( final String name )
     {
@@ -112,10 +121,12 @@ public class ClassLoaderLibrary
             if ( sourceStream != null )
             {
                 ModelBuilder builder = getModelBuilder();
-                JavaLexer lexer = new JFlexLexer( sourceStream );
+                JFlexLexer lexer = new JFlexLexer( sourceStream );
+                lexer.setSkipMethodBodies( skipMethodBodies );
                 Parser parser = new Parser( lexer, builder );
                 parser.setDebugLexer( debugLexer );
                 parser.setDebugParser( debugParser );
+                parser.setSymbolTable( getSymbolTable() );
                 try
                 {
                     if ( parser.parse() )
@@ -224,6 +235,17 @@ public class ClassLoaderLibrary
         this.debugParser = debugParser;
     }
     
+    /**
+     * Don't collect the sourcecode of methods, constructors and initializers.
+     * 
+     * @param skipMethodBodies <code>true</code> to skip the bodies
+     * @since 2.0
+     */
+    public void setSkipMethodBodies( boolean skipMethodBodies )
+    {
+        this.skipMethodBodies = skipMethodBodies;
+    }
+    
     public void setErrorHandler( ErrorHandler errorHandler )
     {
         this.errorHandler = errorHandler;
@@ -0,0 +1,204 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.thoughtworks.qdox.model.DocletTag;
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaConstructor;
+import com.thoughtworks.qdox.model.JavaField;
+import com.thoughtworks.qdox.model.JavaMethod;
+
+/**
+ * Maps the names of doclet tags to the classes, fields, constructors and methods of a library which carry them.
+ * Classes are added when the library registers them, but their javadoc is only parsed at the first query after that,
+ * so sources which are never queried for tags don't have to be parsed completely.
+ * <p>
+ * Nested classes are registered by the library as well, so only the members which are declared by a class itself are
+ * indexed with it. An element carrying a tag more than once is listed only once.
+ * </p>
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+final class DocletTagIndex
+    implements Serializable
+{
+    // all classes in the order in which they were added, guarded by this
+    private final List<JavaClass> classes = new ArrayList<JavaClass>();
+
+    private final Map<JavaClass, Boolean> members = new IdentityHashMap<JavaClass, Boolean>();
+
+    // classes.subList(0, indexedCount) has been indexed
+    private int indexedCount;
+
+    // incremented when indexed classes are removed, so a concurrent update won't store stale entries
+    private int generation;
+
+    private final Map<String, List<JavaAnnotatedElement>> elements = new HashMap<String, List<JavaAnnotatedElement>>();
+
+    /**
+     * Add a class, classes which have been added before are ignored.
+     * 
+     * @param javaClass the class to add
+     */
+    synchronized void add( JavaClass javaClass )
+    {
+        if ( members.put( javaClass, Boolean.TRUE ) == null )
+        {
+            classes.add( javaClass );
+        }
+    }
+
+    /**
+     * Remove this instance of the class.
+     * 
+     * @param javaClass the class to remove
+     */
+    synchronized void remove( JavaClass javaClass )
+    {
+        if ( members.remove( javaClass ) != null )
+        {
+            for ( int index = classes.size() - 1; index >= 0; index-- )
+            {
+                if ( classes.get( index ) == javaClass )
+                {
+                    classes.remove( index );
+                }
+            }
+            elements.clear();
+            indexedCount = 0;
+            generation++;
+        }
+    }
+
+    /**
+     * Get the elements of the indexes which carry the tag, in the order of the indexes.
+     * 
+     * @param indexes the indexes to search
+     * @param tagName the name of the tag, without the leading <code>@</code>
+     * @return the classes, fields, constructors and methods with the tag, never <code>null</code>
+     */
+    static List<JavaAnnotatedElement> getTaggedElements( List<DocletTagIndex> indexes, String tagName )
+    {
+        List<JavaAnnotatedElement> result = new ArrayList<JavaAnnotatedElement>();
+        for ( DocletTagIndex index : indexes )
+        {
+            index.update();
+            index.collect( tagName, result );
+        }
+        return result;
+    }
+
+    private synchronized void collect( String tagName, List<JavaAnnotatedElement> result )
+    {
+        List<JavaAnnotatedElement> tagged = elements.get( tagName );
+        if ( tagged != null )
+        {
+            result.addAll( tagged );
+        }
+    }
+
+    // parsing the javadoc takes a while, so it's done without holding the lock
+    private void update()
+    {
+        while ( true )
+        {
+            List<JavaClass> batch;
+            int start;
+            int batchGeneration;
+            synchronized ( this )
+            {
+                if ( indexedCount == classes.size() )
+                {
+                    return;
+                }
+                start = indexedCount;
+                batchGeneration = generation;
+                batch = new ArrayList<JavaClass>( classes.subList( start, classes.size() ) );
+            }
+
+            Map<String, List<JavaAnnotatedElement>> batchElements = new HashMap<String, List<JavaAnnotatedElement>>();
+            for ( JavaClass javaClass : batch )
+            {
+                put( batchElements, javaClass );
+                for ( JavaField field : javaClass.getFields() )
+                {
+                    put( batchElements, field );
+                }
+                for ( JavaConstructor constructor : javaClass.getConstructors() )
+                {
+                    put( batchElements, constructor );
+                }
+                for ( JavaMethod method : javaClass.getMethods() )
+                {
+                    put( batchElements, method );
+                }
+            }
+
+            synchronized ( this )
+            {
+                if ( generation == batchGeneration && indexedCount == start )
+                {
+                    for ( Map.Entry<String, List<JavaAnnotatedElement>> entry : batchElements.entrySet() )
+                    {
+                        List<JavaAnnotatedElement> tagged = elements.get( entry.getKey() );
+                        if ( tagged == null )
+                        {
+                            elements.put( entry.getKey(), entry.getValue() );
+                        }
+                        else
+                        {
+                            tagged.addAll( entry.getValue() );
+                        }
+                    }
+                    indexedCount = start + batch.size();
+                }
+            }
+        }
+    }
+
+    private static void put( Map<String, List<JavaAnnotatedElement>> batchElements, JavaAnnotatedElement element )
+    {
+        for ( DocletTag tag : element.getTags() )
+        {
+            List<JavaAnnotatedElement> tagged = batchElements.get( tag.getName() );
+            if ( tagged == null )
+            {
+                tagged = new ArrayList<JavaAnnotatedElement>( 2 );
+                batchElements.put( tag.getName(), tagged );
+            }
+            // the tags of an element are added together, so a repeated tag can only match the last entry
+            if ( tagged.isEmpty() || tagged.get( tagged.size() - 1 ) != element )
+            {
+                tagged.add( element );
+            }
+        }
+    }
+}
@@ -19,14 +19,17 @@ package com.thoughtworks.qdox.library;
  * under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaPackage;
@@ -35,7 +38,11 @@ import com.thoughtworks.qdox.model.JavaSource;
 /**
  * JavaClassContext gives you a mechanism to get a {@link JavaClass}.
  * If a class couldn't be found in the cache, the class will be pulled from the classLibrary, the builder will create the corresponding JavaClass and put it in the cache.  
- * 
+ * <p>
+ * The context is thread-safe. Classes and packages are looked up without locking, all other methods synchronize on the
+ * context. The lists of classes, packages and sources are unmodifiable snapshots, which are shared until the context
+ * changes.
+ * </p>
  * 
  * @author Robert Scholte
  *
@@ -43,9 +50,19 @@ import com.thoughtworks.qdox.model.JavaSource;
 public class JavaClassContext implements Serializable {
 
 	
+	// insertion ordered, guarded by this
 	private Map<String, JavaClass> classMap = new LinkedHashMap<String, JavaClass>();
 	private Map<String, JavaPackage> packageMap = new LinkedHashMap<String, JavaPackage>();  
 	private Set<JavaSource> sourceSet = new LinkedHashSet<JavaSource>(); 
+
+	// copies of classMap and packageMap for lookups without locking
+	private transient Map<String, JavaClass> classIndex = new ConcurrentHashMap<String, JavaClass>();
+	private transient Map<String, JavaPackage> packageIndex = new ConcurrentHashMap<String, JavaPackage>();
+
+    // unmodifiable snapshots of the values, discarded when the context changes
+    private transient volatile List<JavaClass> classList;
+    private transient volatile List<JavaPackage> packageList;
+    private transient volatile List<JavaSource> sourceList;
 	
 	public JavaClassContext(){
 	}
@@ -58,7 +75,7 @@ public class JavaClassContext implements Serializable {
 	 */
 	public JavaClass getClassByName(String name) 
 	{
-		return classMap.get( name );
+		return ( name != null ? classIndex.get( name ) : getNullClass() );
 	}
 	
 	/**
@@ -67,27 +84,70 @@ public class JavaClassContext implements Serializable {
 	 * @param name the fully qualified name of the class
 	 * @return the removed JavaClass, otherwise <code>null</code> 
 	 */
-	public JavaClass removeClassByName(String name) 
+	public synchronized JavaClass removeClassByName(String name) 
 	{
+	    if ( name != null )
+	    {
+	        classIndex.remove( name );
+	    }
+	    classList = null;
 	    return classMap.remove( name );
 	}
 	
+    /**
+     * Remove this {@link JavaClass}, but only if it is the instance which is stored by its fully qualified name.
+     * 
+     * @param javaClass the JavaClass to remove
+     * @return <code>true</code> if the class was removed, otherwise <code>false</code>
+     * @since 2.0
+     */
+    public synchronized boolean remove( JavaClass javaClass )
+    {
+        String name = javaClass.getFullyQualifiedName();
+        if ( classMap.get( name ) == javaClass )
+        {
+            classMap.remove( name );
+            if ( name != null )
+            {
+                classIndex.remove( name );
+            }
+            classList = null;
+            return true;
+        }
+        return false;
+    }
+	
 	/**
 	 * Return all stored JavaClasses
 	 * 
 	 * @return a list of JavaClasses, never <code>null</code>
 	 */
-	public List<JavaClass> getClasses() {
-		return Collections.unmodifiableList( new LinkedList<JavaClass>(classMap.values()) );
-	}
+    public List<JavaClass> getClasses()
+    {
+        List<JavaClass> result = classList;
+        if ( result == null )
+        {
+            synchronized ( this )
+            {
+                result = Collections.unmodifiableList( new ArrayList<JavaClass>( classMap.values() ) );
+                classList = result;
+            }
+        }
+        return result;
+    }
 	
 	/**
 	 * Store this {@link JavaClass} based on its fully qualified name
 	 * 
 	 * @param javaClass the JavaClass to add
 	 */
-	public void add(JavaClass javaClass) {
+	public synchronized void add(JavaClass javaClass) {
 	    classMap.put(javaClass.getFullyQualifiedName(), javaClass);
+	    if ( javaClass.getFullyQualifiedName() != null )
+	    {
+	        classIndex.put( javaClass.getFullyQualifiedName(), javaClass );
+	    }
+	    classList = null;
 	}
 	
 	/**
@@ -98,7 +158,7 @@ public class JavaClassContext implements Serializable {
 	 */
     public JavaPackage getPackageByName( String name )
     {
-        return packageMap.get( name );
+        return ( name != null ? packageIndex.get( name ) : getNullPackage() );
     }
     
     /**
@@ -107,8 +167,13 @@ public class JavaClassContext implements Serializable {
      * @param name the fully qualified name of the class
      * @return the removed JavaPackage, otherwise <code>null</code> 
      */
-    public JavaPackage removePackageByName( String name )
+    public synchronized JavaPackage removePackageByName( String name )
     {
+        if ( name != null )
+        {
+            packageIndex.remove( name );
+        }
+        packageList = null;
         return packageMap.remove( name );
     }
 
@@ -117,10 +182,15 @@ public class JavaClassContext implements Serializable {
      * 
      * @param jPackage the JavaPackage to add
      */
-    public void add( JavaPackage jPackage )
+    public synchronized void add( JavaPackage jPackage )
     {
         if(jPackage != null) {
             packageMap.put( jPackage.getName(), jPackage );
+            if ( jPackage.getName() != null )
+            {
+                packageIndex.put( jPackage.getName(), jPackage );
+            }
+            packageList = null;
         }
     }
 
@@ -131,8 +201,16 @@ public class JavaClassContext implements Serializable {
      */
     public List<JavaPackage> getPackages()
     {
-        return Collections.unmodifiableList( new LinkedList<JavaPackage>(packageMap.values()) );
-        
+        List<JavaPackage> result = packageList;
+        if ( result == null )
+        {
+            synchronized ( this )
+            {
+                result = Collections.unmodifiableList( new ArrayList<JavaPackage>( packageMap.values() ) );
+                packageList = result;
+            }
+        }
+        return result;
     }
 
     /**
@@ -140,9 +218,23 @@ public class JavaClassContext implements Serializable {
      * 
      * @param source the JavaSource to add
      */
-    public void add( JavaSource source )
+    public synchronized void add( JavaSource source )
     {
         sourceSet.add( source );
+        sourceList = null;
+    }
+
+    /**
+     * Remove a {@link JavaSource} from this context
+     * 
+     * @param source the JavaSource to remove
+     * @return <code>true</code> if the source was removed, otherwise <code>false</code>
+     * @since 2.0
+     */
+    public synchronized boolean remove( JavaSource source )
+    {
+        sourceList = null;
+        return sourceSet.remove( source );
     }
 
     /**
@@ -152,6 +244,48 @@ public class JavaClassContext implements Serializable {
      */
     public List<JavaSource> getSources()
     {
-        return Collections.unmodifiableList( new LinkedList<JavaSource>(sourceSet) );
+        List<JavaSource> result = sourceList;
+        if ( result == null )
+        {
+            synchronized ( this )
+            {
+                result = Collections.unmodifiableList( new ArrayList<JavaSource>( sourceSet ) );
+                sourceList = result;
+            }
+        }
+        return result;
+    }
+
+    // the concurrent indexes don't support null keys
+    private synchronized JavaClass getNullClass()
+    {
+        return classMap.get( null );
+    }
+
+    private synchronized JavaPackage getNullPackage()
+    {
+        return packageMap.get( null );
+    }
+
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        classIndex = new ConcurrentHashMap<String, JavaClass>();
+        for ( Map.Entry<String, JavaClass> entry : classMap.entrySet() )
+        {
+            if ( entry.getKey() != null )
+            {
+                classIndex.put( entry.getKey(), entry.getValue() );
+            }
+        }
+        packageIndex = new ConcurrentHashMap<String, JavaPackage>();
+        for ( Map.Entry<String, JavaPackage> entry : packageMap.entrySet() )
+        {
+            if ( entry.getKey() != null )
+            {
+                packageIndex.put( entry.getKey(), entry.getValue() );
+            }
+        }
     }
 }
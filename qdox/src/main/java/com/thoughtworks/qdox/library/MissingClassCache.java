@@ -0,0 +1,158 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the class names which a library couldn't find, so the next lookup of the same name doesn't have to ask
+ * the classloaders or the file system again. One cache is shared by all libraries of a chain, the least recently used
+ * names are dropped once the maximum size is reached. Adding sources, source folders or classloaders makes names
+ * resolvable which weren't before, so the libraries clear the cache when that happens.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public class MissingClassCache
+    implements Serializable
+{
+    /**
+     * The default maximum number of names per cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final int maxSize;
+
+    // the names only make sense for the libraries of this session, so they are never serialized
+    private transient Map<Key, Key> names;
+
+    public MissingClassCache()
+    {
+        this( DEFAULT_MAX_SIZE );
+    }
+
+    /**
+     * @param maxSize the maximum number of names to remember
+     */
+    public MissingClassCache( int maxSize )
+    {
+        this.maxSize = maxSize;
+        this.names = createNames();
+    }
+
+    private Map<Key, Key> createNames()
+    {
+        return new LinkedHashMap<Key, Key>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Key, Key> eldest )
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param library the library which looked for the class
+     * @param name the fully qualified name of the class
+     * @param resolve <code>true</code> for {@link AbstractClassLibrary#resolveJavaClass(String)},
+     *            <code>false</code> for {@link AbstractClassLibrary#containsClassReference(String)}
+     * @return <code>true</code> if the library couldn't find this class before, otherwise <code>false</code>
+     */
+    public synchronized boolean isMissing( AbstractClassLibrary library, String name, boolean resolve )
+    {
+        return names.get( new Key( library, name, resolve ) ) != null;
+    }
+
+    /**
+     * Remember that the library couldn't find this class.
+     * 
+     * @param library the library which looked for the class
+     * @param name the fully qualified name of the class
+     * @param resolve <code>true</code> for {@link AbstractClassLibrary#resolveJavaClass(String)},
+     *            <code>false</code> for {@link AbstractClassLibrary#containsClassReference(String)}
+     */
+    public synchronized void addMissing( AbstractClassLibrary library, String name, boolean resolve )
+    {
+        Key key = new Key( library, name, resolve );
+        names.put( key, key );
+    }
+
+    /**
+     * Forget all names, because new classes have become available.
+     */
+    public synchronized void clear()
+    {
+        names.clear();
+    }
+
+    /**
+     * @return the number of remembered names
+     */
+    public synchronized int size()
+    {
+        return names.size();
+    }
+
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        names = createNames();
+    }
+
+    private static final class Key
+    {
+        private final AbstractClassLibrary library;
+
+        private final String name;
+
+        private final boolean resolve;
+
+        Key( AbstractClassLibrary library, String name, boolean resolve )
+        {
+            this.library = library;
+            this.name = name;
+            this.resolve = resolve;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return ( System.identityHashCode( library ) * 31 + name.hashCode() ) * 2 + ( resolve ? 1 : 0 );
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+            Key other = (Key) obj;
+            return library == other.library && resolve == other.resolve && name.equals( other.name );
+        }
+    }
+}
@@ -24,8 +24,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
+import java.util.Collection;
 
 import com.thoughtworks.qdox.builder.ModelBuilderFactory;
+import com.thoughtworks.qdox.builder.SymbolTable;
+import com.thoughtworks.qdox.builder.impl.DefaultSymbolTable;
 import com.thoughtworks.qdox.model.JavaSource;
 import com.thoughtworks.qdox.writer.ModelWriterFactory;
 
@@ -44,6 +47,8 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
 
     private boolean debugParser;
     
+    private boolean skipMethodBodies;
+    
     private String encoding;
     
     private ErrorHandler errorHandler;
@@ -51,6 +56,14 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
     private ModelBuilderFactory modelBuilderFactory;
     
     private ModelWriterFactory modelWriterFactory;
+
+    private SymbolTable symbolTable = new DefaultSymbolTable();
+
+    // shared by all libraries created by this builder
+    private MissingClassCache missingClassCache = new MissingClassCache();
+
+    // the sourceLibrary which has got the current settings, null when a setting has changed since
+    private transient SourceLibrary preparedSourceLibrary;
     
     /**
      * Default constructor which sets the root classLibrary to ClassNameLibrary.
@@ -87,8 +100,11 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
         classLoaderLibrary.addClassLoader( classLoader );
         classLoaderLibrary.setModelBuilderFactory( modelBuilderFactory );
         classLoaderLibrary.setModelWriterFactory( modelWriterFactory );
+        classLoaderLibrary.setSymbolTable( symbolTable );
+        classLoaderLibrary.setMissingClassCache( missingClassCache );
         classLoaderLibrary.setDebugLexer( debugLexer );
         classLoaderLibrary.setDebugParser( debugParser );
+        classLoaderLibrary.setSkipMethodBodies( skipMethodBodies );
         classLoaderLibrary.setErrorHandler( errorHandler );
         return this;
     }
@@ -107,6 +123,51 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
         classLoaderLibrary.addDefaultLoader();
         classLoaderLibrary.setModelBuilderFactory( modelBuilderFactory );
         classLoaderLibrary.setModelWriterFactory( modelWriterFactory );
+        classLoaderLibrary.setSymbolTable( symbolTable );
+        classLoaderLibrary.setMissingClassCache( missingClassCache );
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.thoughtworks.qdox.library.ClassLibraryBuilder#appendClassFolder(java.io.File)
+     */
+    public ClassLibraryBuilder appendClassFolder( File classFolder )
+    {
+        if ( !( classLibrary instanceof ClassFileLibrary ) )
+        {
+            classLibrary = new ClassFileLibrary( classLibrary );
+        }
+        ClassFileLibrary classFileLibrary = (ClassFileLibrary) classLibrary;
+        classFileLibrary.setModelBuilderFactory( modelBuilderFactory );
+        classFileLibrary.setModelWriterFactory( modelWriterFactory );
+        classFileLibrary.setSymbolTable( symbolTable );
+        classFileLibrary.setMissingClassCache( missingClassCache );
+        classFileLibrary.addDirectory( classFolder );
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.thoughtworks.qdox.library.ClassLibraryBuilder#appendArchive(java.io.File)
+     */
+    public ClassLibraryBuilder appendArchive( File archive )
+    {
+        if ( !( classLibrary instanceof ArchiveLibrary ) )
+        {
+            classLibrary = new ArchiveLibrary( classLibrary );
+        }
+        ArchiveLibrary archiveLibrary = (ArchiveLibrary) classLibrary;
+        archiveLibrary.setModelBuilderFactory( modelBuilderFactory );
+        archiveLibrary.setModelWriterFactory( modelWriterFactory );
+        archiveLibrary.setSymbolTable( symbolTable );
+        archiveLibrary.setMissingClassCache( missingClassCache );
+        archiveLibrary.setDebugLexer( debugLexer );
+        archiveLibrary.setDebugParser( debugParser );
+        archiveLibrary.setSkipMethodBodies( skipMethodBodies );
+        archiveLibrary.setEncoding( encoding );
+        archiveLibrary.setErrorHandler( errorHandler );
+        archiveLibrary.addArchive( archive );
         return this;
     }
 
@@ -151,6 +212,7 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
     public ClassLibraryBuilder setDebugLexer( boolean debugLexer )
     {
         this.debugLexer = debugLexer;
+        preparedSourceLibrary = null;
         return this;
     }
     
@@ -160,6 +222,18 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
     public ClassLibraryBuilder setDebugParser( boolean debugParser )
     {
         this.debugParser = debugParser;
+        preparedSourceLibrary = null;
+        return this;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * @see com.thoughtworks.qdox.library.ClassLibraryBuilder#setSkipMethodBodies(boolean)
+     */
+    public ClassLibraryBuilder setSkipMethodBodies( boolean skipMethodBodies )
+    {
+        this.skipMethodBodies = skipMethodBodies;
+        preparedSourceLibrary = null;
         return this;
     }
     
@@ -170,6 +244,7 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
     public ClassLibraryBuilder setEncoding( String encoding )
     {
         this.encoding = encoding;
+        preparedSourceLibrary = null;
         return this;
     }
     
@@ -180,6 +255,7 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
     public ClassLibraryBuilder setErrorHander( ErrorHandler errorHandler )
     {
         this.errorHandler = errorHandler;
+        preparedSourceLibrary = null;
         return this;
     }
     
@@ -190,6 +266,7 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
     public ClassLibraryBuilder setModelBuilderFactory( ModelBuilderFactory modelBuilderFactory )
     {
         this.modelBuilderFactory = modelBuilderFactory;
+        preparedSourceLibrary = null;
         return this;
     }
     
@@ -200,6 +277,18 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
     public ClassLibraryBuilder setModelWriterFactory( ModelWriterFactory modelWriterFactory )
     {
         this.modelWriterFactory = modelWriterFactory;
+        preparedSourceLibrary = null;
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.thoughtworks.qdox.library.ClassLibraryBuilder#setSymbolTable(com.thoughtworks.qdox.builder.SymbolTable)
+     */
+    public ClassLibraryBuilder setSymbolTable( SymbolTable symbolTable )
+    {
+        this.symbolTable = symbolTable;
+        preparedSourceLibrary = null;
         return this;
     }
 
@@ -274,24 +363,85 @@ public class OrderedClassLibraryBuilder implements ClassLibraryBuilder
         SourceLibrary sourceLibrary = getSourceLibrary();
         return sourceLibrary.addSource( file );
     }
+
+    /*
+     * (non-Javadoc)
+     * @see com.thoughtworks.qdox.library.ClassLibraryBuilder#parseSource(java.io.File)
+     */
+    public JavaSource parseSource( File file )
+        throws IOException
+    {
+        SourceLibrary sourceLibrary = getSourceLibrary();
+        return sourceLibrary.parseSource( file );
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.thoughtworks.qdox.library.ClassLibraryBuilder#addSource(com.thoughtworks.qdox.model.JavaSource)
+     */
+    public JavaSource addSource( JavaSource source )
+        throws IOException
+    {
+        SourceLibrary sourceLibrary = getSourceLibrary();
+        return sourceLibrary.addSource( source );
+    }
+    
+    /*
+     * (non-Javadoc)
+     * @see com.thoughtworks.qdox.library.ClassLibraryBuilder#refreshSources(java.util.Collection)
+     */
+    public Collection<JavaSource> refreshSources( Collection<File> files )
+        throws IOException
+    {
+        SourceLibrary sourceLibrary = getSourceLibrary();
+        return sourceLibrary.refreshSources( files );
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.thoughtworks.qdox.library.ClassLibraryBuilder#getSourceFiles()
+     */
+    public Collection<File> getSourceFiles()
+    {
+        SourceLibrary sourceLibrary = getSourceLibrary();
+        return sourceLibrary.getSourceFiles();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.thoughtworks.qdox.library.ClassLibraryBuilder#addSnapshot(java.io.InputStream)
+     */
+    public Collection<JavaSource> addSnapshot( InputStream stream )
+        throws IOException
+    {
+        SourceLibrary sourceLibrary = getSourceLibrary();
+        return sourceLibrary.addSnapshot( stream );
+    }
     
     private void prepareSourceLibrary( SourceLibrary sourceLibrary ) {
         sourceLibrary.setModelBuilderFactory( modelBuilderFactory );
         sourceLibrary.setModelWriterFactory( modelWriterFactory );
+        sourceLibrary.setSymbolTable( symbolTable );
+        sourceLibrary.setMissingClassCache( missingClassCache );
         sourceLibrary.setDebugLexer( debugLexer );
         sourceLibrary.setDebugParser( debugParser );
+        sourceLibrary.setSkipMethodBodies( skipMethodBodies );
         sourceLibrary.setEncoding( encoding );
         sourceLibrary.setErrorHandler( errorHandler );
     }
     
-    private SourceLibrary getSourceLibrary() {
-        if ( !( classLibrary instanceof SourceLibrary ) )
+    // synchronized, because parseSource() can be called by several threads
+    private synchronized SourceLibrary getSourceLibrary() {
+        if ( classLibrary != preparedSourceLibrary )
         {
-            classLibrary = new SourceLibrary( classLibrary );
+            if ( !( classLibrary instanceof SourceLibrary ) )
+            {
+                classLibrary = new SourceLibrary( classLibrary );
+            }
+            preparedSourceLibrary = (SourceLibrary) classLibrary;
+            prepareSourceLibrary( preparedSourceLibrary );
         }
-        SourceLibrary sourceLibrary = (SourceLibrary) classLibrary;
-        prepareSourceLibrary( sourceLibrary );
-        return sourceLibrary;
+        return preparedSourceLibrary;
     }
 
 }
@@ -0,0 +1,353 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The configuration of the {@link ClassLibraryBuilder} which wrote a snapshot, so an equal builder can be created when
+ * the snapshot is loaded. It contains the type of the builder, the default classloaders, class folders, archives and
+ * source folders in the order in which they were appended and the settings of the source library. The errorhandler is
+ * only kept if it's {@link Serializable}. Other classloaders, factories and the symbol table can't be kept, these need
+ * to be set again after loading.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ * @see SnapshotFormat
+ */
+final class SnapshotConfiguration
+{
+    private final String builderClassName;
+
+    private boolean classNameLibrary;
+
+    // the kind of every appended entry, with the file of that entry at the same index
+    private final List<Integer> kinds = new LinkedList<Integer>();
+
+    private final List<File> files = new LinkedList<File>();
+
+    private boolean sourceSettings;
+
+    private boolean debugLexer;
+
+    private boolean debugParser;
+
+    private boolean skipMethodBodies;
+
+    private String encoding;
+
+    // the serialized errorhandler, only deserialized when a builder is created
+    private byte[] errorHandler = new byte[0];
+
+    private SnapshotConfiguration( String builderClassName )
+    {
+        this.builderClassName = builderClassName;
+    }
+
+    /**
+     * Collect the configuration of the builder by walking its chain of libraries, starting at the root.
+     * 
+     * @param builder the builder
+     * @return the configuration
+     * @throws IOException if the errorhandler can't be serialized
+     */
+    static SnapshotConfiguration of( ClassLibraryBuilder builder )
+        throws IOException
+    {
+        SnapshotConfiguration result = new SnapshotConfiguration( builder.getClass().getName() );
+        LinkedList<AbstractClassLibrary> libraries = new LinkedList<AbstractClassLibrary>();
+        if ( builder.getClassLibrary() instanceof AbstractClassLibrary )
+        {
+            for ( AbstractClassLibrary library = (AbstractClassLibrary) builder.getClassLibrary(); library != null;
+                  library = library.getParentClassLibrary() )
+            {
+                libraries.addFirst( library );
+            }
+        }
+
+        SourceLibrary sourceLibrary = null;
+        for ( AbstractClassLibrary library : libraries )
+        {
+            if ( library instanceof ClassNameLibrary )
+            {
+                result.classNameLibrary = true;
+            }
+            else if ( library instanceof ClassLoaderLibrary )
+            {
+                if ( ( (ClassLoaderLibrary) library ).hasDefaultLoaders() )
+                {
+                    result.add( SnapshotFormat.DEFAULT_CLASS_LOADERS, null );
+                }
+            }
+            else if ( library instanceof ClassFileLibrary )
+            {
+                result.addAll( SnapshotFormat.CLASS_FOLDER, ( (ClassFileLibrary) library ).getDirectories() );
+            }
+            else if ( library instanceof ArchiveLibrary )
+            {
+                result.addAll( SnapshotFormat.ARCHIVE, ( (ArchiveLibrary) library ).getArchiveFiles() );
+            }
+            else if ( library instanceof SourceFolderLibrary )
+            {
+                result.addAll( SnapshotFormat.SOURCE_FOLDER, ( (SourceFolderLibrary) library ).getSourceFolders() );
+            }
+
+            if ( library instanceof SourceLibrary )
+            {
+                sourceLibrary = (SourceLibrary) library;
+            }
+        }
+
+        // the top sourcelibrary has got the latest settings
+        if ( sourceLibrary != null )
+        {
+            result.sourceSettings = true;
+            result.debugLexer = sourceLibrary.isDebugLexer();
+            result.debugParser = sourceLibrary.isDebugParser();
+            result.skipMethodBodies = sourceLibrary.isSkipMethodBodies();
+            result.encoding = sourceLibrary.getEncoding();
+            result.errorHandler = serialize( sourceLibrary.getErrorHandler() );
+        }
+        return result;
+    }
+
+    /**
+     * Write the configuration, or the absence of it.
+     * 
+     * @param configuration the configuration, may be <code>null</code>
+     * @param out the stream to write to
+     * @throws IOException if the configuration can't be written
+     */
+    static void write( SnapshotConfiguration configuration, DataOutputStream out )
+        throws IOException
+    {
+        out.writeBoolean( configuration != null );
+        if ( configuration != null )
+        {
+            configuration.write( out );
+        }
+    }
+
+    /**
+     * Read the configuration written by {@link #write(SnapshotConfiguration, DataOutputStream)}.
+     * 
+     * @param in the stream to read from
+     * @return the configuration, otherwise <code>null</code>
+     * @throws IOException if the configuration can't be read
+     */
+    static SnapshotConfiguration read( DataInputStream in )
+        throws IOException
+    {
+        if ( !in.readBoolean() )
+        {
+            return null;
+        }
+        SnapshotConfiguration result = new SnapshotConfiguration( in.readUTF() );
+        result.classNameLibrary = in.readBoolean();
+        for ( int i = in.readInt(); i > 0; i-- )
+        {
+            int kind = in.readByte();
+            result.add( kind, kind != SnapshotFormat.DEFAULT_CLASS_LOADERS ? new File( in.readUTF() ) : null );
+        }
+        result.sourceSettings = in.readBoolean();
+        if ( result.sourceSettings )
+        {
+            result.debugLexer = in.readBoolean();
+            result.debugParser = in.readBoolean();
+            result.skipMethodBodies = in.readBoolean();
+            result.encoding = in.readBoolean() ? in.readUTF() : null;
+            result.errorHandler = new byte[in.readInt()];
+            in.readFully( result.errorHandler );
+        }
+        return result;
+    }
+
+    /**
+     * Create a new builder with this configuration. The settings are applied first, so the libraries which are
+     * appended afterwards get them too.
+     * 
+     * @return the builder, or <code>null</code> if the builder can't be instantiated
+     * @throws IOException if the errorhandler can't be deserialized
+     */
+    ClassLibraryBuilder createClassLibraryBuilder()
+        throws IOException
+    {
+        ClassLibraryBuilder builder;
+        if ( OrderedClassLibraryBuilder.class.getName().equals( builderClassName ) )
+        {
+            builder = classNameLibrary ? new OrderedClassLibraryBuilder() : new OrderedClassLibraryBuilder( null );
+        }
+        else if ( SortedClassLibraryBuilder.class.getName().equals( builderClassName ) )
+        {
+            builder = new SortedClassLibraryBuilder();
+        }
+        else
+        {
+            try
+            {
+                builder = (ClassLibraryBuilder) Class.forName( builderClassName ).newInstance();
+            }
+            catch ( Exception e )
+            {
+                // a custom builder without a public default constructor
+                return null;
+            }
+        }
+
+        if ( sourceSettings )
+        {
+            builder.setDebugLexer( debugLexer );
+            builder.setDebugParser( debugParser );
+            builder.setSkipMethodBodies( skipMethodBodies );
+            if ( encoding != null )
+            {
+                builder.setEncoding( encoding );
+            }
+            if ( errorHandler.length > 0 )
+            {
+                builder.setErrorHander( deserialize( errorHandler ) );
+            }
+        }
+
+        for ( int index = 0; index < kinds.size(); index++ )
+        {
+            switch ( kinds.get( index ).intValue() )
+            {
+                case SnapshotFormat.DEFAULT_CLASS_LOADERS:
+                    builder.appendDefaultClassLoaders();
+                    break;
+                case SnapshotFormat.CLASS_FOLDER:
+                    builder.appendClassFolder( files.get( index ) );
+                    break;
+                case SnapshotFormat.ARCHIVE:
+                    builder.appendArchive( files.get( index ) );
+                    break;
+                case SnapshotFormat.SOURCE_FOLDER:
+                    builder.appendSourceFolder( files.get( index ) );
+                    break;
+                default:
+                    throw new IOException( "Unknown library " + kinds.get( index ) );
+            }
+        }
+        return builder;
+    }
+
+    private void write( DataOutputStream out )
+        throws IOException
+    {
+        out.writeUTF( builderClassName );
+        out.writeBoolean( classNameLibrary );
+        out.writeInt( kinds.size() );
+        for ( int index = 0; index < kinds.size(); index++ )
+        {
+            int kind = kinds.get( index ).intValue();
+            out.writeByte( kind );
+            if ( kind != SnapshotFormat.DEFAULT_CLASS_LOADERS )
+            {
+                out.writeUTF( files.get( index ).getPath() );
+            }
+        }
+        out.writeBoolean( sourceSettings );
+        if ( sourceSettings )
+        {
+            out.writeBoolean( debugLexer );
+            out.writeBoolean( debugParser );
+            out.writeBoolean( skipMethodBodies );
+            out.writeBoolean( encoding != null );
+            if ( encoding != null )
+            {
+                out.writeUTF( encoding );
+            }
+            out.writeInt( errorHandler.length );
+            out.write( errorHandler );
+        }
+    }
+
+    private void add( int kind, File file )
+    {
+        kinds.add( Integer.valueOf( kind ) );
+        files.add( file );
+    }
+
+    private void addAll( int kind, List<File> values )
+    {
+        for ( File file : values )
+        {
+            add( kind, file );
+        }
+    }
+
+    private static byte[] serialize( ErrorHandler errorHandler )
+        throws IOException
+    {
+        if ( !( errorHandler instanceof Serializable ) )
+        {
+            return new byte[0];
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream( bytes );
+        try
+        {
+            out.writeObject( errorHandler );
+        }
+        catch ( NotSerializableException e )
+        {
+            // one of its fields can't be serialized
+            return new byte[0];
+        }
+        finally
+        {
+            out.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ErrorHandler deserialize( byte[] bytes )
+        throws IOException
+    {
+        ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes ) );
+        try
+        {
+            return (ErrorHandler) in.readObject();
+        }
+        catch ( ClassNotFoundException e )
+        {
+            IOException exception = new IOException( "Couldn't load class : " + e.getMessage() );
+            exception.initCause( e );
+            throw exception;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+/**
+ * The constants of the snapshot format, shared by the {@link SnapshotWriter} and the {@link SnapshotReader}.
+ * <p>
+ * A snapshot starts with the {@link #MAGIC} number and the {@link #VERSION}, followed by the
+ * {@link SnapshotConfiguration} of the builder which wrote it, if any, and the sources. Every source is
+ * preceded by a <code>true</code> and the last one is followed by a <code>false</code>. A source is written as the
+ * sequence in which the parser would call the {@link com.thoughtworks.qdox.builder.Builder}, so reading a source is
+ * replaying these calls. Strings are written once and referred to by their index in the string table afterwards.
+ * Integers are written as variable-length quantities.
+ * </p>
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+final class SnapshotFormat
+{
+    /**
+     * "QDOX", which can't be confused with the start of a serialized Java object
+     */
+    static final int MAGIC = 0x51444F58;
+
+    /**
+     * Increase when the format changes, older snapshots can't be read anymore
+     */
+    static final int VERSION = 2;
+
+    // appended libraries of the configuration
+    static final int DEFAULT_CLASS_LOADERS = 0;
+
+    static final int CLASS_FOLDER = 1;
+
+    static final int ARCHIVE = 2;
+
+    static final int SOURCE_FOLDER = 3;
+
+    // strings
+    static final int NULL_STRING = 0;
+
+    static final int NEW_STRING = 1;
+
+    static final int UNSHARED_STRING = 2;
+
+    static final int STRING_REFERENCE = 3;
+
+    /**
+     * Longer strings, like method bodies, are hardly ever repeated, so they're not added to the string table
+     */
+    static final int MAX_SHARED_STRING_LENGTH = 256;
+
+    // class types
+    static final int CLASS = 0;
+
+    static final int INTERFACE = 1;
+
+    static final int ENUM = 2;
+
+    static final int ANNOTATION_TYPE = 3;
+
+    // types
+    static final int TYPE = 0;
+
+    static final int WILDCARD = 1;
+
+    static final int UNBOUNDED = 0;
+
+    static final int EXTENDS = 1;
+
+    static final int SUPER = 2;
+
+    // expressions
+    static final int ANNOTATION = 0;
+
+    static final int VALUE_LIST = 1;
+
+    static final int INTEGER_CONSTANT = 2;
+
+    static final int FLOATING_POINT_CONSTANT = 3;
+
+    static final int BOOLEAN_CONSTANT = 4;
+
+    static final int CHARACTER_CONSTANT = 5;
+
+    static final int STRING_CONSTANT = 6;
+
+    static final int FIELD_REF = 7;
+
+    static final int TYPE_REF = 8;
+
+    static final int CAST = 9;
+
+    static final int QUERY = 10;
+
+    static final int ASSIGNMENT = 11;
+
+    static final int PARENTHESES = 12;
+
+    static final int PLUS_SIGN = 13;
+
+    static final int MINUS_SIGN = 14;
+
+    static final int NOT = 15;
+
+    static final int LOGICAL_NOT = 16;
+
+    static final int PRE_INCREMENT = 17;
+
+    static final int PRE_DECREMENT = 18;
+
+    static final int POST_INCREMENT = 19;
+
+    static final int POST_DECREMENT = 20;
+
+    static final int ADD = 21;
+
+    static final int SUBTRACT = 22;
+
+    static final int MULTIPLY = 23;
+
+    static final int DIVIDE = 24;
+
+    static final int REMAINDER = 25;
+
+    static final int AND = 26;
+
+    static final int OR = 27;
+
+    static final int EXCLUSIVE_OR = 28;
+
+    static final int LOGICAL_AND = 29;
+
+    static final int LOGICAL_OR = 30;
+
+    static final int SHIFT_LEFT = 31;
+
+    static final int SHIFT_RIGHT = 32;
+
+    static final int UNSIGNED_SHIFT_RIGHT = 33;
+
+    static final int EQUALS = 34;
+
+    static final int NOT_EQUALS = 35;
+
+    static final int GREATER_THAN = 36;
+
+    static final int GREATER_EQUALS = 37;
+
+    static final int LESS_THAN = 38;
+
+    static final int LESS_EQUALS = 39;
+
+    private SnapshotFormat()
+    {
+    }
+}
@@ -0,0 +1,596 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import com.thoughtworks.qdox.builder.impl.ModelBuilder;
+import com.thoughtworks.qdox.parser.expression.AddDef;
+import com.thoughtworks.qdox.parser.expression.AndDef;
+import com.thoughtworks.qdox.parser.expression.AssignmentDef;
+import com.thoughtworks.qdox.parser.expression.CastDef;
+import com.thoughtworks.qdox.parser.expression.ConstantDef;
+import com.thoughtworks.qdox.parser.expression.DivideDef;
+import com.thoughtworks.qdox.parser.expression.ElemValueDef;
+import com.thoughtworks.qdox.parser.expression.ElemValueListDef;
+import com.thoughtworks.qdox.parser.expression.EqualsDef;
+import com.thoughtworks.qdox.parser.expression.ExclusiveOrDef;
+import com.thoughtworks.qdox.parser.expression.ExpressionDef;
+import com.thoughtworks.qdox.parser.expression.FieldRefDef;
+import com.thoughtworks.qdox.parser.expression.GreaterEqualsDef;
+import com.thoughtworks.qdox.parser.expression.GreaterThanDef;
+import com.thoughtworks.qdox.parser.expression.LessEqualsDef;
+import com.thoughtworks.qdox.parser.expression.LessThanDef;
+import com.thoughtworks.qdox.parser.expression.LogicalAndDef;
+import com.thoughtworks.qdox.parser.expression.LogicalNotDef;
+import com.thoughtworks.qdox.parser.expression.LogicalOrDef;
+import com.thoughtworks.qdox.parser.expression.MinusSignDef;
+import com.thoughtworks.qdox.parser.expression.MultiplyDef;
+import com.thoughtworks.qdox.parser.expression.NotDef;
+import com.thoughtworks.qdox.parser.expression.NotEqualsDef;
+import com.thoughtworks.qdox.parser.expression.OrDef;
+import com.thoughtworks.qdox.parser.expression.ParenExpressionDef;
+import com.thoughtworks.qdox.parser.expression.PlusSignDef;
+import com.thoughtworks.qdox.parser.expression.PostDecrementDef;
+import com.thoughtworks.qdox.parser.expression.PostIncrementDef;
+import com.thoughtworks.qdox.parser.expression.PreDecrementDef;
+import com.thoughtworks.qdox.parser.expression.PreIncrementDef;
+import com.thoughtworks.qdox.parser.expression.QueryDef;
+import com.thoughtworks.qdox.parser.expression.RemainderDef;
+import com.thoughtworks.qdox.parser.expression.ShiftLeftDef;
+import com.thoughtworks.qdox.parser.expression.ShiftRightDef;
+import com.thoughtworks.qdox.parser.expression.SubtractDef;
+import com.thoughtworks.qdox.parser.expression.TypeRefDef;
+import com.thoughtworks.qdox.parser.expression.UnsignedShiftRightDef;
+import com.thoughtworks.qdox.parser.structs.AnnoDef;
+import com.thoughtworks.qdox.parser.structs.ClassDef;
+import com.thoughtworks.qdox.parser.structs.FieldDef;
+import com.thoughtworks.qdox.parser.structs.MethodDef;
+import com.thoughtworks.qdox.parser.structs.PackageDef;
+import com.thoughtworks.qdox.parser.structs.TagDef;
+import com.thoughtworks.qdox.parser.structs.TypeDef;
+import com.thoughtworks.qdox.parser.structs.TypeVariableDef;
+import com.thoughtworks.qdox.parser.structs.WildcardTypeDef;
+
+/**
+ * Reads a snapshot written by the {@link SnapshotWriter}. Every source is replayed on a {@link ModelBuilder} the same
+ * way the parser would have done, without lexing and parsing the sourcecode again.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ * @see SnapshotFormat
+ */
+public final class SnapshotReader
+{
+    private final DataInputStream in;
+
+    private final List<String> strings = new ArrayList<String>();
+
+    private final SnapshotConfiguration configuration;
+
+    /**
+     * Create a reader and verify the header of the snapshot.
+     * 
+     * @param in the stream to read from, which won't be closed by this reader
+     * @throws IOException if the stream doesn't contain a snapshot of a supported version
+     */
+    public SnapshotReader( InputStream in )
+        throws IOException
+    {
+        this.in = new DataInputStream( new BufferedInputStream( in, 64 * 1024 ) );
+        if ( this.in.readInt() != SnapshotFormat.MAGIC )
+        {
+            throw new IOException( "Not a QDox snapshot" );
+        }
+        int version = readInt();
+        if ( version != SnapshotFormat.VERSION )
+        {
+            throw new IOException( "Unsupported snapshot version " + version + ", expected version "
+                + SnapshotFormat.VERSION );
+        }
+        configuration = SnapshotConfiguration.read( this.in );
+    }
+
+    /**
+     * Create a new builder with the configuration of the builder which wrote this snapshot. Only the default
+     * classloaders, class folders, archives, source folders and settings are restored.
+     * 
+     * @return the builder, or <code>null</code> if the snapshot has no configuration or the builder can't be
+     *         instantiated
+     * @throws IOException if the errorhandler of the configuration can't be restored
+     */
+    public ClassLibraryBuilder createClassLibraryBuilder()
+        throws IOException
+    {
+        return configuration != null ? configuration.createClassLibraryBuilder() : null;
+    }
+
+    /**
+     * Check if the stream starts with a snapshot, without consuming it.
+     * 
+     * @param in the stream to check, which must support {@link InputStream#mark(int)}
+     * @return <code>true</code> if the stream starts with the header of a snapshot, otherwise <code>false</code>
+     * @throws IOException if the stream can't be read
+     */
+    public static boolean isSnapshot( InputStream in )
+        throws IOException
+    {
+        in.mark( 4 );
+        try
+        {
+            int magic = 0;
+            for ( int i = 0; i < 4; i++ )
+            {
+                int b = in.read();
+                if ( b < 0 )
+                {
+                    return false;
+                }
+                magic = ( magic << 8 ) | b;
+            }
+            return magic == SnapshotFormat.MAGIC;
+        }
+        finally
+        {
+            in.reset();
+        }
+    }
+
+    /**
+     * Read the next source.
+     * 
+     * @param builder the builder to create the source with
+     * @return <code>true</code> if a source has been read, <code>false</code> if the end of the snapshot was reached
+     * @throws IOException if the source can't be read
+     */
+    public boolean readSource( ModelBuilder builder )
+        throws IOException
+    {
+        if ( !in.readBoolean() )
+        {
+            return false;
+        }
+        String url = readString();
+        if ( url != null )
+        {
+            builder.setUrl( new URL( url ) );
+        }
+
+        if ( in.readBoolean() )
+        {
+            readJavaDoc( builder );
+            readAnnotations( builder );
+            String name = readString();
+            builder.addPackage( new PackageDef( name, readInt() ) );
+        }
+
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            builder.addImport( readString() );
+        }
+
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            readClass( builder );
+        }
+        return true;
+    }
+
+    private void readClass( ModelBuilder builder )
+        throws IOException
+    {
+        readJavaDoc( builder );
+        readAnnotations( builder );
+
+        ClassDef def = new ClassDef();
+        switch ( readInt() )
+        {
+            case SnapshotFormat.INTERFACE:
+                def.setType( ClassDef.INTERFACE );
+                break;
+            case SnapshotFormat.ENUM:
+                def.setType( ClassDef.ENUM );
+                break;
+            case SnapshotFormat.ANNOTATION_TYPE:
+                def.setType( ClassDef.ANNOTATION_TYPE );
+                break;
+            default:
+                def.setType( ClassDef.CLASS );
+        }
+        def.setName( readString() );
+        def.setLineNumber( readInt() );
+        def.setModifiers( readStrings() );
+        def.setTypeParameters( readTypeParameters() );
+        Set<TypeDef> superClasses = readTypes();
+        Set<TypeDef> interfaces = readTypes();
+        if ( ClassDef.INTERFACE.equals( def.getType() ) )
+        {
+            def.setExtends( interfaces );
+        }
+        else
+        {
+            def.setExtends( superClasses );
+            def.setImplements( interfaces );
+        }
+        builder.beginClass( def );
+
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            readField( builder );
+        }
+
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            readJavaDoc( builder );
+            readAnnotations( builder );
+            builder.beginConstructor();
+            readParameters( builder );
+            MethodDef methodDef = new MethodDef();
+            methodDef.setConstructor( true );
+            methodDef.setName( readString() );
+            methodDef.setLineNumber( readInt() );
+            methodDef.setModifiers( readStrings() );
+            List<TypeVariableDef> typeParams = readTypeParameters();
+            methodDef.setTypeParams( typeParams.isEmpty() ? null : typeParams );
+            methodDef.setExceptions( readTypes() );
+            methodDef.setBody( readString() );
+            builder.endConstructor( methodDef );
+        }
+
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            readJavaDoc( builder );
+            readAnnotations( builder );
+            builder.beginMethod();
+            readParameters( builder );
+            MethodDef methodDef = new MethodDef();
+            methodDef.setName( readString() );
+            methodDef.setLineNumber( readInt() );
+            methodDef.setModifiers( readStrings() );
+            List<TypeVariableDef> typeParams = readTypeParameters();
+            methodDef.setTypeParams( typeParams.isEmpty() ? null : typeParams );
+            methodDef.setReturnType( readType() );
+            methodDef.setExceptions( readTypes() );
+            methodDef.setBody( readString() );
+            builder.endMethod( methodDef );
+        }
+
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            readClass( builder );
+        }
+        builder.endClass();
+    }
+
+    private void readField( ModelBuilder builder )
+        throws IOException
+    {
+        readJavaDoc( builder );
+        readAnnotations( builder );
+        FieldDef def = new FieldDef( readString() );
+        def.setLineNumber( readInt() );
+        def.setModifiers( readStrings() );
+        def.setType( readType() );
+        def.setBody( readString() );
+        def.setEnumConstant( in.readBoolean() );
+        builder.beginField( def );
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            builder.addArgument( (ExpressionDef) readExpression() );
+        }
+        if ( in.readBoolean() )
+        {
+            readClass( builder );
+        }
+        builder.endField();
+    }
+
+    private void readParameters( ModelBuilder builder )
+        throws IOException
+    {
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            readAnnotations( builder );
+            FieldDef def = new FieldDef( readString() );
+            def.setType( readType() );
+            def.setVarArgs( in.readBoolean() );
+            builder.addParameter( def );
+        }
+    }
+
+    private void readJavaDoc( ModelBuilder builder )
+        throws IOException
+    {
+        String comment = readString();
+        if ( comment != null )
+        {
+            builder.addJavaDoc( comment );
+        }
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            String name = readString();
+            String text = readString();
+            builder.addJavaDocTag( new TagDef( name, text, readInt() ) );
+        }
+    }
+
+    private void readAnnotations( ModelBuilder builder )
+        throws IOException
+    {
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            builder.addAnnotation( readAnnotation() );
+        }
+    }
+
+    private AnnoDef readAnnotation()
+        throws IOException
+    {
+        AnnoDef annoDef = new AnnoDef( readType() );
+        annoDef.setLineNumber( readInt() );
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            String name = readString();
+            annoDef.getArgs().put( name, readExpression() );
+        }
+        return annoDef;
+    }
+
+    private List<TypeVariableDef> readTypeParameters()
+        throws IOException
+    {
+        List<TypeVariableDef> result = new LinkedList<TypeVariableDef>();
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            String name = readString();
+            Set<TypeDef> bounds = readTypes();
+            result.add( new TypeVariableDef( name, bounds.isEmpty() ? null : new LinkedList<TypeDef>( bounds ) ) );
+        }
+        return result;
+    }
+
+    private Set<TypeDef> readTypes()
+        throws IOException
+    {
+        Set<TypeDef> result = new LinkedHashSet<TypeDef>();
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            result.add( readType() );
+        }
+        return result;
+    }
+
+    private TypeDef readType()
+        throws IOException
+    {
+        TypeDef result;
+        if ( readInt() == SnapshotFormat.WILDCARD )
+        {
+            switch ( readInt() )
+            {
+                case SnapshotFormat.EXTENDS:
+                    result = new WildcardTypeDef( readType(), "extends" );
+                    break;
+                case SnapshotFormat.SUPER:
+                    result = new WildcardTypeDef( readType(), "super" );
+                    break;
+                default:
+                    result = new WildcardTypeDef();
+            }
+        }
+        else
+        {
+            String name = readString();
+            if ( name == null )
+            {
+                return null;
+            }
+            result = new TypeDef( name, readInt() );
+            int argumentCount = readInt();
+            if ( argumentCount > 0 )
+            {
+                List<TypeDef> arguments = new LinkedList<TypeDef>();
+                for ( int i = argumentCount; i > 0; i-- )
+                {
+                    arguments.add( readType() );
+                }
+                result.setActualArgumentTypes( arguments );
+            }
+        }
+        return result;
+    }
+
+    private ElemValueDef readExpression()
+        throws IOException
+    {
+        int operator = readInt();
+        switch ( operator )
+        {
+            case SnapshotFormat.ANNOTATION:
+                return readAnnotation();
+            case SnapshotFormat.VALUE_LIST:
+                List<ElemValueDef> values = new LinkedList<ElemValueDef>();
+                for ( int i = readInt(); i > 0; i-- )
+                {
+                    values.add( readExpression() );
+                }
+                return new ElemValueListDef( values );
+            case SnapshotFormat.INTEGER_CONSTANT:
+                return new ConstantDef( readString(), Integer.class );
+            case SnapshotFormat.FLOATING_POINT_CONSTANT:
+                return new ConstantDef( readString(), Float.class );
+            case SnapshotFormat.BOOLEAN_CONSTANT:
+                return new ConstantDef( readString(), Boolean.class );
+            case SnapshotFormat.CHARACTER_CONSTANT:
+                return new ConstantDef( readString(), Character.class );
+            case SnapshotFormat.STRING_CONSTANT:
+                return new ConstantDef( readString(), String.class );
+            case SnapshotFormat.FIELD_REF:
+                return new FieldRefDef( readString() );
+            case SnapshotFormat.TYPE_REF:
+                return new TypeRefDef( readType() );
+            case SnapshotFormat.CAST:
+                TypeDef type = readType();
+                return new CastDef( type, readExpression() );
+            case SnapshotFormat.QUERY:
+                ElemValueDef condition = readExpression();
+                ElemValueDef trueExpression = readExpression();
+                return new QueryDef( condition, trueExpression, readExpression() );
+            case SnapshotFormat.ASSIGNMENT:
+                ElemValueDef leftHandSide = readExpression();
+                String assignmentOperator = readString();
+                return new AssignmentDef( leftHandSide, assignmentOperator, readExpression() );
+            case SnapshotFormat.PARENTHESES:
+                return new ParenExpressionDef( readExpression() );
+            case SnapshotFormat.PLUS_SIGN:
+                return new PlusSignDef( readExpression() );
+            case SnapshotFormat.MINUS_SIGN:
+                return new MinusSignDef( readExpression() );
+            case SnapshotFormat.NOT:
+                return new NotDef( readExpression() );
+            case SnapshotFormat.LOGICAL_NOT:
+                return new LogicalNotDef( readExpression() );
+            case SnapshotFormat.PRE_INCREMENT:
+                return new PreIncrementDef( readExpression() );
+            case SnapshotFormat.PRE_DECREMENT:
+                return new PreDecrementDef( readExpression() );
+            case SnapshotFormat.POST_INCREMENT:
+                return new PostIncrementDef( readExpression() );
+            case SnapshotFormat.POST_DECREMENT:
+                return new PostDecrementDef( readExpression() );
+            default:
+                return readBinaryExpression( operator );
+        }
+    }
+
+    private ElemValueDef readBinaryExpression( int operator )
+        throws IOException
+    {
+        ElemValueDef left = readExpression();
+        ElemValueDef right = readExpression();
+        switch ( operator )
+        {
+            case SnapshotFormat.ADD:
+                return new AddDef( left, right );
+            case SnapshotFormat.SUBTRACT:
+                return new SubtractDef( left, right );
+            case SnapshotFormat.MULTIPLY:
+                return new MultiplyDef( left, right );
+            case SnapshotFormat.DIVIDE:
+                return new DivideDef( left, right );
+            case SnapshotFormat.REMAINDER:
+                return new RemainderDef( left, right );
+            case SnapshotFormat.AND:
+                return new AndDef( left, right );
+            case SnapshotFormat.OR:
+                return new OrDef( left, right );
+            case SnapshotFormat.EXCLUSIVE_OR:
+                return new ExclusiveOrDef( left, right );
+            case SnapshotFormat.LOGICAL_AND:
+                return new LogicalAndDef( left, right );
+            case SnapshotFormat.LOGICAL_OR:
+                return new LogicalOrDef( left, right );
+            case SnapshotFormat.SHIFT_LEFT:
+                return new ShiftLeftDef( left, right );
+            case SnapshotFormat.SHIFT_RIGHT:
+                return new ShiftRightDef( left, right );
+            case SnapshotFormat.UNSIGNED_SHIFT_RIGHT:
+                return new UnsignedShiftRightDef( left, right );
+            case SnapshotFormat.EQUALS:
+                return new EqualsDef( left, right );
+            case SnapshotFormat.NOT_EQUALS:
+                return new NotEqualsDef( left, right );
+            case SnapshotFormat.GREATER_THAN:
+                return new GreaterThanDef( left, right );
+            case SnapshotFormat.GREATER_EQUALS:
+                return new GreaterEqualsDef( left, right );
+            case SnapshotFormat.LESS_THAN:
+                return new LessThanDef( left, right );
+            case SnapshotFormat.LESS_EQUALS:
+                return new LessEqualsDef( left, right );
+            default:
+                throw new IOException( "Unknown expression " + operator );
+        }
+    }
+
+    private Set<String> readStrings()
+        throws IOException
+    {
+        Set<String> result = new LinkedHashSet<String>();
+        for ( int i = readInt(); i > 0; i-- )
+        {
+            result.add( readString() );
+        }
+        return result;
+    }
+
+    private String readString()
+        throws IOException
+    {
+        int code = readInt();
+        if ( code >= SnapshotFormat.STRING_REFERENCE )
+        {
+            return strings.get( code - SnapshotFormat.STRING_REFERENCE );
+        }
+        else if ( code == SnapshotFormat.NULL_STRING )
+        {
+            return null;
+        }
+        byte[] bytes = new byte[readInt()];
+        in.readFully( bytes );
+        String result = new String( bytes, "UTF-8" );
+        if ( code == SnapshotFormat.NEW_STRING )
+        {
+            strings.add( result );
+        }
+        return result;
+    }
+
+    private int readInt()
+        throws IOException
+    {
+        int result = 0;
+        for ( int shift = 0; shift < 35; shift += 7 )
+        {
+            int b = in.read();
+            if ( b < 0 )
+            {
+                throw new EOFException();
+            }
+            result |= ( b & 0x7F ) << shift;
+            if ( ( b & 0x80 ) == 0 )
+            {
+                return result;
+            }
+        }
+        throw new IOException( "Malformed snapshot" );
+    }
+}
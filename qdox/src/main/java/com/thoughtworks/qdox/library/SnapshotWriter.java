@@ -0,0 +1,828 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.thoughtworks.qdox.model.DocletTag;
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
+import com.thoughtworks.qdox.model.JavaAnnotation;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaConstructor;
+import com.thoughtworks.qdox.model.JavaField;
+import com.thoughtworks.qdox.model.JavaMethod;
+import com.thoughtworks.qdox.model.JavaPackage;
+import com.thoughtworks.qdox.model.JavaParameter;
+import com.thoughtworks.qdox.model.JavaParameterizedType;
+import com.thoughtworks.qdox.model.JavaSource;
+import com.thoughtworks.qdox.model.JavaType;
+import com.thoughtworks.qdox.model.JavaTypeVariable;
+import com.thoughtworks.qdox.model.expression.Add;
+import com.thoughtworks.qdox.model.expression.And;
+import com.thoughtworks.qdox.model.expression.AnnotationValue;
+import com.thoughtworks.qdox.model.expression.AnnotationValueList;
+import com.thoughtworks.qdox.model.expression.Assignment;
+import com.thoughtworks.qdox.model.expression.BinaryOperator;
+import com.thoughtworks.qdox.model.expression.Cast;
+import com.thoughtworks.qdox.model.expression.Constant;
+import com.thoughtworks.qdox.model.expression.Divide;
+import com.thoughtworks.qdox.model.expression.Equals;
+import com.thoughtworks.qdox.model.expression.ExclusiveOr;
+import com.thoughtworks.qdox.model.expression.Expression;
+import com.thoughtworks.qdox.model.expression.ExpressionVisitor;
+import com.thoughtworks.qdox.model.expression.FieldRef;
+import com.thoughtworks.qdox.model.expression.GreaterEquals;
+import com.thoughtworks.qdox.model.expression.GreaterThan;
+import com.thoughtworks.qdox.model.expression.LessEquals;
+import com.thoughtworks.qdox.model.expression.LessThan;
+import com.thoughtworks.qdox.model.expression.LogicalAnd;
+import com.thoughtworks.qdox.model.expression.LogicalNot;
+import com.thoughtworks.qdox.model.expression.LogicalOr;
+import com.thoughtworks.qdox.model.expression.MinusSign;
+import com.thoughtworks.qdox.model.expression.Multiply;
+import com.thoughtworks.qdox.model.expression.Not;
+import com.thoughtworks.qdox.model.expression.NotEquals;
+import com.thoughtworks.qdox.model.expression.Or;
+import com.thoughtworks.qdox.model.expression.ParenExpression;
+import com.thoughtworks.qdox.model.expression.PlusSign;
+import com.thoughtworks.qdox.model.expression.PostDecrement;
+import com.thoughtworks.qdox.model.expression.PostIncrement;
+import com.thoughtworks.qdox.model.expression.PreDecrement;
+import com.thoughtworks.qdox.model.expression.PreIncrement;
+import com.thoughtworks.qdox.model.expression.Query;
+import com.thoughtworks.qdox.model.expression.Remainder;
+import com.thoughtworks.qdox.model.expression.ShiftLeft;
+import com.thoughtworks.qdox.model.expression.ShiftRight;
+import com.thoughtworks.qdox.model.expression.Subtract;
+import com.thoughtworks.qdox.model.expression.TypeRef;
+import com.thoughtworks.qdox.model.expression.UnaryOperator;
+import com.thoughtworks.qdox.model.expression.UnsignedShiftRight;
+import com.thoughtworks.qdox.model.impl.DefaultJavaAnnotation;
+import com.thoughtworks.qdox.model.impl.DefaultJavaType;
+import com.thoughtworks.qdox.model.impl.DefaultJavaWildcardType;
+
+/**
+ * Writes JavaSources in the snapshot format, which can be read by the {@link SnapshotReader}. Every source is written
+ * as soon as it is passed, so a snapshot of any size can be written with a constant amount of memory, apart from the
+ * string table.
+ * <p>
+ * Only the information which the parser would hand over to the builder is written, so the types are written as they
+ * appear in the source and are resolved again after reading.
+ * </p>
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ * @see SnapshotFormat
+ */
+public final class SnapshotWriter
+{
+    private final DataOutputStream out;
+
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    private final ExpressionVisitor expressionWriter = new ExpressionWriter();
+
+    /**
+     * Create a writer and write the header of the snapshot, without the configuration of a builder.
+     * 
+     * @param out the stream to write to, which won't be closed by this writer
+     * @throws IOException if the header can't be written
+     */
+    public SnapshotWriter( OutputStream out )
+        throws IOException
+    {
+        this( out, null );
+    }
+
+    /**
+     * Create a writer and write the header of the snapshot, including the configuration of the builder, so the
+     * {@link SnapshotReader} can create an equally configured builder.
+     * 
+     * @param out the stream to write to, which won't be closed by this writer
+     * @param builder the builder of the sources, may be <code>null</code>
+     * @throws IOException if the header can't be written
+     */
+    public SnapshotWriter( OutputStream out, ClassLibraryBuilder builder )
+        throws IOException
+    {
+        this.out = new DataOutputStream( new BufferedOutputStream( out, 64 * 1024 ) );
+        this.out.writeInt( SnapshotFormat.MAGIC );
+        writeInt( SnapshotFormat.VERSION );
+        SnapshotConfiguration.write( builder != null ? SnapshotConfiguration.of( builder ) : null, this.out );
+    }
+
+    /**
+     * Write the source with all of its classes.
+     * 
+     * @param source the source to write
+     * @throws IOException if the source can't be written
+     */
+    public void writeSource( JavaSource source )
+        throws IOException
+    {
+        out.writeBoolean( true );
+        writeString( source.getURL() != null ? source.getURL().toExternalForm() : null );
+
+        JavaPackage pckg = source.getPackage();
+        out.writeBoolean( pckg != null );
+        if ( pckg != null )
+        {
+            writeJavaDoc( pckg );
+            writeAnnotations( pckg );
+            writeString( pckg.getName() );
+            writeInt( pckg.getLineNumber() );
+        }
+
+        List<String> imports = source.getImports();
+        writeInt( imports.size() );
+        for ( String importName : imports )
+        {
+            writeString( importName );
+        }
+
+        List<JavaClass> classes = source.getClasses();
+        writeInt( classes.size() );
+        for ( JavaClass cls : classes )
+        {
+            writeClass( cls );
+        }
+    }
+
+    /**
+     * Write the end of the snapshot and flush the stream.
+     * 
+     * @throws IOException if the end can't be written
+     */
+    public void finish()
+        throws IOException
+    {
+        out.writeBoolean( false );
+        out.flush();
+    }
+
+    private void writeClass( JavaClass cls )
+        throws IOException
+    {
+        writeJavaDoc( cls );
+        writeAnnotations( cls );
+
+        int classType;
+        if ( cls.isInterface() )
+        {
+            classType = SnapshotFormat.INTERFACE;
+        }
+        else if ( cls.isEnum() )
+        {
+            classType = SnapshotFormat.ENUM;
+        }
+        else if ( cls.isAnnotation() )
+        {
+            classType = SnapshotFormat.ANNOTATION_TYPE;
+        }
+        else
+        {
+            classType = SnapshotFormat.CLASS;
+        }
+        writeInt( classType );
+        writeString( cls.getName() );
+        writeInt( cls.getLineNumber() );
+        writeStrings( cls.getModifiers() );
+        writeTypeParameters( cls.getTypeParameters() );
+
+        // an interface extends its interfaces, the implicit superclass of a class shouldn't become an explicit one
+        JavaType superClass = ( classType == SnapshotFormat.CLASS ? cls.getSuperClass() : null );
+        if ( superClass instanceof DefaultJavaType )
+        {
+            writeInt( 1 );
+            writeType( superClass );
+        }
+        else
+        {
+            writeInt( 0 );
+        }
+        writeTypes( cls.getImplements() );
+
+        // the class bodies of enum constants are written with their field
+        Map<JavaClass, JavaClass> enumConstantClasses = new IdentityHashMap<JavaClass, JavaClass>();
+        List<JavaField> fields = cls.getFields();
+        writeInt( fields.size() );
+        for ( JavaField field : fields )
+        {
+            writeField( field );
+            if ( field.getEnumConstantClass() != null )
+            {
+                enumConstantClasses.put( field.getEnumConstantClass(), field.getEnumConstantClass() );
+            }
+        }
+
+        List<JavaConstructor> constructors = cls.getConstructors();
+        writeInt( constructors.size() );
+        for ( JavaConstructor constructor : constructors )
+        {
+            writeJavaDoc( constructor );
+            writeAnnotations( constructor );
+            writeParameters( constructor.getParameters() );
+            writeString( constructor.getName() );
+            writeInt( constructor.getLineNumber() );
+            writeStrings( constructor.getModifiers() );
+            writeTypeParameters( constructor.getTypeParameters() );
+            writeTypes( constructor.getExceptionTypes() );
+            writeString( constructor.getSourceCode() );
+        }
+
+        List<JavaMethod> methods = cls.getMethods();
+        writeInt( methods.size() );
+        for ( JavaMethod method : methods )
+        {
+            writeJavaDoc( method );
+            writeAnnotations( method );
+            writeParameters( method.getParameters() );
+            writeString( method.getName() );
+            writeInt( method.getLineNumber() );
+            writeStrings( method.getModifiers() );
+            writeTypeParameters( method.getTypeParameters() );
+            writeType( method.getReturns() );
+            writeTypes( method.getExceptionTypes() );
+            writeString( method.getSourceCode() );
+        }
+
+        List<JavaClass> nestedClasses = new LinkedList<JavaClass>();
+        for ( JavaClass nestedClass : cls.getNestedClasses() )
+        {
+            if ( !enumConstantClasses.containsKey( nestedClass ) )
+            {
+                nestedClasses.add( nestedClass );
+            }
+        }
+        writeInt( nestedClasses.size() );
+        for ( JavaClass nestedClass : nestedClasses )
+        {
+            writeClass( nestedClass );
+        }
+    }
+
+    private void writeField( JavaField field )
+        throws IOException
+    {
+        writeJavaDoc( field );
+        writeAnnotations( field );
+        writeString( field.getName() );
+        writeInt( field.getLineNumber() );
+        writeStrings( field.getModifiers() );
+        writeType( field.getType() );
+        writeString( field.getInitializationExpression() );
+        out.writeBoolean( field.isEnumConstant() );
+
+        List<Expression> arguments = field.getEnumConstantArguments();
+        if ( arguments == null )
+        {
+            writeInt( 0 );
+        }
+        else
+        {
+            writeInt( arguments.size() );
+            for ( Expression argument : arguments )
+            {
+                writeExpression( argument );
+            }
+        }
+
+        JavaClass enumConstantClass = field.getEnumConstantClass();
+        out.writeBoolean( enumConstantClass != null );
+        if ( enumConstantClass != null )
+        {
+            writeClass( enumConstantClass );
+        }
+    }
+
+    private void writeParameters( List<JavaParameter> parameters )
+        throws IOException
+    {
+        writeInt( parameters.size() );
+        for ( JavaParameter parameter : parameters )
+        {
+            writeAnnotations( parameter );
+            writeString( parameter.getName() );
+            writeType( parameter.getType() );
+            out.writeBoolean( parameter.isVarArgs() );
+        }
+    }
+
+    private void writeJavaDoc( JavaAnnotatedElement entity )
+        throws IOException
+    {
+        List<DocletTag> tags = entity.getTags();
+        writeString( entity.getComment() );
+        writeInt( tags.size() );
+        for ( DocletTag tag : tags )
+        {
+            writeString( tag.getName() );
+            writeString( tag.getValue() );
+            writeInt( tag.getLineNumber() );
+        }
+    }
+
+    private void writeAnnotations( JavaAnnotatedElement entity )
+        throws IOException
+    {
+        List<JavaAnnotation> annotations = entity.getAnnotations();
+        writeInt( annotations.size() );
+        for ( JavaAnnotation annotation : annotations )
+        {
+            writeAnnotation( annotation );
+        }
+    }
+
+    private void writeAnnotation( JavaAnnotation annotation )
+        throws IOException
+    {
+        writeType( annotation.getType() );
+        int lineNumber = -1;
+        if ( annotation instanceof DefaultJavaAnnotation )
+        {
+            lineNumber = ( (DefaultJavaAnnotation) annotation ).getLineNumber();
+        }
+        writeInt( lineNumber );
+        Map<String, AnnotationValue> properties = annotation.getPropertyMap();
+        writeInt( properties.size() );
+        for ( Map.Entry<String, AnnotationValue> property : properties.entrySet() )
+        {
+            writeString( property.getKey() );
+            writeExpression( property.getValue() );
+        }
+    }
+
+    private void writeTypeParameters( List<? extends JavaTypeVariable<?>> typeParameters )
+        throws IOException
+    {
+        writeInt( typeParameters.size() );
+        for ( JavaTypeVariable<?> typeParameter : typeParameters )
+        {
+            writeString( typeParameter.getName() );
+            List<JavaType> bounds = typeParameter.getBounds();
+            writeTypes( bounds != null ? bounds : Collections.<JavaType>emptyList() );
+        }
+    }
+
+    private void writeTypes( Collection<? extends JavaType> types )
+        throws IOException
+    {
+        writeInt( types.size() );
+        for ( JavaType type : types )
+        {
+            writeType( type );
+        }
+    }
+
+    private void writeType( JavaType type )
+        throws IOException
+    {
+        if ( type instanceof DefaultJavaWildcardType )
+        {
+            DefaultJavaWildcardType wildcardType = (DefaultJavaWildcardType) type;
+            writeInt( SnapshotFormat.WILDCARD );
+            if ( wildcardType.getBoundType() == DefaultJavaWildcardType.BoundType.EXTENDS )
+            {
+                writeInt( SnapshotFormat.EXTENDS );
+                writeType( wildcardType.getBounds().get( 0 ) );
+            }
+            else if ( wildcardType.getBoundType() == DefaultJavaWildcardType.BoundType.SUPER )
+            {
+                writeInt( SnapshotFormat.SUPER );
+                writeType( wildcardType.getBounds().get( 0 ) );
+            }
+            else
+            {
+                writeInt( SnapshotFormat.UNBOUNDED );
+            }
+        }
+        else
+        {
+            writeInt( SnapshotFormat.TYPE );
+            writeString( type != null ? type.getValue() : null );
+            if ( type != null )
+            {
+                writeInt( type instanceof JavaClass ? ( (JavaClass) type ).getDimensions() : 0 );
+                if ( type instanceof JavaParameterizedType )
+                {
+                    writeTypes( ( (JavaParameterizedType) type ).getActualTypeArguments() );
+                }
+                else
+                {
+                    writeInt( 0 );
+                }
+            }
+        }
+    }
+
+    // the builder assembles every expression as an AnnotationValue
+    private void writeExpression( Expression expression )
+        throws IOException
+    {
+        try
+        {
+            ( (AnnotationValue) expression ).accept( expressionWriter );
+        }
+        catch ( WrappedIOException e )
+        {
+            throw e.getCause();
+        }
+    }
+
+    private void writeStrings( List<String> values )
+        throws IOException
+    {
+        writeInt( values.size() );
+        for ( String value : values )
+        {
+            writeString( value );
+        }
+    }
+
+    private void writeString( String value )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            writeInt( SnapshotFormat.NULL_STRING );
+            return;
+        }
+        Integer index = strings.get( value );
+        if ( index != null )
+        {
+            writeInt( SnapshotFormat.STRING_REFERENCE + index.intValue() );
+            return;
+        }
+        if ( value.length() <= SnapshotFormat.MAX_SHARED_STRING_LENGTH )
+        {
+            strings.put( value, Integer.valueOf( strings.size() ) );
+            writeInt( SnapshotFormat.NEW_STRING );
+        }
+        else
+        {
+            writeInt( SnapshotFormat.UNSHARED_STRING );
+        }
+        byte[] bytes = value.getBytes( "UTF-8" );
+        writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    // variable-length quantity, 7 bits per byte
+    private void writeInt( int value )
+        throws IOException
+    {
+        while ( ( value & ~0x7F ) != 0 )
+        {
+            out.write( ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        out.write( value );
+    }
+
+    private static class WrappedIOException
+        extends RuntimeException
+    {
+        WrappedIOException( IOException cause )
+        {
+            super( cause );
+        }
+
+        @Override
+        public IOException getCause()
+        {
+            return (IOException) super.getCause();
+        }
+    }
+
+    private class ExpressionWriter
+        implements ExpressionVisitor
+    {
+        private Object writeOperator( int operator, AnnotationValue... operands )
+        {
+            try
+            {
+                writeInt( operator );
+                for ( AnnotationValue operand : operands )
+                {
+                    operand.accept( this );
+                }
+                return null;
+            }
+            catch ( IOException e )
+            {
+                throw new WrappedIOException( e );
+            }
+        }
+
+        private Object writeBinary( int operator, BinaryOperator expression )
+        {
+            return writeOperator( operator, expression.getLeft(), expression.getRight() );
+        }
+
+        private Object writeUnary( int operator, UnaryOperator expression )
+        {
+            return writeOperator( operator, expression.getValue() );
+        }
+
+        public Object visit( JavaAnnotation annotation )
+        {
+            try
+            {
+                writeInt( SnapshotFormat.ANNOTATION );
+                writeAnnotation( annotation );
+                return null;
+            }
+            catch ( IOException e )
+            {
+                throw new WrappedIOException( e );
+            }
+        }
+
+        public Object visit( AnnotationValueList valueList )
+        {
+            try
+            {
+                writeInt( SnapshotFormat.VALUE_LIST );
+                writeInt( valueList.getValueList().size() );
+                for ( AnnotationValue value : valueList.getValueList() )
+                {
+                    value.accept( this );
+                }
+                return null;
+            }
+            catch ( IOException e )
+            {
+                throw new WrappedIOException( e );
+            }
+        }
+
+        public Object visit( Constant constant )
+        {
+            Object value = constant.getValue();
+            int constantType;
+            if ( value instanceof Boolean )
+            {
+                constantType = SnapshotFormat.BOOLEAN_CONSTANT;
+            }
+            else if ( value instanceof Character )
+            {
+                constantType = SnapshotFormat.CHARACTER_CONSTANT;
+            }
+            else if ( value instanceof String )
+            {
+                constantType = SnapshotFormat.STRING_CONSTANT;
+            }
+            else if ( value instanceof Float || value instanceof Double )
+            {
+                constantType = SnapshotFormat.FLOATING_POINT_CONSTANT;
+            }
+            else
+            {
+                constantType = SnapshotFormat.INTEGER_CONSTANT;
+            }
+            try
+            {
+                writeInt( constantType );
+                writeString( constant.getImage() );
+                return null;
+            }
+            catch ( IOException e )
+            {
+                throw new WrappedIOException( e );
+            }
+        }
+
+        public Object visit( FieldRef fieldRef )
+        {
+            try
+            {
+                writeInt( SnapshotFormat.FIELD_REF );
+                writeString( fieldRef.getName() );
+                return null;
+            }
+            catch ( IOException e )
+            {
+                throw new WrappedIOException( e );
+            }
+        }
+
+        public Object visit( TypeRef typeRef )
+        {
+            try
+            {
+                writeInt( SnapshotFormat.TYPE_REF );
+                writeType( typeRef.getType() );
+                return null;
+            }
+            catch ( IOException e )
+            {
+                throw new WrappedIOException( e );
+            }
+        }
+
+        public Object visit( Cast cast )
+        {
+            try
+            {
+                writeInt( SnapshotFormat.CAST );
+                writeType( cast.getType() );
+                cast.getValue().accept( this );
+                return null;
+            }
+            catch ( IOException e )
+            {
+                throw new WrappedIOException( e );
+            }
+        }
+
+        public Object visit( Query query )
+        {
+            return writeOperator( SnapshotFormat.QUERY, query.getCondition(), query.getTrueExpression(),
+                                  query.getFalseExpression() );
+        }
+
+        public Object visit( Assignment assignment )
+        {
+            try
+            {
+                writeInt( SnapshotFormat.ASSIGNMENT );
+                ( (AnnotationValue) assignment.getLeftHandSide() ).accept( this );
+                writeString( assignment.getOperator() );
+                ( (AnnotationValue) assignment.getAssignmentExpression() ).accept( this );
+                return null;
+            }
+            catch ( IOException e )
+            {
+                throw new WrappedIOException( e );
+            }
+        }
+
+        public Object visit( ParenExpression expression )
+        {
+            return writeOperator( SnapshotFormat.PARENTHESES, expression.getValue() );
+        }
+
+        public Object visit( PlusSign sign )
+        {
+            return writeUnary( SnapshotFormat.PLUS_SIGN, sign );
+        }
+
+        public Object visit( MinusSign sign )
+        {
+            return writeUnary( SnapshotFormat.MINUS_SIGN, sign );
+        }
+
+        public Object visit( Not not )
+        {
+            return writeUnary( SnapshotFormat.NOT, not );
+        }
+
+        public Object visit( LogicalNot not )
+        {
+            return writeUnary( SnapshotFormat.LOGICAL_NOT, not );
+        }
+
+        public Object visit( PreIncrement preIncrement )
+        {
+            return writeUnary( SnapshotFormat.PRE_INCREMENT, preIncrement );
+        }
+
+        public Object visit( PreDecrement preDecrement )
+        {
+            return writeUnary( SnapshotFormat.PRE_DECREMENT, preDecrement );
+        }
+
+        public Object visit( PostIncrement postIncrement )
+        {
+            return writeUnary( SnapshotFormat.POST_INCREMENT, postIncrement );
+        }
+
+        public Object visit( PostDecrement postDecrement )
+        {
+            return writeUnary( SnapshotFormat.POST_DECREMENT, postDecrement );
+        }
+
+        public Object visit( Add add )
+        {
+            return writeBinary( SnapshotFormat.ADD, add );
+        }
+
+        public Object visit( Subtract subtract )
+        {
+            return writeBinary( SnapshotFormat.SUBTRACT, subtract );
+        }
+
+        public Object visit( Multiply multiply )
+        {
+            return writeBinary( SnapshotFormat.MULTIPLY, multiply );
+        }
+
+        public Object visit( Divide divide )
+        {
+            return writeBinary( SnapshotFormat.DIVIDE, divide );
+        }
+
+        public Object visit( Remainder remainder )
+        {
+            return writeBinary( SnapshotFormat.REMAINDER, remainder );
+        }
+
+        public Object visit( And and )
+        {
+            return writeBinary( SnapshotFormat.AND, and );
+        }
+
+        public Object visit( Or or )
+        {
+            return writeBinary( SnapshotFormat.OR, or );
+        }
+
+        public Object visit( ExclusiveOr exclusiveOr )
+        {
+            return writeBinary( SnapshotFormat.EXCLUSIVE_OR, exclusiveOr );
+        }
+
+        public Object visit( LogicalAnd and )
+        {
+            return writeBinary( SnapshotFormat.LOGICAL_AND, and );
+        }
+
+        public Object visit( LogicalOr or )
+        {
+            return writeBinary( SnapshotFormat.LOGICAL_OR, or );
+        }
+
+        public Object visit( ShiftLeft left )
+        {
+            return writeBinary( SnapshotFormat.SHIFT_LEFT, left );
+        }
+
+        public Object visit( ShiftRight right )
+        {
+            return writeBinary( SnapshotFormat.SHIFT_RIGHT, right );
+        }
+
+        public Object visit( UnsignedShiftRight right )
+        {
+            return writeBinary( SnapshotFormat.UNSIGNED_SHIFT_RIGHT, right );
+        }
+
+        public Object visit( Equals equals )
+        {
+            return writeBinary( SnapshotFormat.EQUALS, equals );
+        }
+
+        public Object visit( NotEquals notEquals )
+        {
+            return writeBinary( SnapshotFormat.NOT_EQUALS, notEquals );
+        }
+
+        public Object visit( GreaterThan greaterThan )
+        {
+            return writeBinary( SnapshotFormat.GREATER_THAN, greaterThan );
+        }
+
+        public Object visit( GreaterEquals greaterEquals )
+        {
+            return writeBinary( SnapshotFormat.GREATER_EQUALS, greaterEquals );
+        }
+
+        public Object visit( LessThan lessThan )
+        {
+            return writeBinary( SnapshotFormat.LESS_THAN, lessThan );
+        }
+
+        public Object visit( LessEquals lessEquals )
+        {
+            return writeBinary( SnapshotFormat.LESS_EQUALS, lessEquals );
+        }
+    }
+}
@@ -24,8 +24,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
+import java.util.Collection;
 
 import com.thoughtworks.qdox.builder.ModelBuilderFactory;
+import com.thoughtworks.qdox.builder.SymbolTable;
+import com.thoughtworks.qdox.builder.impl.DefaultSymbolTable;
 import com.thoughtworks.qdox.model.JavaSource;
 import com.thoughtworks.qdox.writer.ModelWriterFactory;
 
@@ -38,6 +41,10 @@ public class SortedClassLibraryBuilder
 {
     private final ClassNameLibrary classNameLibrary;
 
+    private final ClassFileLibrary classFileLibrary;
+
+    private final ArchiveLibrary archiveLibrary;
+
     private final ClassLoaderLibrary classLoaderLibrary;
 
     private final SourceFolderLibrary sourceFolderLibrary;
@@ -47,9 +54,20 @@ public class SortedClassLibraryBuilder
     public SortedClassLibraryBuilder()
     {
         classNameLibrary = new ClassNameLibrary();
-        classLoaderLibrary = new ClassLoaderLibrary( classNameLibrary );
+        classFileLibrary = new ClassFileLibrary( classNameLibrary );
+        archiveLibrary = new ArchiveLibrary( classFileLibrary );
+        classLoaderLibrary = new ClassLoaderLibrary( archiveLibrary );
         sourceFolderLibrary = new SourceFolderLibrary( classLoaderLibrary );
         sourceLibrary = new SourceLibrary( sourceFolderLibrary );
+        setSymbolTable( new DefaultSymbolTable() );
+
+        MissingClassCache missingClassCache = new MissingClassCache();
+        classNameLibrary.setMissingClassCache( missingClassCache );
+        classFileLibrary.setMissingClassCache( missingClassCache );
+        archiveLibrary.setMissingClassCache( missingClassCache );
+        classLoaderLibrary.setMissingClassCache( missingClassCache );
+        sourceFolderLibrary.setMissingClassCache( missingClassCache );
+        sourceLibrary.setMissingClassCache( missingClassCache );
     }
 
     public ClassLibraryBuilder appendClassLoader( ClassLoader classLoader )
@@ -64,6 +82,18 @@ public class SortedClassLibraryBuilder
         return this;
     }
 
+    public ClassLibraryBuilder appendClassFolder( File classFolder )
+    {
+        classFileLibrary.addDirectory( classFolder );
+        return this;
+    }
+
+    public ClassLibraryBuilder appendArchive( File archive )
+    {
+        archiveLibrary.addArchive( archive );
+        return this;
+    }
+
     public ClassLibraryBuilder appendSourceFolder( File sourceFolder )
     {
         sourceFolderLibrary.addSourceFolder( sourceFolder );
@@ -98,6 +128,7 @@ public class SortedClassLibraryBuilder
 
     public ClassLibraryBuilder setDebugLexer( boolean debugLexer )
     {
+        archiveLibrary.setDebugLexer( debugLexer );
         classLoaderLibrary.setDebugLexer( debugLexer );
         sourceFolderLibrary.setDebugLexer( debugLexer );
         sourceLibrary.setDebugLexer( debugLexer );
@@ -106,14 +137,25 @@ public class SortedClassLibraryBuilder
 
     public ClassLibraryBuilder setDebugParser( boolean debugParser )
     {
+        archiveLibrary.setDebugParser( debugParser );
         classLoaderLibrary.setDebugParser( debugParser );
         sourceFolderLibrary.setDebugParser( debugParser );
         sourceLibrary.setDebugParser( debugParser );
         return this;
     }
     
+    public ClassLibraryBuilder setSkipMethodBodies( boolean skipMethodBodies )
+    {
+        archiveLibrary.setSkipMethodBodies( skipMethodBodies );
+        classLoaderLibrary.setSkipMethodBodies( skipMethodBodies );
+        sourceFolderLibrary.setSkipMethodBodies( skipMethodBodies );
+        sourceLibrary.setSkipMethodBodies( skipMethodBodies );
+        return this;
+    }
+    
     public ClassLibraryBuilder setEncoding( String encoding )
     {
+        archiveLibrary.setEncoding( encoding );
         sourceFolderLibrary.setEncoding( encoding );
         sourceLibrary.setEncoding( encoding );
         return this;
@@ -121,6 +163,7 @@ public class SortedClassLibraryBuilder
     
     public ClassLibraryBuilder setErrorHander( ErrorHandler errorHandler )
     {
+        archiveLibrary.setErrorHandler( errorHandler );
         classLoaderLibrary.setErrorHandler( errorHandler );
         sourceFolderLibrary.setErrorHandler( errorHandler );
         sourceLibrary.setErrorHandler( errorHandler );
@@ -130,6 +173,8 @@ public class SortedClassLibraryBuilder
     public ClassLibraryBuilder setModelBuilderFactory( ModelBuilderFactory factory )
     {
         classNameLibrary.setModelBuilderFactory( factory );
+        classFileLibrary.setModelBuilderFactory( factory );
+        archiveLibrary.setModelBuilderFactory( factory );
         classLoaderLibrary.setModelBuilderFactory( factory );
         sourceFolderLibrary.setModelBuilderFactory( factory );
         sourceLibrary.setModelBuilderFactory( factory );
@@ -140,12 +185,25 @@ public class SortedClassLibraryBuilder
     public ClassLibraryBuilder setModelWriterFactory( ModelWriterFactory modelWriterFactory )
     {
         classNameLibrary.setModelWriterFactory( modelWriterFactory );
+        classFileLibrary.setModelWriterFactory( modelWriterFactory );
+        archiveLibrary.setModelWriterFactory( modelWriterFactory );
         classLoaderLibrary.setModelWriterFactory( modelWriterFactory );
         sourceFolderLibrary.setModelWriterFactory( modelWriterFactory );
         sourceLibrary.setModelWriterFactory( modelWriterFactory );
         return this;
     }
 
+    public ClassLibraryBuilder setSymbolTable( SymbolTable symbolTable )
+    {
+        classNameLibrary.setSymbolTable( symbolTable );
+        classFileLibrary.setSymbolTable( symbolTable );
+        archiveLibrary.setSymbolTable( symbolTable );
+        classLoaderLibrary.setSymbolTable( symbolTable );
+        sourceFolderLibrary.setSymbolTable( symbolTable );
+        sourceLibrary.setSymbolTable( symbolTable );
+        return this;
+    }
+
     public ClassLibrary getClassLibrary()
     {
         return sourceLibrary;
@@ -173,4 +231,33 @@ public class SortedClassLibraryBuilder
         return sourceLibrary.addSource( file );
     }
 
+    public JavaSource parseSource( File file )
+        throws IOException
+    {
+        return sourceLibrary.parseSource( file );
+    }
+
+    public JavaSource addSource( JavaSource source )
+        throws IOException
+    {
+        return sourceLibrary.addSource( source );
+    }
+
+    public Collection<JavaSource> refreshSources( Collection<File> files )
+        throws IOException
+    {
+        return sourceLibrary.refreshSources( files );
+    }
+
+    public Collection<File> getSourceFiles()
+    {
+        return sourceLibrary.getSourceFiles();
+    }
+
+    public Collection<JavaSource> addSnapshot( InputStream stream )
+        throws IOException
+    {
+        return sourceLibrary.addSnapshot( stream );
+    }
+
 }
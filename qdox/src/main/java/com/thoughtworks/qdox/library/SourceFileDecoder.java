@@ -0,0 +1,178 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes the content of a sourcefile in one pass into a single char array, which can be handed to the lexer as its
+ * buffer. The file is read through its channel into a byte buffer, files aren't memory-mapped, because a mapped file
+ * stays locked on Windows until the mapping is garbage collected. The decoder and the buffers are reused per thread,
+ * so parsing files in parallel is safe.
+ * <p>
+ * Only small buffers are kept for the next file, so a thread of a pool never holds more than
+ * {@value #MAX_REUSED_CAPACITY} bytes and as many chars. As a consequence the char array of a decoded file is only
+ * valid until the same thread decodes the next file.
+ * </p>
+ *
+ * @author Robert Scholte
+ * @since 2.0
+ */
+final class SourceFileDecoder
+{
+    /**
+     * Buffers up to this size are kept for the next file of the same thread, which covers nearly all sourcefiles.
+     */
+    static final int MAX_REUSED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<SourceFileDecoder> DECODERS = new ThreadLocal<SourceFileDecoder>()
+    {
+        @Override
+        protected SourceFileDecoder initialValue()
+        {
+            return new SourceFileDecoder();
+        }
+    };
+
+    private CharsetDecoder decoder;
+
+    private ByteBuffer bytes = ByteBuffer.allocate( 0 );
+
+    private char[] chars = new char[0];
+
+    private SourceFileDecoder()
+    {
+    }
+
+    /**
+     * Decode the file. The returned buffer is backed by an array which the calling thread will reuse when decoding the
+     * next file, so neither the buffer nor its array should be used or kept after that moment. Copy the content if it
+     * has to live longer, for instance by <code>toString()</code>.
+     *
+     * @param file the file to decode
+     * @param encoding the encoding of the file, <code>null</code> for the platform default
+     * @return the content, backed by an array which has at least one unused char after the limit and which is only
+     *         valid until the next decode of the calling thread
+     * @throws IOException if the file can't be read
+     */
+    static CharBuffer decode( File file, String encoding )
+        throws IOException
+    {
+        return DECODERS.get().decodeFile( file, encoding );
+    }
+
+    private CharBuffer decodeFile( File file, String encoding )
+        throws IOException
+    {
+        FileInputStream stream = new FileInputStream( file );
+        try
+        {
+            FileChannel channel = stream.getChannel();
+            long size = channel.size();
+            if ( size > Integer.MAX_VALUE )
+            {
+                throw new IOException( file + " is too large to be parsed" );
+            }
+            ByteBuffer input = getByteBuffer( (int) size );
+            while ( input.hasRemaining() && channel.read( input ) >= 0 )
+            {
+            }
+            input.flip();
+            return decodeBytes( input, encoding );
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+
+    private CharBuffer decodeBytes( ByteBuffer input, String encoding )
+        throws CharacterCodingException
+    {
+        CharsetDecoder charsetDecoder = getDecoder( encoding );
+        // one extra char, so the lexer never has to grow its buffer
+        int capacity = (int) ( input.remaining() * (double) charsetDecoder.maxCharsPerByte() ) + 1;
+        CharBuffer output = CharBuffer.wrap( getCharArray( capacity ) );
+        output.limit( capacity - 1 );
+
+        CoderResult result = charsetDecoder.decode( input, output, true );
+        if ( !result.isUnderflow() )
+        {
+            result.throwException();
+        }
+        result = charsetDecoder.flush( output );
+        if ( !result.isUnderflow() )
+        {
+            result.throwException();
+        }
+        output.flip();
+        return output;
+    }
+
+    private CharsetDecoder getDecoder( String encoding )
+    {
+        Charset charset = ( encoding != null ? Charset.forName( encoding ) : Charset.defaultCharset() );
+        if ( decoder == null || !decoder.charset().equals( charset ) )
+        {
+            // same behavior as an InputStreamReader
+            decoder =
+                charset.newDecoder().onMalformedInput( CodingErrorAction.REPLACE ).onUnmappableCharacter( CodingErrorAction.REPLACE );
+        }
+        return decoder.reset();
+    }
+
+    private ByteBuffer getByteBuffer( int capacity )
+    {
+        if ( capacity > MAX_REUSED_CAPACITY )
+        {
+            return ByteBuffer.allocate( capacity );
+        }
+        if ( bytes.capacity() < capacity )
+        {
+            bytes = ByteBuffer.allocate( capacity );
+        }
+        bytes.clear();
+        bytes.limit( capacity );
+        return bytes;
+    }
+
+    private char[] getCharArray( int capacity )
+    {
+        if ( capacity > MAX_REUSED_CAPACITY )
+        {
+            return new char[capacity];
+        }
+        if ( chars.length < capacity )
+        {
+            chars = new char[capacity];
+        }
+        return chars;
+    }
+}
@@ -20,17 +20,23 @@ package com.thoughtworks.qdox.library;
  */
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.net.MalformedURLException;
-import java.util.Iterator;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaSource;
 
 /**
+ * Resolves classes by parsing the sourcefiles of its sourcefolders. The directory of a package is listed only once, on
+ * the first lookup of a class in that package; after that every lookup is a hash lookup. The listing is revalidated
+ * against the modification time of the directory when {@link #refreshSources(java.util.Collection)} is called.
  * 
  * @author Robert Scholte
  * @since 2.0
@@ -40,6 +46,10 @@ public class SourceFolderLibrary
 {
     private List<File> sourceFolders = new LinkedList<File>();
 
+    // package name to the sourcefiles of that package
+    private transient ConcurrentMap<String, PackageDirectory> packageDirectories =
+        new ConcurrentHashMap<String, PackageDirectory>();
+
     public SourceFolderLibrary( AbstractClassLibrary parent  )
     {
         super( parent );
@@ -54,52 +64,191 @@ public class SourceFolderLibrary
     public void addSourceFolder( File sourceFolder )
     {
         this.sourceFolders.add( sourceFolder );
+        packageDirectories.clear();
+        clearMissingClasses();
+    }
+
+    // used to store the configuration in a snapshot
+    List<File> getSourceFolders()
+    {
+        return sourceFolders;
     }
 
     @Override
     protected JavaClass resolveJavaClass( String className )
     {
         JavaClass result = null;
-        for ( File sourceFolder : sourceFolders )
+        File classFile = getSourceFile( className );
+        if ( classFile != null )
         {
-            String mainClassName = className.split( "\\$" )[0];
-            File classFile = new File( sourceFolder, mainClassName.replace( '.', File.separatorChar ) + ".java" );
-            if ( classFile.exists() && classFile.isFile() )
+            try
+            {
+                JavaSource source = parse( classFile );
+                result = source.getClassByName( className );
+            }
+            catch ( IOException e )
             {
-                try
-                {
-                    JavaSource source = parse( new FileReader( classFile ), classFile.toURI().toURL() );
-                    result = source.getClassByName( className );
-                }
-                catch ( FileNotFoundException e )
-                {
-                }
-                catch ( MalformedURLException e )
-                {
-                }
             }
         }
         return result;
     }
     
     /**
-     * Loops over the sourceFolder to find a classReference.
-     * It will try to map the className to a file.
+     * Looks up the sourcefile of the className in the listings of the sourceFolders.
      * 
      */
     @Override
     protected boolean containsClassReference( String className )
     {
-        boolean result = false;
-        for ( Iterator<File> iterator = sourceFolders.iterator(); !result && iterator.hasNext(); )
+        return getSourceFile( className ) != null;
+    }
+
+    @Override
+    protected void revalidateSourceFiles()
+    {
+        boolean modified = false;
+        for ( PackageDirectory packageDirectory : packageDirectories.values() )
         {
-            File sourceFolder = (File) iterator.next();
-            String mainClassName = className.split( "\\$" )[0];
-            File classFile = new File( sourceFolder, mainClassName.replace( '.', File.separatorChar ) + ".java" );
-            
-            result = ( classFile.exists() && classFile.isFile() );
+            if ( !packageDirectory.isCurrent() )
+            {
+                packageDirectories.remove( packageDirectory.packageName, packageDirectory );
+                modified = true;
+            }
+        }
+        if ( modified )
+        {
+            clearMissingClasses();
+        }
+    }
+
+    /**
+     * The names of the sourcefiles in the directories of the package, from the same listing as used for the lookups.
+     */
+    @Override
+    public Set<String> getClassNames( String packageName )
+    {
+        return getPackageDirectory( packageName ).getClassNames();
+    }
+
+    // the sourcefile of the top level class in the first sourcefolder which contains it, otherwise null
+    private File getSourceFile( String className )
+    {
+        int dollar = className.indexOf( '$' );
+        String mainClassName = ( dollar > 0 ? className.substring( 0, dollar ) : className );
+        int dot = mainClassName.lastIndexOf( '.' );
+        String packageName = ( dot > 0 ? mainClassName.substring( 0, dot ) : "" );
+        return getPackageDirectory( packageName ).getSourceFile( mainClassName.substring( dot + 1 ) );
+    }
+
+    private PackageDirectory getPackageDirectory( String packageName )
+    {
+        PackageDirectory packageDirectory = packageDirectories.get( packageName );
+        if ( packageDirectory == null )
+        {
+            packageDirectory = new PackageDirectory( packageName, sourceFolders );
+            PackageDirectory current = packageDirectories.putIfAbsent( packageName, packageDirectory );
+            if ( current != null )
+            {
+                packageDirectory = current;
+            }
+        }
+        return packageDirectory;
+    }
+
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        packageDirectories = new ConcurrentHashMap<String, PackageDirectory>();
+    }
+
+    /**
+     * The listing of the directories of a single package, one for every sourcefolder.
+     */
+    private static final class PackageDirectory
+    {
+        private final String packageName;
+
+        private final File[] directories;
+
+        private final long[] lastModified;
+
+        // the names of the sourcefiles without extension, per directory
+        private final List<Set<String>> classNames = new LinkedList<Set<String>>();
+
+        // the names of all directories
+        private final Set<String> allClassNames;
+
+        PackageDirectory( String packageName, List<File> sourceFolders )
+        {
+            this.packageName = packageName;
+            this.directories = new File[sourceFolders.size()];
+            this.lastModified = new long[directories.length];
+            String path = packageName.replace( '.', File.separatorChar );
+            for ( int index = 0; index < directories.length; index++ )
+            {
+                File directory = new File( sourceFolders.get( index ), path );
+                directories[index] = directory;
+                lastModified[index] = directory.lastModified();
+                Set<String> names = new HashSet<String>();
+                String[] fileNames = directory.list();
+                if ( fileNames != null )
+                {
+                    for ( String fileName : fileNames )
+                    {
+                        if ( fileName.endsWith( ".java" ) )
+                        {
+                            names.add( fileName.substring( 0, fileName.length() - 5 ) );
+                        }
+                    }
+                }
+                classNames.add( names );
+            }
+            if ( classNames.size() == 1 )
+            {
+                allClassNames = Collections.unmodifiableSet( classNames.get( 0 ) );
+            }
+            else
+            {
+                Set<String> names = new HashSet<String>();
+                for ( Set<String> directoryNames : classNames )
+                {
+                    names.addAll( directoryNames );
+                }
+                allClassNames = Collections.unmodifiableSet( names );
+            }
+        }
+
+        Set<String> getClassNames()
+        {
+            return allClassNames;
+        }
+
+        File getSourceFile( String simpleName )
+        {
+            int index = 0;
+            for ( Set<String> names : classNames )
+            {
+                if ( names.contains( simpleName ) )
+                {
+                    return new File( directories[index], simpleName + ".java" );
+                }
+                index++;
+            }
+            return null;
+        }
+
+        // files are added to or removed from a directory if its modification time changes
+        boolean isCurrent()
+        {
+            for ( int index = 0; index < directories.length; index++ )
+            {
+                if ( directories[index].lastModified() != lastModified[index] )
+                {
+                    return false;
+                }
+            }
+            return true;
         }
-        return result;
     }
-    
 }
@@ -20,22 +20,31 @@ package com.thoughtworks.qdox.library;
  */
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.Serializable;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.thoughtworks.qdox.builder.impl.ModelBuilder;
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaPackage;
 import com.thoughtworks.qdox.model.JavaSource;
 import com.thoughtworks.qdox.model.impl.DefaultJavaPackage;
+import com.thoughtworks.qdox.model.impl.DefaultJavaSource;
+import com.thoughtworks.qdox.model.impl.TypeLinker;
 import com.thoughtworks.qdox.parser.JavaLexer;
 import com.thoughtworks.qdox.parser.ParseException;
 import com.thoughtworks.qdox.parser.impl.JFlexLexer;
@@ -58,10 +67,15 @@ public class SourceLibrary
     private boolean debugLexer;
 
     private boolean debugParser;
+
+    private boolean skipMethodBodies;
     
     private String encoding = System.getProperty("file.encoding");
     
     private ErrorHandler errorHandler;
+
+    // last known state of the files added by parseSource(File), used to detect changes
+    private Map<File, SourceFile> sourceFiles = new ConcurrentHashMap<File, SourceFile>();
     
     /**
      * Create a new instance of SourceLibrary and chain it to the parent 
@@ -131,27 +145,300 @@ public class SourceLibrary
      */
     public JavaSource addSource( File file )
         throws ParseException, IOException
+    {
+        return addSource( parseSource( file ) );
+    }
+
+    /**
+     * Parse a {@link File} containing java code, but don't add it to this library yet.
+     * Apart from remembering the state of the file for {@link #refreshSources(Collection)}, this method doesn't touch
+     * the state of this library, so it can be called by several threads at the same time.
+     * Use {@link #addSource(JavaSource)} to add the result to this library.
+     * 
+     * @param file a {@link File} which should contain java code
+     * @return The constructed {@link JavaSource} object of this file, <code>null</code> for a package-info.java or if
+     *         the {@link ErrorHandler} handled a {@link ParseException}
+     * @throws ParseException if this content couldn't be parsed to a JavaModel
+     * @throws IOException if the file can't be read
+     * @since 2.0
+     */
+    public JavaSource parseSource( File file )
+        throws ParseException, IOException
     {
         JavaSource result = null;
-        if ( !"package-info.java".equals( file.getName() ) ) 
+        if ( !"package-info.java".equals( file.getName() ) )
+        {
+            // before reading, so a change during reading is detected by the next refresh
+            long lastModified = file.lastModified();
+            CharBuffer content = SourceFileDecoder.decode( file, encoding );
+            long checksum = checksum( content );
+            result = parse( file, content );
+            sourceFiles.put( file.getAbsoluteFile(), new SourceFile( lastModified, file.length(), checksum, result ) );
+        }
+        return result;
+    }
+
+    /**
+     * Bring the sources of these files up to date. Only files which have been changed, added or deleted since they
+     * were parsed by {@link #parseSource(File)} are parsed again. A file is considered to be changed if its modification
+     * time or its length differs and the checksum of its content differs too. The source of a changed or deleted file
+     * and all of its classes are removed from the library, the source of a changed or added file is added to the
+     * library. The types of the other sources which can see the added or removed classes, because of their package or
+     * their imports, are resolved again.
+     * 
+     * @param files the files to check, the files of parent SourceLibraries included
+     * @return the sources which have been parsed, never <code>null</code>
+     * @throws ParseException if the content of a file couldn't be parsed to a JavaModel
+     * @throws IOException if a file can't be read
+     * @since 2.0
+     */
+    public List<JavaSource> refreshSources( Collection<File> files )
+        throws ParseException, IOException
+    {
+        List<JavaSource> result = new LinkedList<JavaSource>();
+        List<JavaClass> changedClasses = new ArrayList<JavaClass>();
+        boolean modified = false;
+        for ( AbstractClassLibrary library = this; library != null; library = library.getParentClassLibrary() )
+        {
+            if ( library instanceof SourceLibrary )
+            {
+                ( (SourceLibrary) library ).revalidateSourceFiles();
+            }
+        }
+        for ( File file : files )
         {
-            result = parse( new FileInputStream( file ), file.toURI().toURL() );
-            // if an error is handled by the errorHandler the result will be null
-            if( result != null )
+            if ( !"package-info.java".equals( file.getName() ) )
             {
-                if( getJavaPackage( result.getPackageName() ) == null )
+                File key = file.getAbsoluteFile();
+                SourceLibrary library = getSourceLibrary( key );
+                SourceFile current = library.sourceFiles.get( key );
+                if ( !key.isFile() )
                 {
-                    File packageInfo = new File(file.getParentFile(), "package-info.java");
-                    if( packageInfo.exists() )
+                    if ( current != null )
+                    {
+                        library.sourceFiles.remove( key );
+                        library.removeJavaSource( current.source );
+                        addClasses( current.source, changedClasses );
+                        modified = true;
+                    }
+                }
+                else if ( current == null || current.lastModified != key.lastModified()
+                    || current.length != key.length() )
+                {
+                    long lastModified = key.lastModified();
+                    CharBuffer content = SourceFileDecoder.decode( key, library.encoding );
+                    long checksum = checksum( content );
+                    if ( current != null && current.checksum == checksum )
+                    {
+                        // touched, but not changed
+                        library.sourceFiles.put( key, new SourceFile( lastModified, key.length(), checksum,
+                                                                       current.source ) );
+                    }
+                    else
                     {
-                        JavaPackage pckg = parse( new FileInputStream( packageInfo ), packageInfo.toURI().toURL() ).getPackage();
-                        context.add( pckg );
+                        JavaSource source = library.parse( key, content );
+                        library.removeJavaSource( current != null ? current.source : null );
+                        addClasses( current != null ? current.source : null, changedClasses );
+                        addClasses( source, changedClasses );
+                        library.sourceFiles.put( key, new SourceFile( lastModified, key.length(), checksum, source ) );
+                        if ( library.addSource( source ) != null )
+                        {
+                            result.add( source );
+                        }
+                        modified = true;
                     }
                 }
-                registerJavaSource(result);
             }
         }
-    	return result;
+        if ( modified )
+        {
+            for ( AbstractClassLibrary library = this; library != null; library = library.getParentClassLibrary() )
+            {
+                library.getSubtypeIndex().reset();
+            }
+            // names might resolve to other classes now
+            clearMissingClasses();
+            Map<JavaSource, JavaSource> parsedSources = new IdentityHashMap<JavaSource, JavaSource>();
+            for ( JavaSource source : result )
+            {
+                parsedSources.put( source, source );
+            }
+            List<String> unresolvedNames = new ArrayList<String>();
+            for ( JavaSource source : getJavaSources() )
+            {
+                if ( source instanceof DefaultJavaSource && !parsedSources.containsKey( source )
+                    && ( (DefaultJavaSource) source ).canSeeAny( changedClasses ) )
+                {
+                    ( (DefaultJavaSource) source ).clearResolvedTypes();
+                    TypeLinker.relink( source, unresolvedNames );
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addClasses( JavaSource source, List<JavaClass> classes )
+    {
+        if ( source != null )
+        {
+            for ( JavaClass cls : source.getClasses() )
+            {
+                addClass( cls, classes );
+            }
+        }
+    }
+
+    private static void addClass( JavaClass cls, List<JavaClass> classes )
+    {
+        classes.add( cls );
+        for ( JavaClass nestedClass : cls.getNestedClasses() )
+        {
+            addClass( nestedClass, classes );
+        }
+    }
+
+    /**
+     * Get the files which have been parsed by {@link #parseSource(File)} of this library and its parent
+     * SourceLibraries.
+     * 
+     * @return the absolute files, never <code>null</code>
+     * @since 2.0
+     */
+    public Collection<File> getSourceFiles()
+    {
+        List<File> result = new LinkedList<File>();
+        for ( AbstractClassLibrary library = this; library != null; library = library.getParentClassLibrary() )
+        {
+            if ( library instanceof SourceLibrary )
+            {
+                result.addAll( ( (SourceLibrary) library ).sourceFiles.keySet() );
+            }
+        }
+        return Collections.unmodifiableList( result );
+    }
+
+    /**
+     * Called by {@link #refreshSources(Collection)} for every SourceLibrary of the chain, before any file is checked.
+     * Libraries which keep their own state of the filesystem should validate it here.
+     * 
+     * @since 2.0
+     */
+    protected void revalidateSourceFiles()
+    {
+    }
+
+    // the SourceLibrary which parsed the file, otherwise this library
+    private SourceLibrary getSourceLibrary( File file )
+    {
+        for ( AbstractClassLibrary library = this; library != null; library = library.getParentClassLibrary() )
+        {
+            if ( library instanceof SourceLibrary && ( (SourceLibrary) library ).sourceFiles.containsKey( file ) )
+            {
+                return (SourceLibrary) library;
+            }
+        }
+        return this;
+    }
+
+    // FNV-1a
+    private static long checksum( CharBuffer content )
+    {
+        char[] chars = content.array();
+        long result = 0xcbf29ce484222325L;
+        for ( int index = 0; index < content.limit(); index++ )
+        {
+            result = ( result ^ chars[index] ) * 0x100000001b3L;
+        }
+        return result;
+    }
+
+    @Override
+    protected void removeJavaSource( JavaSource source )
+    {
+        if ( source != null )
+        {
+            context.remove( source );
+            for ( JavaClass cls : source.getClasses() )
+            {
+                removeUnusedJavaClass( cls );
+            }
+            super.removeJavaSource( source );
+        }
+    }
+
+    private void removeUnusedJavaClass( JavaClass cls )
+    {
+        context.remove( cls );
+        for ( JavaClass nestedClass : cls.getNestedClasses() )
+        {
+            removeUnusedJavaClass( nestedClass );
+        }
+    }
+
+    /**
+     * Add a {@link JavaSource} which was created by {@link #parseSource(File)} to this library.
+     * Sources are registered in the order in which they are added, independent of the order in which they were
+     * parsed.
+     * 
+     * @param source the parsed source, might be <code>null</code>
+     * @return the same source
+     * @throws IOException if the package-info.java of this source can't be read
+     * @since 2.0
+     */
+    public JavaSource addSource( JavaSource source )
+        throws IOException
+    {
+        // if an error is handled by the errorHandler the result will be null
+        if ( source != null )
+        {
+            if ( getJavaPackage( source.getPackageName() ) == null && source.getURL() != null
+                && "file".equals( source.getURL().getProtocol() ) )
+            {
+                File file = toFile( source.getURL() );
+                File packageInfo = new File( file.getParentFile(), "package-info.java" );
+                if ( packageInfo.exists() )
+                {
+                    JavaPackage pckg = parse( packageInfo ).getPackage();
+                    context.add( pckg );
+                }
+            }
+            registerJavaSource( source );
+        }
+        return source;
+    }
+
+    /**
+     * Add all sources of a snapshot written by a {@link SnapshotWriter} to this library, without parsing them again.
+     *
+     * @param stream the snapshot, which won't be closed
+     * @return all sources of the snapshot
+     * @throws IOException if the snapshot can't be read
+     * @since 2.0
+     */
+    public List<JavaSource> addSnapshot( InputStream stream )
+        throws IOException
+    {
+        List<JavaSource> result = new LinkedList<JavaSource>();
+        SnapshotReader reader = new SnapshotReader( stream );
+        ModelBuilder builder = getModelBuilder();
+        while ( reader.readSource( builder ) )
+        {
+            result.add( addSource( builder.getSource() ) );
+            builder = getModelBuilder();
+        }
+        return result;
+    }
+
+    private static File toFile( URL url )
+    {
+        try
+        {
+            return new File( url.toURI() );
+        }
+        catch ( URISyntaxException e )
+        {
+            return new File( url.getPath() );
+        }
     }
     
     protected JavaSource parse( Reader reader, URL url )
@@ -159,7 +446,7 @@ public class SourceLibrary
     {
         try 
         {
-            return parse( new JFlexLexer( reader ), url );
+            return parse( createLexer( new JFlexLexer( reader ) ), url );
         }
         finally 
         {
@@ -178,7 +465,7 @@ public class SourceLibrary
     {
         try 
         {
-            return parse( new JFlexLexer( stream ), url );
+            return parse( createLexer( new JFlexLexer( stream ) ), url );
         }
         finally 
         {
@@ -192,15 +479,44 @@ public class SourceLibrary
         }
     }
 
+    /**
+     * Parse the file with the encoding of this library. The file is decoded at once into the buffer of the lexer.
+     * 
+     * @param file the file to parse
+     * @return the JavaSource, otherwise <code>null</code>
+     * @throws ParseException if this content couldn't be parsed to a JavaModel
+     * @throws IOException if the file can't be read
+     * @since 2.0
+     */
+    protected JavaSource parse( File file )
+        throws ParseException, IOException
+    {
+        return parse( file, SourceFileDecoder.decode( file, encoding ) );
+    }
+
+    private JavaSource parse( File file, CharBuffer content )
+        throws ParseException, IOException
+    {
+        return parse( createLexer( new JFlexLexer( content.array(), content.limit() ) ), file.toURI().toURL() );
+    }
+
+    private JavaLexer createLexer( JFlexLexer lexer )
+    {
+        lexer.setSkipMethodBodies( skipMethodBodies );
+        return lexer;
+    }
+
     private JavaSource parse( JavaLexer lexer, URL url )
         throws ParseException
     {
         JavaSource result = null;
         ModelBuilder builder = getModelBuilder();
         builder.setUrl( url );
+        builder.setErrorHandler( errorHandler );
         Parser parser = new Parser( lexer, builder );
         parser.setDebugLexer( debugLexer );
         parser.setDebugParser( debugParser );
+        parser.setSymbolTable( getSymbolTable() );
         try {
             if ( parser.parse() )
             {
@@ -250,6 +566,8 @@ public class SourceLibrary
             for( JavaClass cls : source.getClasses()) {
                 registerJavaClass( cls );
             }
+            // after registering the classes, so a lookup in between can't remember them as missing again
+            clearMissingClasses();
         }
     }
     
@@ -267,7 +585,9 @@ public class SourceLibrary
     private void registerJavaClass(JavaClass cls) {
         if (cls != null) {
             context.add( cls );
-            getJavaPackage( cls.getPackageName() ).getClasses().add( cls );
+            getSubtypeIndex().add( cls );
+            getDocletTagIndex().add( cls );
+            addClass( getJavaPackage( cls.getPackageName() ), cls );
         }
         for( JavaClass innerCls : cls.getNestedClasses()) {
             registerJavaClass( innerCls );
@@ -295,7 +615,18 @@ public class SourceLibrary
     }
     
     /**
-     * Sets the encoding to use when parsing a URL or InputStreamReader
+     * Don't collect the sourcecode of methods, constructors and initializers.
+     * 
+     * @param skipMethodBodies <code>true</code> to skip the bodies
+     * @since 2.0
+     */
+    public void setSkipMethodBodies( boolean skipMethodBodies )
+    {
+        this.skipMethodBodies = skipMethodBodies;
+    }
+    
+    /**
+     * Sets the encoding to use when parsing a File, URL or InputStreamReader
      * 
      * @param encoding
      */
@@ -308,6 +639,32 @@ public class SourceLibrary
     {
         this.errorHandler = errorHandler;
     }
+
+    // the getters of the settings are used to store the configuration in a snapshot
+    boolean isDebugLexer()
+    {
+        return debugLexer;
+    }
+
+    boolean isDebugParser()
+    {
+        return debugParser;
+    }
+
+    boolean isSkipMethodBodies()
+    {
+        return skipMethodBodies;
+    }
+
+    String getEncoding()
+    {
+        return encoding;
+    }
+
+    ErrorHandler getErrorHandler()
+    {
+        return errorHandler;
+    }
     
     /**
      * Get all classes, including those from parent SourceLibraries
@@ -329,6 +686,36 @@ public class SourceLibrary
         return Collections.unmodifiableList( result );
     }
 
+    /**
+     * Get the derived classes of all classes, including those from parent SourceLibraries
+     */
+    @Override
+    public List<JavaClass> getDerivedClasses( JavaClass javaClass, boolean transitive )
+    {
+        return getDerivedClasses( new ClassLibraryFilter()
+        {
+            public boolean accept( AbstractClassLibrary classLibrary )
+            {
+                return (classLibrary instanceof SourceLibrary);
+            }
+        }, javaClass, transitive );
+    }
+
+    /**
+     * Get the tagged elements of all classes, including those from parent SourceLibraries
+     */
+    @Override
+    public List<JavaAnnotatedElement> getTaggedElements( String tagName )
+    {
+        return getTaggedElements( new ClassLibraryFilter()
+        {
+            public boolean accept( AbstractClassLibrary classLibrary )
+            {
+                return (classLibrary instanceof SourceLibrary);
+            }
+        }, tagName );
+    }
+
     /**
      * Get all packages, including those from parent SourceLibraries
      */
@@ -374,4 +761,24 @@ public class SourceLibrary
     {
         return context.getClassByName( name ) != null;
     }
+
+    private static class SourceFile
+        implements Serializable
+    {
+        private final long lastModified;
+
+        private final long length;
+
+        private final long checksum;
+
+        private final JavaSource source;
+
+        SourceFile( long lastModified, long length, long checksum, JavaSource source )
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.checksum = checksum;
+            this.source = source;
+        }
+    }
 }
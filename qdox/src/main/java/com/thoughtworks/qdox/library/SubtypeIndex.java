@@ -0,0 +1,248 @@
+package com.thoughtworks.qdox.library;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.thoughtworks.qdox.model.JavaClass;
+
+/**
+ * Maps the fully qualified names of supertypes to the classes of a library which extend or implement them.
+ * Classes are added when the library registers them, but their supertypes are resolved at the first query after that,
+ * because resolving them while sources are still being added could bind a name to the wrong class.
+ * <p>
+ * Every class is stored under the names of its direct supertypes and under the names of all of its ancestors. The
+ * latter are resolved the same way as {@link JavaClass#isA(JavaClass)} does, so classes are also found through
+ * supertypes which aren't part of the library. The direct supertypes are used to find the classes of a supertype which
+ * has been added after its subclasses were indexed.
+ * </p>
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+final class SubtypeIndex
+    implements Serializable
+{
+    // all classes in the order in which they were added, guarded by this
+    private final List<JavaClass> classes = new ArrayList<JavaClass>();
+
+    private final Map<JavaClass, Boolean> members = new IdentityHashMap<JavaClass, Boolean>();
+
+    // classes.subList(0, indexedCount) has been indexed
+    private int indexedCount;
+
+    // incremented when indexed classes are removed, so a concurrent update won't store stale entries
+    private int generation;
+
+    private final Map<String, List<JavaClass>> directSubtypes = new HashMap<String, List<JavaClass>>();
+
+    private final Map<String, List<JavaClass>> allSubtypes = new HashMap<String, List<JavaClass>>();
+
+    /**
+     * Add a class, classes which have been added before are ignored.
+     * 
+     * @param javaClass the class to add
+     */
+    synchronized void add( JavaClass javaClass )
+    {
+        if ( members.put( javaClass, Boolean.TRUE ) == null )
+        {
+            classes.add( javaClass );
+        }
+    }
+
+    /**
+     * Remove this instance of the class.
+     * 
+     * @param javaClass the class to remove
+     */
+    synchronized void remove( JavaClass javaClass )
+    {
+        if ( members.remove( javaClass ) != null )
+        {
+            for ( int index = classes.size() - 1; index >= 0; index-- )
+            {
+                if ( classes.get( index ) == javaClass )
+                {
+                    classes.remove( index );
+                }
+            }
+            reset();
+        }
+    }
+
+    /**
+     * Forget the resolved supertypes of all classes, they will be resolved again at the next query.
+     */
+    synchronized void reset()
+    {
+        directSubtypes.clear();
+        allSubtypes.clear();
+        indexedCount = 0;
+        generation++;
+    }
+
+    /**
+     * Get the derived classes of the indexes, in the order of the indexes.
+     * 
+     * @param indexes the indexes to search
+     * @param javaClass the supertype
+     * @param transitive <code>false</code> for the classes which directly extend or implement the supertype only
+     * @return the derived classes, excluding the supertype itself, never <code>null</code>
+     */
+    static List<JavaClass> getDerivedClasses( List<SubtypeIndex> indexes, JavaClass javaClass, boolean transitive )
+    {
+        for ( SubtypeIndex index : indexes )
+        {
+            index.update();
+        }
+        Map<JavaClass, Boolean> found = new IdentityHashMap<JavaClass, Boolean>();
+        found.put( javaClass, Boolean.TRUE );
+        List<JavaClass> result = new ArrayList<JavaClass>();
+        for ( SubtypeIndex index : indexes )
+        {
+            index.collect( javaClass.getFullyQualifiedName(), transitive, found, result );
+        }
+        if ( transitive )
+        {
+            // every class of the result is a supertype too, but the direct subtypes of each are enough
+            for ( int i = 0; i < result.size(); i++ )
+            {
+                String name = result.get( i ).getFullyQualifiedName();
+                for ( SubtypeIndex index : indexes )
+                {
+                    index.collect( name, false, found, result );
+                }
+            }
+        }
+        return result;
+    }
+
+    private synchronized void collect( String name, boolean transitive, Map<JavaClass, Boolean> found,
+                                       List<JavaClass> result )
+    {
+        List<JavaClass> subtypes = ( transitive ? allSubtypes : directSubtypes ).get( name );
+        if ( subtypes != null )
+        {
+            for ( JavaClass subtype : subtypes )
+            {
+                if ( found.put( subtype, Boolean.TRUE ) == null )
+                {
+                    result.add( subtype );
+                }
+            }
+        }
+    }
+
+    // resolving supertypes can register classes, so it's done without holding the lock
+    private void update()
+    {
+        while ( true )
+        {
+            List<JavaClass> batch;
+            int start;
+            int batchGeneration;
+            synchronized ( this )
+            {
+                if ( indexedCount == classes.size() )
+                {
+                    return;
+                }
+                start = indexedCount;
+                batchGeneration = generation;
+                batch = new ArrayList<JavaClass>( classes.subList( start, classes.size() ) );
+            }
+
+            List<Collection<String>> directNames = new ArrayList<Collection<String>>( batch.size() );
+            List<Collection<String>> allNames = new ArrayList<Collection<String>>( batch.size() );
+            for ( JavaClass javaClass : batch )
+            {
+                Collection<String> names = new LinkedHashSet<String>();
+                for ( JavaClass supertype : getSupertypes( javaClass ) )
+                {
+                    names.add( supertype.getFullyQualifiedName() );
+                }
+                directNames.add( names );
+                Set<String> ancestors = new LinkedHashSet<String>();
+                collectAncestors( javaClass, ancestors );
+                allNames.add( ancestors );
+            }
+
+            synchronized ( this )
+            {
+                if ( generation == batchGeneration && indexedCount == start )
+                {
+                    for ( int i = 0; i < batch.size(); i++ )
+                    {
+                        put( directSubtypes, directNames.get( i ), batch.get( i ) );
+                        put( allSubtypes, allNames.get( i ), batch.get( i ) );
+                    }
+                    indexedCount = start + batch.size();
+                }
+            }
+        }
+    }
+
+    private static void put( Map<String, List<JavaClass>> subtypes, Collection<String> names, JavaClass javaClass )
+    {
+        for ( String name : names )
+        {
+            List<JavaClass> list = subtypes.get( name );
+            if ( list == null )
+            {
+                list = new ArrayList<JavaClass>( 2 );
+                subtypes.put( name, list );
+            }
+            list.add( javaClass );
+        }
+    }
+
+    private static void collectAncestors( JavaClass javaClass, Set<String> ancestors )
+    {
+        for ( JavaClass supertype : getSupertypes( javaClass ) )
+        {
+            if ( ancestors.add( supertype.getFullyQualifiedName() ) )
+            {
+                collectAncestors( supertype, ancestors );
+            }
+        }
+    }
+
+    private static List<JavaClass> getSupertypes( JavaClass javaClass )
+    {
+        List<JavaClass> result = new LinkedList<JavaClass>( javaClass.getImplementedInterfaces() );
+        JavaClass superClass = javaClass.getSuperJavaClass();
+        if ( superClass != null )
+        {
+            result.add( superClass );
+        }
+        return result;
+    }
+}
@@ -405,6 +405,14 @@ public interface JavaClass extends JavaModel, JavaType, JavaClassParent, JavaAnn
      */
     List<JavaClass> getDerivedClasses();
 
+    /**
+     * Gets the known classes which directly extend or implement this class.
+     * 
+     * @return the direct subclasses and implementing classes, never <code>null</code>
+     * @since 2.0
+     */
+    List<JavaClass> getDirectDerivedClasses();
+
     List<DocletTag> getTagsByName( String name, boolean superclasses );
 
     ClassLibrary getJavaClassLibrary();
@@ -32,6 +32,21 @@ public class Assignment implements AnnotationValue
         this.assignmentExpression = assignmentExpression;
     }
 
+    public Expression getLeftHandSide()
+    {
+        return leftHandSide;
+    }
+
+    public String getOperator()
+    {
+        return operator;
+    }
+
+    public Expression getAssignmentExpression()
+    {
+        return assignmentExpression;
+    }
+
     /** {@inheritDoc} */
     public Object accept( ExpressionVisitor visitor )
     {
@@ -25,6 +25,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import com.thoughtworks.qdox.model.DocletTag;
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
 import com.thoughtworks.qdox.model.JavaAnnotation;
 import com.thoughtworks.qdox.model.JavaClass;
 
@@ -33,6 +34,9 @@ public abstract class AbstractBaseJavaEntity extends AbstractJavaModel implement
 	private List<JavaAnnotation> annotations = Collections.emptyList();
 	private String comment;
 	private List<DocletTag> tags = Collections.emptyList();
+	private volatile DeferredJavaDoc deferredJavaDoc;
+	// the tags by their name, built on the first lookup by name
+	private transient volatile NameIndex<DocletTag> tagIndex;
 
     public AbstractBaseJavaEntity()
     {
@@ -41,12 +45,12 @@ public abstract class AbstractBaseJavaEntity extends AbstractJavaModel implement
 
     public List<JavaAnnotation> getAnnotations()
     {
-        return annotations;
+        return FrozenList.view( annotations );
     }
 
     public void setAnnotations( List<JavaAnnotation> annotations )
     {
-        this.annotations = annotations;
+        this.annotations = FrozenList.of( annotations );
     }
 
 	/**
@@ -62,42 +66,59 @@ public abstract class AbstractBaseJavaEntity extends AbstractJavaModel implement
 
     public String getComment()
     {
+        parseJavaDoc();
         return comment;
     }
 
-    public void setComment( String comment )
+    public synchronized void setComment( String comment )
     {
+        // the description of the javadoc won't be needed anymore
+        if ( deferredJavaDoc != null && deferredJavaDoc.discardDescription() )
+        {
+            deferredJavaDoc = null;
+        }
         this.comment = comment;
     }
 
     public List<DocletTag> getTags()
     {
-        return tags;
+        parseJavaDoc();
+        return FrozenList.view( tags );
     }
 
     public List<DocletTag> getTagsByName( String name )
     {
-        List<DocletTag> specifiedTags = new LinkedList<DocletTag>();
-        for ( DocletTag docletTag : tags )
+        // a copy, callers are free to change the list
+        List<DocletTag> result = new LinkedList<DocletTag>();
+        NameIndex<DocletTag> index = getTagIndex();
+        if ( index != null )
         {
-            if ( docletTag.getName().equals( name ) )
-            {
-                specifiedTags.add( docletTag );
-            }
+            result.addAll( index.get( name ) );
         }
-        return specifiedTags;
+        return result;
     }
 
     public DocletTag getTagByName( String name )
     {
-        for ( DocletTag docletTag : tags )
+        NameIndex<DocletTag> index = getTagIndex();
+        return ( index != null ? index.getFirst( name ) : null );
+    }
+
+    // null if there are no tags, so entities without javadoc don't need an index
+    private NameIndex<DocletTag> getTagIndex()
+    {
+        List<DocletTag> tagList = getTags();
+        NameIndex<DocletTag> index = tagIndex;
+        if ( index == null && !tagList.isEmpty() )
         {
-            if ( docletTag.getName().equals( name ) )
+            index = new NameIndex<DocletTag>( tagList.size(), 0 );
+            for ( DocletTag docletTag : tagList )
             {
-                return docletTag;
+                index.add( docletTag.getName(), docletTag );
             }
+            tagIndex = index;
         }
-        return null;
+        return index;
     }
 
     /**
@@ -113,8 +134,58 @@ public abstract class AbstractBaseJavaEntity extends AbstractJavaModel implement
         return ( tag != null ? tag.getNamedParameter( parameterName ) : null );
     }
 
-    public void setTags( List<DocletTag> tagList )
+    public synchronized void setTags( List<DocletTag> tagList )
     {
-        this.tags = tagList;
+        // the tags of the javadoc won't be needed anymore
+        if ( deferredJavaDoc != null && deferredJavaDoc.discardTags() )
+        {
+            deferredJavaDoc = null;
+        }
+        this.tags = FrozenList.of( tagList );
+        this.tagIndex = null;
+    }
+
+    /**
+     * Set the javadoc which still has to be parsed. The comment and tags are extracted when one of them is requested
+     * for the first time.
+     * 
+     * @param deferredJavaDoc the unparsed javadoc
+     * @since 2.0
+     */
+    public void setDeferredJavaDoc( DeferredJavaDoc deferredJavaDoc )
+    {
+        this.deferredJavaDoc = deferredJavaDoc;
+    }
+
+    private void parseJavaDoc()
+    {
+        if ( deferredJavaDoc != null )
+        {
+            synchronized ( this )
+            {
+                DeferredJavaDoc javaDoc = deferredJavaDoc;
+                if ( javaDoc != null )
+                {
+                    // a javadoc is parsed only once, even if it is malformed
+                    try
+                    {
+                        javaDoc.parse( (JavaAnnotatedElement) this );
+                        if ( javaDoc.getDescription() != null )
+                        {
+                            comment = javaDoc.getDescription();
+                        }
+                        if ( javaDoc.getTags() != null )
+                        {
+                            tags = FrozenList.of( javaDoc.getTags() );
+                            tagIndex = null;
+                        }
+                    }
+                    finally
+                    {
+                        deferredJavaDoc = null;
+                    }
+                }
+            }
+        }
     }
 }
\ No newline at end of file
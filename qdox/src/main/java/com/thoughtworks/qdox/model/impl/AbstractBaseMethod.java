@@ -1,5 +1,6 @@
 package com.thoughtworks.qdox.model.impl;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -27,7 +28,7 @@ public abstract class AbstractBaseMethod
 
     public List<JavaParameter> getParameters()
     {
-        return parameters;
+        return FrozenList.view( parameters );
     }
 
     public JavaParameter getParameterByName( String name )
@@ -42,12 +43,12 @@ public abstract class AbstractBaseMethod
 
     public List<JavaClass> getExceptions()
     {
-        return new LinkedList<JavaClass>( exceptions );
+        return FrozenList.view( exceptions );
     }
     
     public List<JavaType> getExceptionTypes()
     {
-        return new LinkedList<JavaType>( exceptions );
+        return FrozenList.<JavaType>view( exceptions );
     }
 
     public boolean isVarArgs()
@@ -62,13 +63,13 @@ public abstract class AbstractBaseMethod
 
     public void setParameters( List<JavaParameter> javaParameters )
     {
-        parameters = javaParameters;
+        parameters = FrozenList.of( javaParameters );
         this.varArgs = javaParameters.get( javaParameters.size() -1 ).isVarArgs();
     }
 
     public void setExceptions( List<JavaClass> exceptions )
     {
-        this.exceptions = exceptions;
+        this.exceptions = FrozenList.of( exceptions );
     }
 
     protected boolean signatureMatches( List<JavaType> parameterTypes, boolean varArgs )
@@ -129,7 +130,7 @@ public abstract class AbstractBaseMethod
     /** {@inheritDoc} */
     public List<JavaType> getParameterTypes( boolean resolve )
     {
-        List<JavaType> result = new LinkedList<JavaType>();
+        List<JavaType> result = new ArrayList<JavaType>( parameters.size() );
         for ( JavaParameter parameter : this.getParameters() )
         {
             result.add( parameter.getType() );
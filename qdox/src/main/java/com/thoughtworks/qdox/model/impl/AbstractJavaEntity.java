@@ -19,6 +19,8 @@ package com.thoughtworks.qdox.model.impl;
  * under the License.
  */
 
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -27,7 +29,18 @@ import com.thoughtworks.qdox.model.JavaModel;
 
 public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implements JavaModel {
 
-    private List<String> modifiers = Collections.emptyList();
+    /**
+     * The modifiers in the order of {@link Modifier#toString(int)}
+     */
+    private static final String[] MODIFIER_NAMES = { "public", "protected", "private", "abstract", "static", "final",
+        "transient", "volatile", "synchronized", "native", "strictfp", "interface" };
+
+    private static final int[] MODIFIER_FLAGS = { Modifier.PUBLIC, Modifier.PROTECTED, Modifier.PRIVATE,
+        Modifier.ABSTRACT, Modifier.STATIC, Modifier.FINAL, Modifier.TRANSIENT, Modifier.VOLATILE,
+        Modifier.SYNCHRONIZED, Modifier.NATIVE, Modifier.STRICT, Modifier.INTERFACE };
+
+    private int modifiers;
+    private volatile List<String> modifierList = Collections.emptyList();
     private JavaClass parentCls;
 	private String name;
 
@@ -37,11 +50,89 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
 	 * @return a list of modifiers, never <code>null</code>
 	 */
     public List<String> getModifiers() {
-        return modifiers;
+        List<String> result = modifierList;
+        if ( result == null )
+        {
+            List<String> list = new ArrayList<String>();
+            for ( int index = 0; index < MODIFIER_FLAGS.length; index++ )
+            {
+                if ( ( modifiers & MODIFIER_FLAGS[index] ) != 0 )
+                {
+                    list.add( MODIFIER_NAMES[index] );
+                }
+            }
+            result = FrozenList.of( list );
+            modifierList = result;
+        }
+        return result;
     }
 
+    /**
+     * The modifiers are kept as bitmask. Only if they're not in the order of {@link Modifier#toString(int)} or contain
+     * unknown modifiers, the list is kept as well.
+     * 
+     * @param modifiers the modifiers as Strings
+     */
     public void setModifiers(List<String> modifiers) {
+        int flags = 0;
+        boolean canonical = true;
+        int lastIndex = -1;
+        for ( String modifier : modifiers )
+        {
+            int index = indexOfModifier( modifier );
+            if ( index < 0 )
+            {
+                canonical = false;
+            }
+            else
+            {
+                canonical &= ( index > lastIndex );
+                lastIndex = index;
+                flags |= MODIFIER_FLAGS[index];
+            }
+        }
+        this.modifiers = flags;
+        if ( canonical )
+        {
+            this.modifierList = ( flags == 0 ? Collections.<String>emptyList() : null );
+        }
+        else
+        {
+            this.modifierList = FrozenList.of( modifiers );
+        }
+    }
+
+    /**
+     * @param modifiers the modifiers as bitmask, decoded with {@link Modifier}
+     * @since 2.0
+     */
+    public void setModifiers( int modifiers )
+    {
         this.modifiers = modifiers;
+        this.modifierList = null;
+    }
+
+    /**
+     * Equivalent of {@link java.lang.reflect.Member#getModifiers()}
+     * 
+     * @return the modifiers as bitmask, decoded with {@link Modifier}
+     * @since 2.0
+     */
+    public int getModifierFlags()
+    {
+        return modifiers;
+    }
+
+    private static int indexOfModifier( String modifier )
+    {
+        for ( int index = 0; index < MODIFIER_NAMES.length; index++ )
+        {
+            if ( MODIFIER_NAMES[index].equals( modifier ) )
+            {
+                return index;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -50,7 +141,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @return <code>true</code> if entity is abstract, otherwise <code>false</code>
      */
     public boolean isAbstract() {
-        return isModifierPresent("abstract");
+        return isModifierPresent( Modifier.ABSTRACT );
     }
 
     /**
@@ -59,7 +150,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @return <code>true</code> if entity is public, otherwise <code>false</code>
      */
     public boolean isPublic() {
-        return isModifierPresent("public");
+        return isModifierPresent( Modifier.PUBLIC );
     }
 
     /**
@@ -68,7 +159,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @return <code>true</code> if entity is private, otherwise <code>false</code>
      */
     public boolean isPrivate() {
-        return isModifierPresent("private");
+        return isModifierPresent( Modifier.PRIVATE );
     }
 
     /**
@@ -77,7 +168,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @return <code>true</code> if entity is protected, otherwise <code>false</code>
      */
     public boolean isProtected() {
-        return isModifierPresent("protected");
+        return isModifierPresent( Modifier.PROTECTED );
     }
 
     /**
@@ -86,7 +177,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @return <code>true</code> if entity is static, otherwise <code>false</code>
      */
     public boolean isStatic() {
-        return isModifierPresent("static");
+        return isModifierPresent( Modifier.STATIC );
     }
 
     /**
@@ -95,7 +186,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @return <code>true</code> if entity is final, otherwise <code>false</code>
      */
     public boolean isFinal() {
-        return isModifierPresent("final");
+        return isModifierPresent( Modifier.FINAL );
     }
 
     /**
@@ -104,7 +195,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @return <code>true</code> if entity is sunchronized, otherwise <code>false</code>
      */
     public boolean isSynchronized() {
-        return isModifierPresent("synchronized");
+        return isModifierPresent( Modifier.SYNCHRONIZED );
     }
 
     /**
@@ -113,7 +204,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @return <code>true</code> if entity is transient, otherwise <code>false</code>
      */
     public boolean isTransient() {
-        return isModifierPresent("transient");
+        return isModifierPresent( Modifier.TRANSIENT );
     }
 
     /**
@@ -123,7 +214,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @since 1.4
      */
     public boolean isVolatile() {
-        return isModifierPresent("volatile");
+        return isModifierPresent( Modifier.VOLATILE );
     }
 
     /**
@@ -133,7 +224,7 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @since 1.4
      */
     public boolean isNative() {
-        return isModifierPresent("native");
+        return isModifierPresent( Modifier.NATIVE );
     }
 
     /**
@@ -143,17 +234,18 @@ public abstract class AbstractJavaEntity extends AbstractBaseJavaEntity implemen
      * @since 1.4
      */
     public boolean isStrictfp() {
-        return isModifierPresent("strictfp");
+        return isModifierPresent( Modifier.STRICT );
     }
 
     /**
-     * Returns <code>true</code> if one of the modifiers matches the {@code modifier}
+     * Returns <code>true</code> if the {@code modifier} is part of the modifiers
      * 
-     * @param modifier the modifier
+     * @param modifier the modifier as defined by {@link Modifier}
      * @return <code>true</code> if the modifier is present, otherwise <code>false</code>
      */
-    private boolean isModifierPresent(String modifier) {
-        return modifiers.contains(modifier);
+    private boolean isModifierPresent( int modifier )
+    {
+        return ( modifiers & modifier ) != 0;
     }
 
     public void setParentClass( JavaClass parentClass )
@@ -36,9 +36,9 @@ public class DefaultDocletTag
 
     private final int lineNumber;
 
-    private List<String> parameters;
+    private volatile List<String> parameters;
 
-    private Map<String, String> namedParameters;
+    private volatile Map<String, String> namedParameters;
 
     private JavaAnnotatedElement context;
 
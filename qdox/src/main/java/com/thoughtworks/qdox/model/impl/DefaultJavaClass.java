@@ -19,7 +19,10 @@ package com.thoughtworks.qdox.model.impl;
  * under the License.
  */
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -47,13 +50,14 @@ public class DefaultJavaClass
     implements JavaClass
 {
 
-    private List<JavaConstructor> constructors = new LinkedList<JavaConstructor>();
+    // ArrayLists while the class is being built, FrozenLists once it has been compacted
+    private List<JavaConstructor> constructors = new ArrayList<JavaConstructor>();
 
-    private List<JavaMethod> methods = new LinkedList<JavaMethod>();
+    private List<JavaMethod> methods = new ArrayList<JavaMethod>();
 
-    private List<JavaField> fields = new LinkedList<JavaField>();
+    private List<JavaField> fields = new ArrayList<JavaField>();
 
-    private List<JavaClass> classes = new LinkedList<JavaClass>();
+    private List<JavaClass> classes = new ArrayList<JavaClass>();
 
     private boolean anInterface;
 
@@ -63,14 +67,53 @@ public class DefaultJavaClass
 
     private JavaType superClass;
 
-    private List<JavaClass> implementz = new LinkedList<JavaClass>();
+    private List<JavaClass> implementz = Collections.emptyList();
 
-    private List<DefaultJavaTypeVariable<JavaClass>> typeParameters =
-        new LinkedList<DefaultJavaTypeVariable<JavaClass>>();
+    private List<DefaultJavaTypeVariable<JavaClass>> typeParameters = Collections.emptyList();
 
     // sourceless class can use this property
     private JavaPackage javaPackage;
 
+    // the names of this class and all of its supertypes, used by isA
+    private transient volatile LibraryCache<Set<String>> supertypeNames;
+
+    // the inherited methods by their signature, excluding those of this class
+    private transient volatile LibraryCache<Map<String, JavaMethod>> supertypeMethods;
+
+    private transient volatile LibraryCache<List<JavaMethod>> inheritedMethods;
+
+    // the methods searched by getMethodBySignature() and getMethodsBySignature() when superclasses are included
+    private transient volatile LibraryCache<SignatureTable> signatureTable;
+
+    // the classes whose signature table the current thread is building, to detect a class which extends itself
+    private static final ThreadLocal<Map<DefaultJavaClass, DefaultJavaClass>> SIGNATURE_TABLES_IN_PROGRESS =
+        new ThreadLocal<Map<DefaultJavaClass, DefaultJavaClass>>()
+        {
+            @Override
+            protected Map<DefaultJavaClass, DefaultJavaClass> initialValue()
+            {
+                return new IdentityHashMap<DefaultJavaClass, DefaultJavaClass>();
+            }
+        };
+
+    // the classes whose cached methods contain the methods of this class, guarded by this class
+    private transient Map<DefaultJavaClass, DefaultJavaClass> dependents;
+
+    // the bean properties of the methods of this class, and of all methods including the inherited ones
+    private transient volatile LibraryCache<BeanPropertyTable> declaredBeanProperties;
+
+    private transient volatile LibraryCache<BeanPropertyTable> beanProperties;
+
+    // the fully qualified name and the values derived from it, cleared when the class, its parent or package changes
+    private transient volatile QualifiedName qualifiedName;
+
+    // lookups by name, replaced when a member is added
+    private transient volatile NameIndex<JavaMethod> methodIndex;
+
+    private transient volatile NameIndex<JavaField> fieldIndex;
+
+    private transient volatile NameIndex<JavaClass> nestedClassIndex;
+
     protected DefaultJavaClass()
     {
     }
@@ -94,10 +137,7 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public boolean isPrimitive()
     {
-        final String name = getName();
-        return "void".equals( name ) || "boolean".equals( name ) || "byte".equals( name ) || "char".equals( name )
-            || "short".equals( name ) || "int".equals( name ) || "long".equals( name ) || "float".equals( name )
-            || "double".equals( name );
+        return DefaultJavaSource.PRIMITIVE_TYPES.contains( getName() );
     }
     
     /** {@inheritDoc} */
@@ -140,18 +180,15 @@ public class DefaultJavaClass
     public JavaType getSuperClass()
     {
         JavaType result = null;
-        JavaClass OBJECT_JAVACLASS = getJavaClassLibrary().getJavaClass( "java.lang.Object" );
-        JavaClass ENUM_JAVACLASS = getJavaClassLibrary().getJavaClass( "java.lang.Enum" );
-
-        boolean iAmJavaLangObject = OBJECT_JAVACLASS.equals( this );
 
         if ( anEnum )
         {
-            result = ENUM_JAVACLASS;
+            result = getJavaClassLibrary().getJavaClass( "java.lang.Enum" );
         }
-        else if ( !anInterface && !anAnnotation && ( superClass == null ) && !iAmJavaLangObject )
+        else if ( !anInterface && !anAnnotation && ( superClass == null )
+            && !"java.lang.Object".equals( getFullyQualifiedName() ) )
         {
-            result = OBJECT_JAVACLASS;
+            result = getJavaClassLibrary().getJavaClass( "java.lang.Object" );
         }
         else 
         {
@@ -160,6 +197,14 @@ public class DefaultJavaClass
         return result;
     }
 
+    /**
+     * @return the superclass of the declaration, otherwise <code>null</code>
+     */
+    JavaType getDeclaredSuperClass()
+    {
+        return superClass;
+    }
+
     /**
      * Shorthand for getSuperClass().getJavaClass() with null checking.
      */
@@ -177,19 +222,19 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public List<JavaType> getImplements()
     {
-        return new LinkedList<JavaType>( implementz );
+        return FrozenList.<JavaType>view( implementz );
     }
 
     /** {@inheritDoc} */
     public List<JavaClass> getImplementedInterfaces()
     {
-        return new LinkedList<JavaClass>( implementz );
+        return FrozenList.view( implementz );
     }
 
     /** {@inheritDoc} */
     public List<JavaClass> getInterfaces()
     {
-        return new LinkedList<JavaClass>( implementz );
+        return FrozenList.view( implementz );
     }
 
     /** {@inheritDoc} */
@@ -201,26 +246,37 @@ public class DefaultJavaClass
     public void setInterface( boolean anInterface )
     {
         this.anInterface = anInterface;
+        clearCaches();
     }
 
     public void setEnum( boolean anEnum )
     {
         this.anEnum = anEnum;
+        clearCaches();
     }
 
     public void setAnnotation( boolean anAnnotation )
     {
         this.anAnnotation = anAnnotation;
+        clearCaches();
     }
 
     public void addConstructor( JavaConstructor constructor )
     {
+        constructors = FrozenList.thaw( constructors );
         constructors.add( constructor );
     }
 
     public void addMethod( JavaMethod meth )
     {
+        methods = FrozenList.thaw( methods );
         methods.add( meth );
+        inheritedMethods = null;
+        signatureTable = null;
+        declaredBeanProperties = null;
+        beanProperties = null;
+        methodIndex = null;
+        clearDependentCaches();
     }
 
     public void setSuperClass( JavaType type )
@@ -230,27 +286,89 @@ public class DefaultJavaClass
             throw new IllegalArgumentException( "enums cannot extend other classes" );
         }
         superClass = type;
+        clearCaches();
     }
 
     public void setImplementz( List<JavaClass> implementz )
     {
-        this.implementz = implementz;
+        this.implementz = FrozenList.of( implementz );
+        clearCaches();
+    }
+
+    // the supertypes have changed
+    private void clearCaches()
+    {
+        supertypeNames = null;
+        supertypeMethods = null;
+        inheritedMethods = null;
+        signatureTable = null;
+        beanProperties = null;
+        clearDependentCaches();
+    }
+
+    // the methods or supertypes of this class have changed, so have the inherited methods of its subclasses
+    private void clearDependentCaches()
+    {
+        Map<DefaultJavaClass, DefaultJavaClass> current;
+        synchronized ( this )
+        {
+            current = dependents;
+            dependents = null;
+        }
+        if ( current != null )
+        {
+            // they register again when they rebuild their caches
+            for ( DefaultJavaClass dependent : current.keySet() )
+            {
+                dependent.clearCaches();
+            }
+        }
+    }
+
+    // the cached methods of this class contain those of the supertype
+    private void dependOn( JavaClass supertype )
+    {
+        DefaultJavaClass realClass = toDefaultJavaClass( supertype );
+        if ( realClass != null )
+        {
+            synchronized ( realClass )
+            {
+                if ( realClass.dependents == null )
+                {
+                    realClass.dependents = new IdentityHashMap<DefaultJavaClass, DefaultJavaClass>();
+                }
+                realClass.dependents.put( this, this );
+            }
+        }
     }
 
     /** {@inheritDoc} */
     public List<DefaultJavaTypeVariable<JavaClass>> getTypeParameters()
     {
-        return typeParameters;
+        return FrozenList.view( typeParameters );
+    }
+
+    /**
+     * Replace the lists of members by right-sized immutable ones, called by {@link ModelCompactor}.
+     */
+    void compact()
+    {
+        constructors = FrozenList.of( constructors );
+        methods = FrozenList.of( methods );
+        fields = FrozenList.of( fields );
+        classes = FrozenList.of( classes );
     }
 
     public void setTypeParameters( List<DefaultJavaTypeVariable<JavaClass>> typeParameters )
     {
-        this.typeParameters = typeParameters;
+        this.typeParameters = FrozenList.of( typeParameters );
     }
 
     public void addField( JavaField javaField )
     {
+        fields = FrozenList.thaw( fields );
         fields.add( javaField );
+        fieldIndex = null;
     }
 
     /**
@@ -261,6 +379,7 @@ public class DefaultJavaClass
     public void setJavaPackage( JavaPackage javaPackage )
     {
         this.javaPackage = javaPackage;
+        clearQualifiedName();
     }
 
     /** {@inheritDoc} */
@@ -302,9 +421,60 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public String getFullyQualifiedName()
     {
-        return ( getParentClass() != null ? ( getParentClass().getClassNamePrefix() )
-                        : getPackage() != null ? ( getPackage().getName() + "." ) : "" )
-            + getName();
+        return getQualifiedName().value;
+    }
+
+    private QualifiedName getQualifiedName()
+    {
+        QualifiedName result = qualifiedName;
+        if ( result == null )
+        {
+            JavaClass parentClass = getParentClass();
+            JavaPackage pckg = ( parentClass == null ? getPackage() : null );
+            String fullyQualifiedName = ( parentClass != null ? ( parentClass.getClassNamePrefix() )
+                            : pckg != null ? ( pckg.getName() + "." ) : "" )
+                + getName();
+            result = new QualifiedName( fullyQualifiedName );
+            qualifiedName = result;
+        }
+        return result;
+    }
+
+    // the name, parent class or package of this class has changed, so has the name of its nested classes
+    void clearQualifiedName()
+    {
+        qualifiedName = null;
+        if ( classes != null )
+        {
+            for ( JavaClass nestedClass : classes )
+            {
+                if ( nestedClass instanceof DefaultJavaClass )
+                {
+                    ( (DefaultJavaClass) nestedClass ).clearQualifiedName();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setName( String name )
+    {
+        super.setName( name );
+        clearQualifiedName();
+    }
+
+    @Override
+    public void setParentClass( JavaClass parentClass )
+    {
+        super.setParentClass( parentClass );
+        clearQualifiedName();
+    }
+
+    @Override
+    public void setSource( JavaSource source )
+    {
+        super.setSource( source );
+        clearQualifiedName();
     }
 
     /** {@inheritDoc} */
@@ -316,7 +486,7 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public String getCanonicalName()
     {
-        return getFullyQualifiedName().replace( '$', '.' );
+        return getQualifiedName().canonicalName;
     }
 
     /** {@inheritDoc} */
@@ -402,7 +572,7 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public List<JavaConstructor> getConstructors()
     {
-        return constructors;
+        return FrozenList.view( constructors );
     }
 
     /** {@inheritDoc} */
@@ -427,7 +597,7 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public List<JavaMethod> getMethods()
     {
-        return methods;
+        return FrozenList.view( methods );
     }
 
     /** {@inheritDoc} */
@@ -435,7 +605,7 @@ public class DefaultJavaClass
     {
         if ( superclasses )
         {
-            return new LinkedList<JavaMethod>( getMethodsFromSuperclassAndInterfaces( this, this ).values() );
+            return new LinkedList<JavaMethod>( getInheritedMethods() );
         }
         else
         {
@@ -443,6 +613,22 @@ public class DefaultJavaClass
         }
     }
 
+    // the list is built once, until the methods of the class or its supertypes change or the library changes
+    private List<JavaMethod> getInheritedMethods()
+    {
+        int modificationCount = getModificationCount();
+        LibraryCache<List<JavaMethod>> result = inheritedMethods;
+        if ( result == null || result.modificationCount != modificationCount )
+        {
+            List<JavaMethod> methodList =
+                new ArrayList<JavaMethod>( getMethodsFromSuperclassAndInterfaces( this, this ).values() );
+            methodList = Collections.unmodifiableList( methodList );
+            result = new LibraryCache<List<JavaMethod>>( modificationCount, methodList );
+            inheritedMethods = result;
+        }
+        return result.value;
+    }
+
     private static Map<String, JavaMethod> getMethodsFromSuperclassAndInterfaces( JavaClass rootClass,
                                                                                   JavaClass callingClazz )
     {
@@ -458,6 +644,41 @@ public class DefaultJavaClass
             }
         }
 
+        // only the methods of callingClazz itself depend on the rootClass
+        DefaultJavaClass realClass = toDefaultJavaClass( callingClazz );
+        Map<String, JavaMethod> supertypeMethods =
+            ( realClass != null ? realClass.getSupertypeMethods() : collectSupertypeMethods( callingClazz ) );
+        for ( Map.Entry<String, JavaMethod> methodEntry : supertypeMethods.entrySet() )
+        {
+            if ( !result.containsKey( methodEntry.getKey() ) )
+            {
+                result.put( methodEntry.getKey(), methodEntry.getValue() );
+            }
+        }
+        return result;
+    }
+
+    private Map<String, JavaMethod> getSupertypeMethods()
+    {
+        int modificationCount = getModificationCount();
+        LibraryCache<Map<String, JavaMethod>> result = supertypeMethods;
+        if ( result == null || result.modificationCount != modificationCount )
+        {
+            result = new LibraryCache<Map<String, JavaMethod>>( modificationCount, collectSupertypeMethods( this ) );
+            supertypeMethods = result;
+            dependOn( getSuperJavaClass() );
+            for ( JavaClass intrfc : getImplementedInterfaces() )
+            {
+                dependOn( intrfc );
+            }
+        }
+        return result.value;
+    }
+
+    private static Map<String, JavaMethod> collectSupertypeMethods( JavaClass callingClazz )
+    {
+        Map<String, JavaMethod> result = new LinkedHashMap<String, JavaMethod>();
+
         JavaClass superclass = callingClazz.getSuperJavaClass();
         if ( superclass != null )
         {
@@ -488,6 +709,17 @@ public class DefaultJavaClass
         return result;
     }
 
+    // the class behind a type, otherwise null
+    private static DefaultJavaClass toDefaultJavaClass( JavaClass javaClass )
+    {
+        JavaClass result = javaClass;
+        if ( result instanceof DefaultJavaType )
+        {
+            result = ( (DefaultJavaType) result ).resolveRealClass();
+        }
+        return ( result instanceof DefaultJavaClass ? (DefaultJavaClass) result : null );
+    }
+
     /** {@inheritDoc} */
     public JavaMethod getMethodBySignature( String name, List<JavaType> parameterTypes )
     {
@@ -497,7 +729,19 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public JavaMethod getMethod( String name, List<JavaType> parameterTypes, boolean varArgs )
     {
-        for ( JavaMethod method : getMethods() )
+        NameIndex<JavaMethod> index = methodIndex;
+        if ( index == null || !index.isCurrent( methods, 0 ) )
+        {
+            index = new NameIndex<JavaMethod>( methods.size(), 0 );
+            for ( JavaMethod method : methods )
+            {
+                // only DefaultJavaMethod is known to match on its name
+                index.add( method instanceof DefaultJavaMethod ? method.getName() : null, method );
+            }
+            methodIndex = index;
+        }
+        List<JavaMethod> candidates = ( index.get( null ).isEmpty() ? index.get( name ) : methods );
+        for ( JavaMethod method : candidates )
         {
             if ( method.signatureMatches( name, parameterTypes, varArgs ) )
             {
@@ -517,10 +761,34 @@ public class DefaultJavaClass
     public JavaMethod getMethodBySignature( String name, List<JavaType> parameterTypes, boolean superclasses,
                                             boolean varArg )
     {
-
-        List<JavaMethod> result = getMethodsBySignature( name, parameterTypes, superclasses, varArg );
-
-        return ( result.size() > 0 ) ? result.get( 0 ) : null;
+        // the first method of getMethodsBySignature(), without collecting the others
+        JavaMethod result = getMethod( name, parameterTypes, varArg );
+        if ( result == null && superclasses )
+        {
+            SignatureTable table = getSignatureTable();
+            if ( table != null )
+            {
+                return table.find( table.getStart( 1 ), table.getEnd(), name, parameterTypes, varArg );
+            }
+            JavaClass superclass = getSuperJavaClass();
+            if ( superclass != null )
+            {
+                JavaMethod method = superclass.getMethodBySignature( name, parameterTypes, true, varArg );
+                if ( ( method != null ) && !method.isPrivate() )
+                {
+                    return new JavaMethodDelegate( this, method );
+                }
+            }
+            for ( JavaClass clazz : getImplementedInterfaces() )
+            {
+                JavaMethod method = clazz.getMethodBySignature( name, parameterTypes, true, varArg );
+                if ( method != null )
+                {
+                    return new JavaMethodDelegate( this, method );
+                }
+            }
+        }
+        return result;
     }
 
     /** {@inheritDoc} */
@@ -544,6 +812,21 @@ public class DefaultJavaClass
 
         if ( superclasses )
         {
+            SignatureTable table = getSignatureTable();
+            if ( table != null )
+            {
+                for ( int part = 1; part < table.getPartCount(); part++ )
+                {
+                    JavaMethod method =
+                        table.find( table.getStart( part ), table.getStart( part + 1 ), name, parameterTypes, varArg );
+                    if ( method != null )
+                    {
+                        result.add( method );
+                    }
+                }
+                return result;
+            }
+
             JavaClass superclass = getSuperJavaClass();
 
             if ( superclass != null )
@@ -570,23 +853,52 @@ public class DefaultJavaClass
         return result;
     }
 
+    // the table is built once, until a method is added, the supertypes change or the library changes
+    private SignatureTable getSignatureTable()
+    {
+        int modificationCount = getModificationCount();
+        LibraryCache<SignatureTable> result = signatureTable;
+        if ( result == null || result.modificationCount != modificationCount )
+        {
+            Map<DefaultJavaClass, DefaultJavaClass> inProgress = SIGNATURE_TABLES_IN_PROGRESS.get();
+            if ( inProgress.put( this, this ) != null )
+            {
+                // this class extends itself
+                return null;
+            }
+            try
+            {
+                result = new LibraryCache<SignatureTable>( modificationCount, SignatureTable.build( this ) );
+            }
+            finally
+            {
+                inProgress.remove( this );
+            }
+            signatureTable = result;
+        }
+        return result.value;
+    }
+
     /** {@inheritDoc} */
     public List<JavaField> getFields()
     {
-        return fields;
+        return FrozenList.view( fields );
     }
 
     /** {@inheritDoc} */
     public JavaField getFieldByName( String name )
     {
-        for ( JavaField field : getFields() )
+        NameIndex<JavaField> index = fieldIndex;
+        if ( index == null || !index.isCurrent( fields, 0 ) )
         {
-            if ( field.getName().equals( name ) )
+            index = new NameIndex<JavaField>( fields.size(), 0 );
+            for ( JavaField field : fields )
             {
-                return field;
+                index.add( field.getName(), field );
             }
+            fieldIndex = index;
         }
-        return null;
+        return index.getFirst( name );
     }
 
     /** {@inheritDoc} */
@@ -610,12 +922,18 @@ public class DefaultJavaClass
     public JavaField getEnumConstantByName( String name )
     {
         JavaField field = getFieldByName( name );
-        return field.isEnumConstant() ? field : null;
+        return ( field != null && field.isEnumConstant() ) ? field : null;
     }
 
     public void addClass( JavaClass cls )
     {
+        classes = FrozenList.thaw( classes );
         classes.add( cls );
+        nestedClassIndex = null;
+        if ( getSource() instanceof DefaultJavaSource )
+        {
+            ( (DefaultJavaSource) getSource() ).clearClassIndex();
+        }
     }
 
     /**
@@ -629,7 +947,7 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public List<JavaClass> getNestedClasses()
     {
-        return classes;
+        return FrozenList.view( classes );
     }
 
     /** {@inheritDoc} */
@@ -649,21 +967,22 @@ public class DefaultJavaClass
     {
         int separatorIndex = name.indexOf( '.' );
         String directInnerClassName = ( separatorIndex > 0 ? name.substring( 0, separatorIndex ) : name );
-        for ( JavaClass jClass : getNestedClasses() )
+        NameIndex<JavaClass> index = nestedClassIndex;
+        if ( index == null || !index.isCurrent( classes, 0 ) )
         {
-            if ( jClass.getName().equals( directInnerClassName ) )
+            index = new NameIndex<JavaClass>( classes.size(), 0 );
+            for ( JavaClass jClass : classes )
             {
-                if ( separatorIndex > 0 )
-                {
-                    return jClass.getNestedClassByName( name.substring( separatorIndex + 1 ) );
-                }
-                else
-                {
-                    return jClass;
-                }
+                index.add( jClass.getName(), jClass );
             }
+            nestedClassIndex = index;
         }
-        return null;
+        JavaClass jClass = index.getFirst( directInnerClassName );
+        if ( jClass != null && separatorIndex > 0 )
+        {
+            return jClass.getNestedClassByName( name.substring( separatorIndex + 1 ) );
+        }
+        return jClass;
     }
 
     /** {@inheritDoc} */
@@ -673,23 +992,7 @@ public class DefaultJavaClass
         {
             return false;
         }
-        if ( fullClassName.equals( getFullyQualifiedName() ) )
-        {
-            return true;
-        }
-        for ( JavaClass implementz : getImplementedInterfaces() )
-        {
-            if ( implementz.isA( fullClassName ) )
-            {
-                return true;
-            }
-        }
-        JavaClass superClass = getSuperJavaClass();
-        if ( superClass != null )
-        {
-            return superClass.isA( fullClassName );
-        }
-        return false;
+        return getSupertypeNames().contains( fullClassName );
     }
 
     /** {@inheritDoc} */
@@ -699,28 +1002,50 @@ public class DefaultJavaClass
         {
             return true;
         }
-        else if ( this.equals( javaClass ) )
+        else if ( javaClass != null )
         {
-            return true;
+            return getSupertypeNames().contains( javaClass.getFullyQualifiedName() );
         }
-        else if ( javaClass != null )
+        return false;
+    }
+
+    // the names are collected once, until the library changes
+    private Set<String> getSupertypeNames()
+    {
+        int modificationCount = getModificationCount();
+        LibraryCache<Set<String>> result = supertypeNames;
+        if ( result == null || result.modificationCount != modificationCount )
         {
-            // ask our interfaces
-            for ( JavaClass intrfc : getImplementedInterfaces() )
-            {
-                if ( intrfc.isA( javaClass ) )
-                {
-                    return true;
-                }
-            }
-            // ask our superclass
-            JavaClass superClass = getSuperJavaClass();
-            if ( superClass != null )
+            Set<String> names = new HashSet<String>();
+            names.add( getFullyQualifiedName() );
+            collectSupertypeNames( this, names );
+            result = new LibraryCache<Set<String>>( modificationCount, names );
+            supertypeNames = result;
+        }
+        return result.value;
+    }
+
+    private static void collectSupertypeNames( JavaClass javaClass, Set<String> names )
+    {
+        for ( JavaClass intrfc : javaClass.getImplementedInterfaces() )
+        {
+            if ( names.add( intrfc.getFullyQualifiedName() ) )
             {
-                return superClass.isA( javaClass );
+                collectSupertypeNames( intrfc, names );
             }
         }
-        return false;
+        JavaClass superClass = javaClass.getSuperJavaClass();
+        if ( superClass != null && names.add( superClass.getFullyQualifiedName() ) )
+        {
+            collectSupertypeNames( superClass, names );
+        }
+    }
+
+    private int getModificationCount()
+    {
+        JavaSource source = getSource();
+        ClassLibrary classLibrary = ( source != null ? source.getJavaClassLibrary() : null );
+        return ( classLibrary != null ? classLibrary.getModificationCount() : 0 );
     }
 
     /** {@inheritDoc} */
@@ -732,10 +1057,29 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public List<BeanProperty> getBeanProperties( boolean superclasses )
     {
-        Map<String, BeanProperty> beanPropertyMap = getBeanPropertyMap( superclasses );
-        Collection<BeanProperty> beanPropertyCollection = beanPropertyMap.values();
+        // a copy, callers are free to change the list
+        return new LinkedList<BeanProperty>( getBeanPropertyTable( superclasses ).properties );
+    }
 
-        return new LinkedList<BeanProperty>( beanPropertyCollection );
+    // the table is built once, until a method is added, the supertypes change or the library changes
+    private BeanPropertyTable getBeanPropertyTable( boolean superclasses )
+    {
+        int modificationCount = getModificationCount();
+        LibraryCache<BeanPropertyTable> result = ( superclasses ? beanProperties : declaredBeanProperties );
+        if ( result == null || result.modificationCount != modificationCount )
+        {
+            result = new LibraryCache<BeanPropertyTable>( modificationCount,
+                                                          new BeanPropertyTable( getBeanPropertyMap( superclasses ) ) );
+            if ( superclasses )
+            {
+                beanProperties = result;
+            }
+            else
+            {
+                declaredBeanProperties = result;
+            }
+        }
+        return result.value;
     }
 
     private Map<String, BeanProperty> getBeanPropertyMap( boolean superclasses )
@@ -789,21 +1133,19 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public BeanProperty getBeanProperty( String propertyName, boolean superclasses )
     {
-        return getBeanPropertyMap( superclasses ).get( propertyName );
+        return getBeanPropertyTable( superclasses ).propertiesByName.get( propertyName );
     }
 
     /** {@inheritDoc} */
     public List<JavaClass> getDerivedClasses()
     {
-        List<JavaClass> result = new LinkedList<JavaClass>();
-        for ( JavaClass clazz : getSource().getJavaClassLibrary().getJavaClasses() )
-        {
-            if ( clazz.isA( this ) && !( clazz == this ) )
-            {
-                result.add( clazz );
-            }
-        }
-        return result;
+        return getSource().getJavaClassLibrary().getDerivedClasses( this, true );
+    }
+
+    /** {@inheritDoc} */
+    public List<JavaClass> getDirectDerivedClasses()
+    {
+        return getSource().getJavaClassLibrary().getDerivedClasses( this, false );
     }
 
     /** {@inheritDoc} */
@@ -815,31 +1157,37 @@ public class DefaultJavaClass
     /** {@inheritDoc} */
     public List<DocletTag> getTagsByName( String name, boolean superclasses )
     {
-        return getTagsRecursive( this, name, superclasses );
+        if ( !superclasses )
+        {
+            return getTagsByName( name );
+        }
+        Set<DocletTag> result = new LinkedHashSet<DocletTag>();
+        collectTags( this, name, result, new IdentityHashMap<JavaClass, JavaClass>() );
+        return new LinkedList<DocletTag>( result );
     }
 
-    private List<DocletTag> getTagsRecursive( JavaClass javaClass, String name, boolean superclasses )
+    // the superclass before the interfaces, every supertype only once, even if the hierarchy is cyclic. A binary and
+    // a source class with the same name both contribute, so the classes are compared by identity instead of name
+    private static void collectTags( JavaClass javaClass, String name, Set<DocletTag> result,
+                                     Map<JavaClass, JavaClass> visited )
     {
-        Set<DocletTag> result = new LinkedHashSet<DocletTag>();
+        if ( visited.put( javaClass, javaClass ) != null )
+        {
+            return;
+        }
         result.addAll( javaClass.getTagsByName( name ) );
-        if ( superclasses )
+        JavaClass superclass = javaClass.getSuperJavaClass();
+        if ( superclass != null )
         {
-            JavaClass superclass = javaClass.getSuperJavaClass();
-
-            if ( superclass != null )
-            {
-                result.addAll( getTagsRecursive( superclass, name, superclasses ) );
-            }
-
-            for ( JavaClass intrfc : javaClass.getImplementedInterfaces() )
+            collectTags( superclass, name, result, visited );
+        }
+        for ( JavaClass intrfc : javaClass.getImplementedInterfaces() )
+        {
+            if ( intrfc != null )
             {
-                if ( intrfc != null )
-                {
-                    result.addAll( getTagsRecursive( intrfc, name, superclasses ) );
-                }
+                collectTags( intrfc, name, result, visited );
             }
         }
-        return new LinkedList<DocletTag>( result );
     }
 
     /**
@@ -870,7 +1218,7 @@ public class DefaultJavaClass
     @Override
     public int hashCode()
     {
-        return 2 + getFullyQualifiedName().hashCode();
+        return getQualifiedName().hashCode;
     }
 
     // ideally this shouldn't be required, but we must as long as Types can be created without classLibrary
@@ -895,4 +1243,170 @@ public class DefaultJavaClass
         return getSource().getJavaClassLibrary();
     }
 
-}
\ No newline at end of file
+
+    private static final class QualifiedName
+    {
+        private final String value;
+
+        private final String canonicalName;
+
+        private final int hashCode;
+
+        private QualifiedName( String value )
+        {
+            this.value = value;
+            this.canonicalName = value.replace( '$', '.' );
+            this.hashCode = 2 + value.hashCode();
+        }
+    }
+
+    // the bean properties in the order of their first method, and by their name
+    private static final class BeanPropertyTable
+    {
+        private final List<BeanProperty> properties;
+
+        private final Map<String, BeanProperty> propertiesByName;
+
+        private BeanPropertyTable( Map<String, BeanProperty> propertiesByName )
+        {
+            this.properties = Collections.unmodifiableList( new ArrayList<BeanProperty>( propertiesByName.values() ) );
+            this.propertiesByName = propertiesByName;
+        }
+    }
+
+    /**
+     * The methods in the order in which {@link #getMethodBySignature(String, List, boolean, boolean)} searches them:
+     * the methods of the class, then the methods found through its superclass and then those found through every
+     * interface, each supertype in its own part. The methods of a supertype are wrapped the same way as they would be
+     * by the recursive search. A private method found through a superclass is rejected, together with the rest of the
+     * part of that superclass, so every method knows where that part ends.
+     */
+    private static final class SignatureTable
+    {
+        private final List<JavaMethod> methods = new ArrayList<JavaMethod>();
+
+        // per method the end of the superclass part which is skipped if the method is private, otherwise -1
+        private final List<Integer> skipEnds = new ArrayList<Integer>();
+
+        // the start of every part, followed by the end of the last part
+        private final List<Integer> starts = new ArrayList<Integer>();
+
+        private final NameIndex<Integer> positions = new NameIndex<Integer>( 0, 0 );
+
+        // null if a method or supertype isn't a default implementation, then the search has to recurse
+        private static SignatureTable build( DefaultJavaClass javaClass )
+        {
+            SignatureTable result = new SignatureTable();
+            result.starts.add( Integer.valueOf( 0 ) );
+            for ( JavaMethod method : javaClass.getMethods() )
+            {
+                // only DefaultJavaMethod is known to match on its name
+                if ( !( method instanceof DefaultJavaMethod ) )
+                {
+                    return null;
+                }
+                result.add( method, -1 );
+            }
+            result.starts.add( Integer.valueOf( result.methods.size() ) );
+
+            JavaClass superclass = javaClass.getSuperJavaClass();
+            if ( superclass != null && !result.addPart( javaClass, superclass, true ) )
+            {
+                return null;
+            }
+            for ( JavaClass intrfc : javaClass.getImplementedInterfaces() )
+            {
+                if ( !result.addPart( javaClass, intrfc, false ) )
+                {
+                    return null;
+                }
+            }
+            return result;
+        }
+
+        private boolean addPart( DefaultJavaClass javaClass, JavaClass supertype, boolean superclass )
+        {
+            DefaultJavaClass realClass = toDefaultJavaClass( supertype );
+            SignatureTable table = ( realClass != null ? realClass.getSignatureTable() : null );
+            if ( table == null )
+            {
+                return false;
+            }
+            javaClass.dependOn( realClass );
+            int start = methods.size();
+            int end = start + table.methods.size();
+            for ( int index = 0; index < table.methods.size(); index++ )
+            {
+                int skipEnd = table.skipEnds.get( index ).intValue();
+                add( new JavaMethodDelegate( javaClass, table.methods.get( index ) ),
+                     skipEnd >= 0 ? start + skipEnd : ( superclass ? end : -1 ) );
+            }
+            starts.add( Integer.valueOf( end ) );
+            return true;
+        }
+
+        private void add( JavaMethod method, int skipEnd )
+        {
+            positions.add( method.getName(), Integer.valueOf( methods.size() ) );
+            methods.add( method );
+            skipEnds.add( Integer.valueOf( skipEnd ) );
+        }
+
+        int getPartCount()
+        {
+            return starts.size() - 1;
+        }
+
+        int getStart( int part )
+        {
+            return starts.get( part ).intValue();
+        }
+
+        int getEnd()
+        {
+            return methods.size();
+        }
+
+        // the first method between start and end which the recursive search would have returned, otherwise null
+        JavaMethod find( int start, int end, String name, List<JavaType> parameterTypes, boolean varArg )
+        {
+            int skipUntil = start;
+            for ( Integer position : positions.get( name ) )
+            {
+                int index = position.intValue();
+                if ( index >= end )
+                {
+                    break;
+                }
+                if ( index >= skipUntil )
+                {
+                    JavaMethod method = methods.get( index );
+                    if ( method.signatureMatches( name, parameterTypes, varArg ) )
+                    {
+                        int skipEnd = skipEnds.get( index ).intValue();
+                        if ( skipEnd < 0 || !method.isPrivate() )
+                        {
+                            return method;
+                        }
+                        skipUntil = skipEnd;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    // a value derived from the library, valid as long as the modification count of the library hasn't changed
+    private static final class LibraryCache<T>
+    {
+        private final int modificationCount;
+
+        private final T value;
+
+        private LibraryCache( int modificationCount, T value )
+        {
+            this.modificationCount = modificationCount;
+            this.value = value;
+        }
+    }
+}
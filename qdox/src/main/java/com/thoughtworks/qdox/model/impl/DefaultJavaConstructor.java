@@ -23,13 +23,13 @@ public class DefaultJavaConstructor
 
     public void setTypeParameters( List<JavaTypeVariable<JavaConstructor>> typeParameters )
     {
-        this.typeParameters = typeParameters;
+        this.typeParameters = FrozenList.of( typeParameters );
     }
 
     /** {@inheritDoc} */
     public List<JavaTypeVariable<JavaConstructor>> getTypeParameters()
     {
-        return typeParameters;
+        return FrozenList.view( typeParameters );
     }
     
     public boolean signatureMatches( List<JavaType> parameterTypes )
@@ -127,12 +127,12 @@ public class DefaultJavaField
     /** {@inheritDoc} */
     public List<Expression> getEnumConstantArguments()
     {
-        return enumConstantArguments;
+        return FrozenList.view( enumConstantArguments );
     }
     
     public void setEnumConstantArguments( List<Expression> enumConstantArguments )
     {
-        this.enumConstantArguments = enumConstantArguments;
+        this.enumConstantArguments = FrozenList.of( enumConstantArguments );
     }
     
     /** {@inheritDoc} */
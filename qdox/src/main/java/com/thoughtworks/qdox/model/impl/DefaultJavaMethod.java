@@ -69,13 +69,13 @@ public class DefaultJavaMethod extends AbstractBaseMethod implements JavaMethod
     
     public void setTypeParameters( List<JavaTypeVariable<JavaMethod>> typeParameters )
     {
-        this.typeParameters = typeParameters;
+        this.typeParameters = FrozenList.of( typeParameters );
     }
 
     /** {@inheritDoc} */
     public List<JavaTypeVariable<JavaMethod>> getTypeParameters()
     {
-        return typeParameters;
+        return FrozenList.view( typeParameters );
     }
 
     /** {@inheritDoc} */
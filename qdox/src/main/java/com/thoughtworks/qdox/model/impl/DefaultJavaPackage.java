@@ -19,13 +19,14 @@ package com.thoughtworks.qdox.model.impl;
  * under the License.
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 import com.thoughtworks.qdox.library.ClassLibrary;
 import com.thoughtworks.qdox.model.JavaClass;
-import com.thoughtworks.qdox.model.JavaModelUtils;
 import com.thoughtworks.qdox.model.JavaPackage;
 
 /**
@@ -37,7 +38,12 @@ public class DefaultJavaPackage extends AbstractBaseJavaEntity implements JavaPa
 
     private ClassLibrary classLibrary;
 	private String name;
-	private List<JavaClass> classes = new LinkedList<JavaClass>();
+	// guarded by itself, because classes are added while the model is being queried
+	private final List<JavaClass> classes = new ArrayList<JavaClass>();
+	// the read-only copy handed out by getClasses(), null when the classes have changed since
+	private transient volatile List<JavaClass> classesSnapshot;
+	// the libraries change the classes directly, so the index is checked against their modification count
+	private transient volatile NameIndex<JavaClass> classIndex;
 
 	/**
 	 * 
@@ -54,6 +60,7 @@ public class DefaultJavaPackage extends AbstractBaseJavaEntity implements JavaPa
 
 	public void setName(String name) {
 		this.name = name;
+		DefaultJavaSource.clearQualifiedNames( getClassesSnapshot() );
 	}
 
     /** {@inheritDoc} */
@@ -73,14 +80,47 @@ public class DefaultJavaPackage extends AbstractBaseJavaEntity implements JavaPa
     }
 
 	public void addClass(JavaClass clazz) {
-		classes.add(clazz);
+	    synchronized ( classes )
+	    {
+	        classes.add( clazz );
+	        classesSnapshot = null;
+	    }
+		classIndex = null;
 	}
 
-    /** {@inheritDoc} */
+	/**
+	 * Remove this instance of the class, other instances with the same name are kept.
+	 * 
+	 * @param clazz the class to remove
+	 * @since 2.0
+	 */
+	public void removeClass( JavaClass clazz )
+	{
+	    synchronized ( classes )
+	    {
+	        for ( int index = classes.size() - 1; index >= 0; index-- )
+	        {
+	            if ( classes.get( index ) == clazz )
+	            {
+	                classes.remove( index );
+	            }
+	        }
+	        classesSnapshot = null;
+	    }
+	    classIndex = null;
+	}
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The result is a read-only copy, use {@link #addClass(JavaClass)} and {@link #removeClass(JavaClass)} to change
+     * the classes.
+     * </p>
+     */
 	public Collection<JavaClass> getClasses() {
 	    //avoid infinitive  recursion
 	    if (this == classLibrary.getJavaPackage( name )) {
-	        return classes;
+	        return getClassesSnapshot();
 	    }
 	    else {
 	        return classLibrary.getJavaPackage( name ).getClasses();
@@ -90,20 +130,36 @@ public class DefaultJavaPackage extends AbstractBaseJavaEntity implements JavaPa
     /** {@inheritDoc} */
 	public JavaClass getClassByName(String name) 
     {
-        JavaClass result = null;
-        
-        for ( JavaClass candidateCls : classes )
+        int modificationCount = ( classLibrary != null ? classLibrary.getModificationCount() : 0 );
+        NameIndex<JavaClass> index = classIndex;
+        List<JavaClass> snapshot = getClassesSnapshot();
+        if ( index == null || !index.isCurrent( snapshot, modificationCount ) )
         {
-            result = JavaModelUtils.getClassByName( candidateCls, name );
-            if ( result != null ) 
+            index = new NameIndex<JavaClass>( snapshot.size(), modificationCount );
+            for ( JavaClass candidateCls : snapshot )
             {
-                result = candidateCls;
-                break;
+                DefaultJavaSource.indexClass( index, candidateCls, candidateCls );
             }
+            classIndex = index;
         }
-        return result;
+        return index.getFirst( name );
     }
 	
+    // copied once after every change, so a large package is registered in linear time
+    private List<JavaClass> getClassesSnapshot()
+    {
+        List<JavaClass> result = classesSnapshot;
+        if ( result == null )
+        {
+            synchronized ( classes )
+            {
+                result = Collections.unmodifiableList( new ArrayList<JavaClass>( classes ) );
+                classesSnapshot = result;
+            }
+        }
+        return result;
+    }
+
     /** {@inheritDoc} */
     public JavaPackage getParentPackage()
     {
@@ -62,12 +62,12 @@ public class DefaultJavaParameterizedType extends DefaultJavaType implements Jav
      */
     public List<JavaType> getActualTypeArguments()
     {
-        return actualArgumentTypes;
+        return FrozenList.view( actualArgumentTypes );
     }
     
     public void setActualArgumentTypes( List<JavaType> actualArgumentTypes )
     {
-        this.actualArgumentTypes = actualArgumentTypes;
+        this.actualArgumentTypes = FrozenList.of( actualArgumentTypes );
     }
     
     /**
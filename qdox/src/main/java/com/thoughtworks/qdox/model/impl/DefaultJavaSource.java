@@ -21,14 +21,17 @@ package com.thoughtworks.qdox.model.impl;
 
 import java.io.Serializable;
 import java.net.URL;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.thoughtworks.qdox.builder.SymbolTable;
 import com.thoughtworks.qdox.library.ClassLibrary;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaModelUtils;
@@ -40,7 +43,8 @@ import com.thoughtworks.qdox.writer.impl.DefaultModelWriter;
 
 public class DefaultJavaSource implements JavaSource, Serializable {
 
-    private static final Set<String> PRIMITIVE_TYPES = new HashSet<String>();
+    // also used by the types and classes to answer isPrimitive()
+    static final Set<String> PRIMITIVE_TYPES = new HashSet<String>();
 
     static {
         PRIMITIVE_TYPES.add("boolean");
@@ -58,10 +62,19 @@ public class DefaultJavaSource implements JavaSource, Serializable {
     private ModelWriterFactory modelWriterFactory;
     
     private JavaPackage pkg;
-    private List<String> imports = new LinkedList<String>();
-    private List<JavaClass> classes = new LinkedList<JavaClass>();
-    private Map<String, String> resolvedTypeCache = new HashMap<String, String>();
+    // ArrayLists while the source is being built, FrozenLists once it has been compacted
+    private List<String> imports = new ArrayList<String>();
+    private List<JavaClass> classes = new ArrayList<JavaClass>();
+    private Map<String, String> resolvedTypeCache = new ConcurrentHashMap<String, String>();
+    // import tables, built from the imports on the first lookup
+    private transient volatile Set<String> importSet;
+    private transient Map<String, String> singleTypeImports;
+    private transient List<String> onDemandImports;
+    // the top level classes by their name, all classes by their name and fully qualified name
+    private transient volatile NameIndex<JavaClass> nestedClassIndex;
+    private transient volatile NameIndex<JavaClass> classIndex;
     private URL url;
+    private transient SymbolTable symbolTable;
 
     /**
      * Default constructor for the Default JavaSource 
@@ -73,6 +86,15 @@ public class DefaultJavaSource implements JavaSource, Serializable {
         this.classLibrary = classLibrary;
     }
 
+    /**
+     * @param symbolTable the table to canonicalize the resolved type names with, may be <code>null</code>
+     * @since 2.0
+     */
+    public void setSymbolTable( SymbolTable symbolTable )
+    {
+        this.symbolTable = symbolTable;
+    }
+
     /**
      * @since 1.4
      */
@@ -92,24 +114,56 @@ public class DefaultJavaSource implements JavaSource, Serializable {
 
     public void setPackage(JavaPackage pkg) {
         this.pkg = pkg;
+        clearQualifiedNames( classes );
+    }
+
+    // the classes cache their fully qualified name, which includes the package
+    static void clearQualifiedNames( List<JavaClass> classes ) {
+        for ( JavaClass cls : classes ) {
+            if ( cls instanceof DefaultJavaClass ) {
+                ( (DefaultJavaClass) cls ).clearQualifiedName();
+            }
+        }
     }
 
     public void addImport(String imp) {
+        imports = FrozenList.thaw( imports );
         imports.add(imp);
+        importSet = null;
     }
 
     /**  {@inheritDoc} */
     public List<String> getImports() {
-        return imports;
+        return FrozenList.view( imports );
+    }
+
+    /**
+     * Replace the lists by right-sized immutable ones, called by {@link ModelCompactor}.
+     */
+    void compact()
+    {
+        imports = FrozenList.of( imports );
+        classes = FrozenList.of( classes );
     }
 
     public void addClass(JavaClass cls) {
+        classes = FrozenList.thaw( classes );
         classes.add(cls);
+        clearClassIndex();
+    }
+
+    /**
+     * Called when a class has been added to this source or to one of its classes.
+     */
+    void clearClassIndex()
+    {
+        nestedClassIndex = null;
+        classIndex = null;
     }
 
     /** {@inheritDoc} */
     public List<JavaClass> getClasses() {
-      return Collections.unmodifiableList( classes );
+      return FrozenList.view( classes );
     }
 
     /** {@inheritDoc} */
@@ -137,12 +191,69 @@ public class DefaultJavaSource implements JavaSource, Serializable {
             result = resolveTypeInternal( name );
             if ( result != null )
             {
+                if ( symbolTable != null )
+                {
+                    result = symbolTable.intern( result );
+                }
                 resolvedTypeCache.put( name, result );
             }
         }
         return result;
     }
     
+    /**
+     * Forget the names which have been resolved by this source. Should be called when classes have been added to or
+     * removed from the library, because a name might resolve to another class now.
+     * 
+     * @since 2.0
+     */
+    public void clearResolvedTypes()
+    {
+        resolvedTypeCache.clear();
+    }
+
+    /**
+     * Whether a name of this source might resolve to another class, now that these classes have been added to or
+     * removed from the library. That's the case if one of them is in the same package or in <code>java.lang</code>,
+     * if it is covered by an import, or if a name has been resolved to it.
+     * 
+     * @param changedClasses the classes which have been added or removed, including their nested classes
+     * @return <code>true</code> if the resolved names of this source should be cleared
+     * @since 2.0
+     */
+    public boolean canSeeAny( Collection<JavaClass> changedClasses )
+    {
+        Set<String> changedNames = new HashSet<String>();
+        for ( JavaClass cls : changedClasses )
+        {
+            String packageName = cls.getPackageName();
+            if ( packageName.equals( getPackageName() ) || "java.lang".equals( packageName ) )
+            {
+                return true;
+            }
+            String canonicalName = cls.getCanonicalName();
+            for ( String imp : imports )
+            {
+                String importName = ( imp.startsWith( "static " ) ? imp.substring( 7 ) : imp );
+                String prefix = ( importName.endsWith( ".*" ) ? importName.substring( 0, importName.length() - 1 )
+                                : importName + '.' );
+                if ( canonicalName.equals( importName ) || canonicalName.startsWith( prefix ) )
+                {
+                    return true;
+                }
+            }
+            changedNames.add( cls.getFullyQualifiedName() );
+        }
+        for ( String resolvedName : resolvedTypeCache.values() )
+        {
+            if ( changedNames.contains( resolvedName ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**  {@inheritDoc} */
     public String resolveCanonicalName( String name )
     {
@@ -193,19 +304,29 @@ public class DefaultJavaSource implements JavaSource, Serializable {
                 outerName = typeName.substring( 0, dotpos );
             }
 
-            // Check single-type-import with fully qualified name
-            resolvedName = resolveImportedType( typeName, nestedName, true );
+            buildImportTables();
 
-            if ( resolvedName != null )
+            // Check single-type-import with fully qualified name, which might contain the names of outer classes
+            if ( importSet.contains( typeName ) )
             {
+                resolvedName = resolveFullyQualifiedType( typeName );
+                if ( resolvedName == null )
+                {
+                    resolvedName = typeName;
+                }
                 break lookup;
             }
 
             // Check single-type-import with outer name
-            resolvedName = resolveImportedType( outerName, nestedName, false );
-
-            if ( resolvedName != null )
+            String importPrefix = singleTypeImports.get( outerName );
+            if ( importPrefix != null )
             {
+                String candidateName = importPrefix + nestedName;
+                resolvedName = resolveFullyQualifiedType( candidateName );
+                if ( resolvedName == null )
+                {
+                    resolvedName = candidateName;
+                }
                 break lookup;
             }
 
@@ -243,47 +364,57 @@ public class DefaultJavaSource implements JavaSource, Serializable {
             }
 
             // Check type-import-on-demand
-            resolvedName = resolveImportedType( "*", nestedName, false );
-
-            if ( resolvedName != null )
+            for ( String packagePrefix : onDemandImports )
             {
-                break lookup;
+                resolvedName = resolveFullyQualifiedType( packagePrefix + nestedName );
+                if ( resolvedName != null )
+                {
+                    break lookup;
+                }
             }
         }
 
         return resolvedName;
     }
     
-    private String resolveImportedType( String importSpec, String typeName, boolean fullMatch )
+    /**
+     * Split the imports into the names of the single-type-imports, their simple names mapped to the prefix of the
+     * import and the prefixes of the type-imports-on-demand. For a simple name only the first import counts.
+     */
+    private void buildImportTables()
     {
-        String resolvedName = null;
-        String dotSuffix = "." + importSpec;
-
-        for ( String imprt : getImports() )
+        if ( importSet != null )
+        {
+            return;
+        }
+        Set<String> names = new HashSet<String>();
+        Map<String, String> singleTypes = new HashMap<String, String>();
+        List<String> onDemand = new LinkedList<String>();
+        for ( String imprt : imports )
         {
             // static imports can refer to inner classes
             if ( imprt.startsWith( "static " ) )
             {
                 imprt = imprt.substring( 7 );
             }
-            if ( imprt.equals( importSpec ) || ( !fullMatch && imprt.endsWith( dotSuffix ) ) )
+            names.add( imprt );
+            int dotpos = imprt.lastIndexOf( '.' );
+            String simpleName = imprt.substring( dotpos + 1 );
+            String prefix = imprt.substring( 0, dotpos + 1 );
+            if ( "*".equals( simpleName ) )
             {
-                String candidateName = imprt.substring( 0, imprt.length() - importSpec.length() ) + typeName;
-                resolvedName = resolveFullyQualifiedType( candidateName );
-                if ( resolvedName == null && !"*".equals( importSpec ) )
-                {
-                    resolvedName = candidateName;
-                }
-                if ( resolvedName != null )
-                {
-                    break;
-                }
+                onDemand.add( prefix );
+            }
+            else if ( !singleTypes.containsKey( simpleName ) )
+            {
+                singleTypes.put( simpleName, prefix );
             }
         }
-
-        return resolvedName;
+        singleTypeImports = singleTypes;
+        onDemandImports = onDemand;
+        importSet = names;
     }
-    
+
     private String resolveFromLibrary(String typeName) {
         return classLibrary.hasClassReference( typeName ) ? typeName : null;
     }
@@ -319,31 +450,52 @@ public class DefaultJavaSource implements JavaSource, Serializable {
     
     /**  {@inheritDoc} */
     public JavaClass getNestedClassByName(String name) {
-        JavaClass result = null;
-        
-        for (JavaClass candidateCls : classes) {
-            if (candidateCls.getName().equals(name)) {
-                result = candidateCls;
-                break;
+        NameIndex<JavaClass> index = nestedClassIndex;
+        if ( index == null )
+        {
+            index = new NameIndex<JavaClass>( classes.size(), 0 );
+            for ( JavaClass candidateCls : classes )
+            {
+                index.add( candidateCls.getName(), candidateCls );
             }
+            nestedClassIndex = index;
         }
-        return result;
+        return index.getFirst( name );
     }
     
     /**  {@inheritDoc} */
     public JavaClass getClassByName(String name) 
     {
-        JavaClass result = null;
-        
-        for ( JavaClass candidateCls : classes )
+        NameIndex<JavaClass> index = classIndex;
+        if ( index == null )
         {
-            result = JavaModelUtils.getClassByName( candidateCls, name );
-            if ( result != null ) 
+            index = new NameIndex<JavaClass>( classes.size(), 0 );
+            for ( JavaClass candidateCls : classes )
             {
-                break;
+                indexClass( index, candidateCls, null );
             }
+            classIndex = index;
+        }
+        return index.getFirst( name );
+    }
+
+    /**
+     * Add the class and its nested classes in the order in which {@link JavaModelUtils#getClassByName(JavaClass,
+     * String)} visits them, so the first match is the same.
+     * 
+     * @param index the index to add to
+     * @param cls the class to add
+     * @param topLevelClass the class to return for any match, <code>null</code> to return the matching class itself
+     */
+    static void indexClass( NameIndex<JavaClass> index, JavaClass cls, JavaClass topLevelClass )
+    {
+        JavaClass result = ( topLevelClass != null ? topLevelClass : cls );
+        index.add( cls.getFullyQualifiedName(), result );
+        index.add( cls.getName(), result );
+        for ( JavaClass innerCls : cls.getNestedClasses() )
+        {
+            indexClass( index, innerCls, topLevelClass );
         }
-        return result;
     }
     
     /**  {@inheritDoc} */
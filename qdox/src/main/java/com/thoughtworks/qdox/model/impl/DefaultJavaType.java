@@ -46,7 +46,11 @@ public class DefaultJavaType implements JavaClass, JavaType, Serializable {
 
     protected final String name;
     private JavaClassParent context;
-    protected String fullName;
+    // resolved lazily, volatile to publish it safely to other threads
+    protected volatile String fullName;
+    // derived from fullName, so only cached once the type has been resolved
+    private transient volatile String fullyQualifiedName;
+    private transient volatile String value;
     private int dimensions;
     
     public DefaultJavaType( String name, JavaClassParent context )
@@ -86,12 +90,27 @@ public class DefaultJavaType implements JavaClass, JavaType, Serializable {
     
     /** {@inheritDoc} */
     public String getFullyQualifiedName() {
-        StringBuffer result = new StringBuffer( isResolved() ? fullName : name );
-        for (int i = 0; i < dimensions; i++) 
+        String cached = fullyQualifiedName;
+        if ( cached != null )
         {
-            result.append("[]");
+            return cached;
         }
-        return result.toString();
+        boolean resolved = isResolved();
+        String result = resolved ? fullName : name;
+        if ( dimensions > 0 && result != null )
+        {
+            StringBuilder sb = new StringBuilder( result.length() + 2 * dimensions ).append( result );
+            for (int i = 0; i < dimensions; i++) 
+            {
+                sb.append("[]");
+            }
+            result = sb.toString();
+        }
+        if ( resolved )
+        {
+            fullyQualifiedName = result;
+        }
+        return result;
     }
 
     /**
@@ -106,7 +125,20 @@ public class DefaultJavaType implements JavaClass, JavaType, Serializable {
     
     /** {@inheritDoc}*/
     public String getValue() {
-        return ( name != null ?  name : getFullyQualifiedName().replaceAll( "\\$", "." ) );
+        if ( name != null )
+        {
+            return name;
+        }
+        String result = value;
+        if ( result == null )
+        {
+            result = getFullyQualifiedName().replace( '$', '.' );
+            if ( fullName != null )
+            {
+                value = result;
+            }
+        }
+        return result;
     }
     
     /**
@@ -192,6 +224,20 @@ public class DefaultJavaType implements JavaClass, JavaType, Serializable {
         return result;
     }
 
+    /**
+     * Forget the resolved name, if it can be resolved again from the name in the source, so the next lookup follows the
+     * classes which have been added to or removed from the library since.
+     */
+    void clearResolvedName()
+    {
+        if ( name != null && context != null )
+        {
+            fullName = null;
+            fullyQualifiedName = null;
+            value = null;
+        }
+    }
+
     protected boolean isResolved()
     {
         if ( fullName == null && context != null )
@@ -267,7 +313,7 @@ public class DefaultJavaType implements JavaClass, JavaType, Serializable {
         return getFullyQualifiedName().hashCode();
     }
     
-    private JavaClass resolveRealClass() 
+    JavaClass resolveRealClass() 
     {
         JavaClass result;
         String qualifiedName = isResolved() ? fullName : name;
@@ -321,16 +367,7 @@ public class DefaultJavaType implements JavaClass, JavaType, Serializable {
     
     private static boolean isPrimitive( String value )
     {
-        return "void".equals(value)           
-        || "boolean".equals(value)
-        || "byte".equals(value)
-        || "char".equals(value)
-        || "short".equals(value)
-        || "int".equals(value)
-        || "long".equals(value)
-        || "float".equals(value)
-        || "double".equals(value);
-        
+        return DefaultJavaSource.PRIMITIVE_TYPES.contains( value );
     }
 
     /**
@@ -858,6 +895,12 @@ public class DefaultJavaType implements JavaClass, JavaType, Serializable {
     {
         return resolveRealClass().getDerivedClasses();
     }
+
+    /** {@inheritDoc} */
+    public List<JavaClass> getDirectDerivedClasses()
+    {
+        return resolveRealClass().getDirectDerivedClasses();
+    }
     
     /** {@inheritDoc} */
     public List<DocletTag> getTagsByName( String name, boolean superclasses )
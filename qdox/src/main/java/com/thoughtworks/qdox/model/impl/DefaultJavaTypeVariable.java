@@ -76,7 +76,7 @@ public class DefaultJavaTypeVariable<D extends JavaGenericDeclaration>
      */
     public List<JavaType> getBounds()
     {
-        return bounds;
+        return FrozenList.view( bounds );
     }
 
     /**
@@ -84,7 +84,7 @@ public class DefaultJavaTypeVariable<D extends JavaGenericDeclaration>
      */
     public void setBounds( List<JavaType> bounds )
     {
-        this.bounds = bounds;
+        this.bounds = FrozenList.of( bounds );
     }
     
     public D getGenericDeclaration()
@@ -54,6 +54,24 @@ public class DefaultJavaWildcardType extends DefaultJavaType
         this.boundType = boundType;
     }
 
+    /**
+     * @return the kind of bound, <code>null</code> for an unbounded wildcard
+     * @since 2.0
+     */
+    public BoundType getBoundType()
+    {
+        return boundType;
+    }
+
+    /**
+     * @return the bounds, never <code>null</code>
+     * @since 2.0
+     */
+    public List<JavaType> getBounds()
+    {
+        return bounds;
+    }
+
     public String getFullyQualifiedName()
     {
         StringBuilder builder = getPreparedStringBuilder();
@@ -0,0 +1,231 @@
+package com.thoughtworks.qdox.model.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Serializable;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.thoughtworks.qdox.builder.CommentBuilder;
+import com.thoughtworks.qdox.builder.SymbolTable;
+import com.thoughtworks.qdox.library.ErrorHandler;
+import com.thoughtworks.qdox.model.DocletTag;
+import com.thoughtworks.qdox.model.DocletTagFactory;
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
+import com.thoughtworks.qdox.parser.ParseException;
+import com.thoughtworks.qdox.parser.impl.DefaultJavaCommentLexer;
+import com.thoughtworks.qdox.parser.impl.DefaultJavaCommentParser;
+import com.thoughtworks.qdox.parser.structs.TagDef;
+
+/**
+ * The unparsed javadoc of an entity. Most javadoc is never requested, so the comment parser is only started when the
+ * comment or the tags of the entity are requested for the first time.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public class DeferredJavaDoc
+    implements Serializable
+{
+    private final DocletTagFactory docletTagFactory;
+
+    private final transient SymbolTable symbolTable;
+
+    private final URL url;
+
+    private final transient ErrorHandler errorHandler;
+
+    private final List<Comment> comments = new LinkedList<Comment>();
+
+    private String description;
+
+    private List<DocletTag> tags;
+
+    // set when the entity got a description or tags of its own, which replace those of the javadoc
+    private boolean descriptionDiscarded;
+
+    private boolean tagsDiscarded;
+
+    /**
+     * @param docletTagFactory the factory for the tags
+     * @param symbolTable the table to canonicalize the tag names with, may be <code>null</code>
+     * @param url the location of the source, may be <code>null</code>
+     * @param errorHandler the handler for a malformed javadoc, may be <code>null</code>
+     */
+    public DeferredJavaDoc( DocletTagFactory docletTagFactory, SymbolTable symbolTable, URL url,
+                            ErrorHandler errorHandler )
+    {
+        this.docletTagFactory = docletTagFactory;
+        this.symbolTable = symbolTable;
+        this.url = url;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Add a javadoc comment. If an entity is preceded by more than one comment, the description of the last one is used
+     * and the tags of all of them are collected.
+     * 
+     * @param comment the complete comment, including the <code>/**</code> and <code>*&#47;</code>
+     * @param lineNumber the line number where the comment starts
+     * @param columnNumber the column number where the comment starts
+     * @param debugLexer <code>true</code> if the comment lexer should print its tokens
+     * @param debugParser <code>true</code> if the comment parser should print its states
+     */
+    public void addComment( String comment, int lineNumber, int columnNumber, boolean debugLexer,
+                            boolean debugParser )
+    {
+        comments.add( new Comment( comment, lineNumber, columnNumber, debugLexer, debugParser ) );
+    }
+
+    /**
+     * Forget the description, because the entity got one of its own.
+     * 
+     * @return <code>true</code> if nothing of this javadoc is left to parse
+     */
+    boolean discardDescription()
+    {
+        descriptionDiscarded = true;
+        return tagsDiscarded;
+    }
+
+    /**
+     * Forget the tags, because the entity got tags of its own.
+     * 
+     * @return <code>true</code> if nothing of this javadoc is left to parse
+     */
+    boolean discardTags()
+    {
+        tagsDiscarded = true;
+        return descriptionDiscarded;
+    }
+
+    /**
+     * Parse the comments, after which the description and tags are available. A malformed javadoc is passed to the
+     * error handler, and leaves the entity without a description and tags.
+     * 
+     * @param context the entity this javadoc belongs to
+     */
+    void parse( JavaAnnotatedElement context )
+    {
+        try
+        {
+            parseComments( context );
+        }
+        catch ( ParseException pe )
+        {
+            description = null;
+            tags = Collections.emptyList();
+            if ( url != null )
+            {
+                pe.setSourceInfo( url.toExternalForm() );
+            }
+            if ( errorHandler != null )
+            {
+                errorHandler.handle( pe );
+            }
+        }
+    }
+
+    private void parseComments( final JavaAnnotatedElement context )
+    {
+        tags = new ArrayList<DocletTag>();
+        CommentBuilder builder = new CommentBuilder()
+        {
+            public boolean addJavaDocComment( String comment, int lineNumber, int columnNumber, boolean debugLexer,
+                                              boolean debugParser )
+            {
+                // the comment parser doesn't offer comments
+                return false;
+            }
+
+            public void addJavaDoc( String text )
+            {
+                if ( !descriptionDiscarded )
+                {
+                    description = text;
+                }
+            }
+
+            public void addJavaDocTag( TagDef tagDef )
+            {
+                if ( tagsDiscarded )
+                {
+                    return;
+                }
+                String name = ( symbolTable != null ? symbolTable.intern( tagDef.getName() ) : tagDef.getName() );
+                tags.add( docletTagFactory.createDocletTag( name, tagDef.getText(), context, tagDef.getLineNumber() ) );
+            }
+        };
+
+        for ( Comment comment : comments )
+        {
+            DefaultJavaCommentLexer commentLexer = new DefaultJavaCommentLexer( new StringReader( comment.text ) );
+            commentLexer.setLineOffset( comment.lineNumber );
+            commentLexer.setColumnOffset( comment.columnNumber );
+            DefaultJavaCommentParser commentParser = new DefaultJavaCommentParser( commentLexer, builder );
+            commentParser.setDebugLexer( comment.debugLexer );
+            commentParser.setDebugParser( comment.debugParser );
+            commentParser.parse();
+        }
+    }
+
+    /**
+     * @return the description, <code>null</code> if it has been discarded
+     */
+    String getDescription()
+    {
+        return description;
+    }
+
+    /**
+     * @return the tags, <code>null</code> if they have been discarded
+     */
+    List<DocletTag> getTags()
+    {
+        return ( tagsDiscarded ? null : tags );
+    }
+
+    private static class Comment
+        implements Serializable
+    {
+        private final String text;
+
+        private final int lineNumber;
+
+        private final int columnNumber;
+
+        private final boolean debugLexer;
+
+        private final boolean debugParser;
+
+        Comment( String text, int lineNumber, int columnNumber, boolean debugLexer, boolean debugParser )
+        {
+            this.text = text;
+            this.lineNumber = lineNumber;
+            this.columnNumber = columnNumber;
+            this.debugLexer = debugLexer;
+            this.debugParser = debugParser;
+        }
+    }
+}
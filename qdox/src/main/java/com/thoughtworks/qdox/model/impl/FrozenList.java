@@ -0,0 +1,111 @@
+package com.thoughtworks.qdox.model.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list backed by a right-sized array, used by the model once it has been compacted. Compared to a
+ * <code>LinkedList</code> it saves a node per element, and because it can't be modified the accessors can return it
+ * as it is instead of a copy.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+final class FrozenList<E>
+    extends AbstractList<E>
+    implements RandomAccess, Serializable
+{
+    private static final FrozenList<Object> EMPTY = new FrozenList<Object>( new Object[0] );
+
+    private final Object[] elements;
+
+    private FrozenList( Object[] elements )
+    {
+        this.elements = elements;
+    }
+
+    /**
+     * @param list the list to compact, may be <code>null</code>
+     * @return an immutable copy of the list, the list itself if it is already frozen or <code>null</code> if it is
+     *         <code>null</code>
+     */
+    @SuppressWarnings( "unchecked" )
+    static <E> List<E> of( Collection<? extends E> list )
+    {
+        if ( list == null || list instanceof FrozenList )
+        {
+            return (List<E>) list;
+        }
+        else if ( list.isEmpty() )
+        {
+            return (List<E>) EMPTY;
+        }
+        return new FrozenList<E>( list.toArray() );
+    }
+
+    /**
+     * @param list the list to expose, may be <code>null</code>
+     * @return the list itself if it is frozen, the shared empty list or <code>null</code>, otherwise an unmodifiable
+     *         view
+     */
+    @SuppressWarnings( "unchecked" )
+    static <E> List<E> view( List<? extends E> list )
+    {
+        // these lists can't be modified, so it is safe to expose them with the type of their supertype
+        if ( list == null || list instanceof FrozenList || list == Collections.EMPTY_LIST )
+        {
+            return (List<E>) list;
+        }
+        return Collections.<E>unmodifiableList( list );
+    }
+
+    /**
+     * @param list the list which is about to be modified
+     * @return a modifiable copy if the list is frozen, otherwise the list itself
+     */
+    static <E> List<E> thaw( List<E> list )
+    {
+        return ( list instanceof FrozenList ? new ArrayList<E>( list ) : list );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public E get( int index )
+    {
+        return (E) elements[index];
+    }
+
+    public int size()
+    {
+        return elements.length;
+    }
+
+    private Object readResolve()
+    {
+        return ( elements.length == 0 ? EMPTY : this );
+    }
+}
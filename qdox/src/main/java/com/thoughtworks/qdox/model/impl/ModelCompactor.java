@@ -0,0 +1,79 @@
+package com.thoughtworks.qdox.model.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaSource;
+
+/**
+ * Replaces the lists which are filled while a model is being built by right-sized immutable ones: the classes and
+ * imports of a source and the constructors, methods, fields and nested classes of a class. Lists which are passed to
+ * the setters of the model, like parameters, exceptions, annotations and tags, are already frozen when they are set.
+ * Once compacted the accessors return these lists as they are, instead of wrapping or copying them.
+ * <p>
+ * The contents of the lists don't change, so threads which are reading the model at the same time see either the old
+ * or the new list. Members which are added afterwards are copied into a modifiable list again.
+ * </p>
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public final class ModelCompactor
+{
+    private ModelCompactor()
+    {
+    }
+
+    /**
+     * Compact the source and all of its classes, nested classes included. Sources which weren't built by the default
+     * model are left as they are.
+     * 
+     * @param source the source to compact
+     */
+    public static void compact( JavaSource source )
+    {
+        if ( source instanceof DefaultJavaSource )
+        {
+            ( (DefaultJavaSource) source ).compact();
+        }
+        for ( JavaClass cls : source.getClasses() )
+        {
+            compact( cls );
+        }
+    }
+
+    /**
+     * Compact a class and its nested classes, for classes without a source.
+     * 
+     * @param cls the class to compact
+     */
+    public static void compact( JavaClass cls )
+    {
+        if ( cls instanceof DefaultJavaClass )
+        {
+            ( (DefaultJavaClass) cls ).compact();
+        }
+        for ( JavaClass nestedClass : cls.getNestedClasses() )
+        {
+            compact( nestedClass );
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.thoughtworks.qdox.model.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Members of a list by their name, so they can be found without scanning the list. An index is immutable once it has
+ * been built; the owner replaces it when the list has changed. To detect changes which weren't made by the owner, the
+ * index remembers the size of the list and the modification count of the library at the moment it was built.
+ * Members with the same name are kept in the order in which they were added.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+final class NameIndex<T>
+{
+    private final int size;
+
+    private final int modificationCount;
+
+    private final Map<String, List<T>> members = new HashMap<String, List<T>>();
+
+    /**
+     * @param size the size of the indexed list
+     * @param modificationCount the modification count of the library, <code>0</code> if it doesn't matter
+     */
+    NameIndex( int size, int modificationCount )
+    {
+        this.size = size;
+        this.modificationCount = modificationCount;
+    }
+
+    /**
+     * Add a member, only to be called while the index is being built.
+     * 
+     * @param name the name of the member
+     * @param member the member
+     */
+    void add( String name, T member )
+    {
+        List<T> list = members.get( name );
+        if ( list == null )
+        {
+            list = new ArrayList<T>( 1 );
+            members.put( name, list );
+        }
+        list.add( member );
+    }
+
+    /**
+     * @param list the indexed list
+     * @param currentModificationCount the current modification count of the library
+     * @return <code>true</code> if the index still matches the list, otherwise <code>false</code>
+     */
+    boolean isCurrent( Collection<?> list, int currentModificationCount )
+    {
+        return list.size() == size && modificationCount == currentModificationCount;
+    }
+
+    /**
+     * @param name the name
+     * @return the first member with this name, otherwise <code>null</code>
+     */
+    T getFirst( String name )
+    {
+        List<T> list = members.get( name );
+        return ( list != null ? list.get( 0 ) : null );
+    }
+
+    /**
+     * @param name the name
+     * @return all members with this name, never <code>null</code>
+     */
+    List<T> get( String name )
+    {
+        List<T> list = members.get( name );
+        return ( list != null ? Collections.unmodifiableList( list ) : Collections.<T>emptyList() );
+    }
+}
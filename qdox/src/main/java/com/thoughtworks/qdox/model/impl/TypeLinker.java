@@ -0,0 +1,226 @@
+package com.thoughtworks.qdox.model.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
+import com.thoughtworks.qdox.model.JavaAnnotation;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaConstructor;
+import com.thoughtworks.qdox.model.JavaField;
+import com.thoughtworks.qdox.model.JavaGenericDeclaration;
+import com.thoughtworks.qdox.model.JavaMethod;
+import com.thoughtworks.qdox.model.JavaParameter;
+import com.thoughtworks.qdox.model.JavaParameterizedType;
+import com.thoughtworks.qdox.model.JavaSource;
+import com.thoughtworks.qdox.model.JavaType;
+import com.thoughtworks.qdox.model.JavaTypeVariable;
+
+/**
+ * Resolves all type references of a source at once, instead of on their first access: supertypes, fields, parameters,
+ * return types, exceptions, annotation types, type arguments and the bounds of type variables. The sources of a
+ * project can be linked by several threads, as long as no sources are added at the same time.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public final class TypeLinker
+{
+    private final Collection<String> unresolvedNames;
+
+    // whether the names which have been resolved before should be resolved again
+    private final boolean relink;
+
+    // names of the type variables which are declared by the enclosing declarations
+    private final Set<String> typeVariables = new HashSet<String>();
+
+    private int typeCount;
+
+    private TypeLinker( Collection<String> unresolvedNames, boolean relink )
+    {
+        this.unresolvedNames = unresolvedNames;
+        this.relink = relink;
+    }
+
+    /**
+     * Resolve the type references of all classes of the source, nested classes included.
+     * 
+     * @param source the source to link
+     * @param unresolvedNames receives the name of every reference which couldn't be resolved, once per reference
+     * @return the number of visited type references
+     */
+    public static int link( JavaSource source, Collection<String> unresolvedNames )
+    {
+        return new TypeLinker( unresolvedNames, false ).linkSource( source );
+    }
+
+    /**
+     * Resolve the type references of all classes of the source again, because classes have been added to or removed
+     * from the library. The source should have forgotten the names it resolved, see
+     * {@link DefaultJavaSource#clearResolvedTypes()}.
+     * 
+     * @param source the source to link again
+     * @param unresolvedNames receives the name of every reference which couldn't be resolved, once per reference
+     * @return the number of visited type references
+     * @since 2.0
+     */
+    public static int relink( JavaSource source, Collection<String> unresolvedNames )
+    {
+        return new TypeLinker( unresolvedNames, true ).linkSource( source );
+    }
+
+    private int linkSource( JavaSource source )
+    {
+        for ( JavaClass cls : source.getClasses() )
+        {
+            linkClass( cls );
+        }
+        return typeCount;
+    }
+
+    private void linkClass( JavaClass cls )
+    {
+        Set<String> outerTypeVariables = new HashSet<String>( typeVariables );
+        linkAnnotations( cls );
+        linkTypeParameters( cls.getTypeParameters() );
+        if ( cls instanceof DefaultJavaClass )
+        {
+            linkType( ( (DefaultJavaClass) cls ).getDeclaredSuperClass() );
+        }
+        for ( JavaType implementz : cls.getImplements() )
+        {
+            linkType( implementz );
+        }
+        for ( JavaField field : cls.getFields() )
+        {
+            linkAnnotations( field );
+            linkType( field.getType() );
+        }
+        for ( JavaConstructor constructor : cls.getConstructors() )
+        {
+            Set<String> classTypeVariables = new HashSet<String>( typeVariables );
+            linkAnnotations( constructor );
+            linkTypeParameters( constructor.getTypeParameters() );
+            linkParameters( constructor.getParameters() );
+            for ( JavaType exception : constructor.getExceptionTypes() )
+            {
+                linkType( exception );
+            }
+            typeVariables.retainAll( classTypeVariables );
+        }
+        for ( JavaMethod method : cls.getMethods() )
+        {
+            Set<String> classTypeVariables = new HashSet<String>( typeVariables );
+            linkAnnotations( method );
+            linkTypeParameters( method.getTypeParameters() );
+            linkType( method.getReturns() );
+            linkParameters( method.getParameters() );
+            for ( JavaType exception : method.getExceptionTypes() )
+            {
+                linkType( exception );
+            }
+            typeVariables.retainAll( classTypeVariables );
+        }
+        for ( JavaClass nestedClass : cls.getNestedClasses() )
+        {
+            linkClass( nestedClass );
+        }
+        typeVariables.retainAll( outerTypeVariables );
+    }
+
+    private void linkParameters( List<JavaParameter> parameters )
+    {
+        for ( JavaParameter parameter : parameters )
+        {
+            linkAnnotations( parameter );
+            linkType( parameter.getType() );
+        }
+    }
+
+    private <D extends JavaGenericDeclaration> void linkTypeParameters( List<JavaTypeVariable<D>> typeParameters )
+    {
+        for ( JavaTypeVariable<D> typeParameter : typeParameters )
+        {
+            typeVariables.add( typeParameter.getName() );
+        }
+        for ( JavaTypeVariable<D> typeParameter : typeParameters )
+        {
+            linkType( typeParameter );
+        }
+    }
+
+    private void linkAnnotations( JavaAnnotatedElement element )
+    {
+        for ( JavaAnnotation annotation : element.getAnnotations() )
+        {
+            linkType( annotation.getType() );
+        }
+    }
+
+    private void linkType( JavaType type )
+    {
+        if ( type instanceof DefaultJavaWildcardType )
+        {
+            List<JavaType> bounds = ( (DefaultJavaWildcardType) type ).getBounds();
+            if ( bounds != null )
+            {
+                for ( JavaType bound : bounds )
+                {
+                    linkType( bound );
+                }
+            }
+        }
+        else if ( type instanceof JavaTypeVariable<?> )
+        {
+            List<JavaType> bounds = ( (JavaTypeVariable<?>) type ).getBounds();
+            if ( bounds != null )
+            {
+                for ( JavaType bound : bounds )
+                {
+                    linkType( bound );
+                }
+            }
+        }
+        else if ( type instanceof DefaultJavaType )
+        {
+            DefaultJavaType javaType = (DefaultJavaType) type;
+            typeCount++;
+            if ( relink )
+            {
+                javaType.clearResolvedName();
+            }
+            if ( !javaType.isResolved() && !typeVariables.contains( javaType.name ) )
+            {
+                unresolvedNames.add( javaType.name );
+            }
+            if ( type instanceof JavaParameterizedType )
+            {
+                for ( JavaType argument : ( (JavaParameterizedType) type ).getActualTypeArguments() )
+                {
+                    linkType( argument );
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,755 @@
+package com.thoughtworks.qdox.parser.impl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+import com.thoughtworks.qdox.builder.impl.ModelBuilder;
+import com.thoughtworks.qdox.parser.structs.ClassDef;
+import com.thoughtworks.qdox.parser.structs.FieldDef;
+import com.thoughtworks.qdox.parser.structs.MethodDef;
+import com.thoughtworks.qdox.parser.structs.PackageDef;
+import com.thoughtworks.qdox.parser.structs.TypeDef;
+import com.thoughtworks.qdox.parser.structs.TypeVariableDef;
+import com.thoughtworks.qdox.parser.structs.WildcardTypeDef;
+
+/**
+ * Builds the model of a class by reading its class file, so the class is never loaded. Generic types are taken from the
+ * <code>Signature</code> attributes, nested classes are read from their own class files as listed by the
+ * <code>InnerClasses</code> attribute. Synthetic members and anonymous and local classes are skipped.
+ * 
+ * @author Robert Scholte
+ * @since 2.0
+ */
+public class ClassFileParser
+{
+    /**
+     * Gives access to the class files of the classes to parse.
+     */
+    public interface ClassFileProvider
+    {
+        /**
+         * @param binaryName the binary name of the class, like <code>java.util.Map$Entry</code>
+         * @return the content of the class file, otherwise <code>null</code>
+         * @throws IOException if the class file can't be opened
+         */
+        InputStream getClassFile( String binaryName )
+            throws IOException;
+    }
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_BRIDGE = 0x0040;
+
+    private static final int ACC_VARARGS = 0x0080;
+
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int ACC_ANNOTATION = 0x2000;
+
+    private static final int ACC_ENUM = 0x4000;
+
+    private static final int CLASS_MODIFIERS = Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE
+        | Modifier.ABSTRACT | Modifier.STATIC | Modifier.FINAL | Modifier.STRICT;
+
+    private static final int FIELD_MODIFIERS = Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE
+        | Modifier.STATIC | Modifier.FINAL | Modifier.TRANSIENT | Modifier.VOLATILE;
+
+    private static final int METHOD_MODIFIERS = Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE
+        | Modifier.ABSTRACT | Modifier.STATIC | Modifier.FINAL | Modifier.SYNCHRONIZED | Modifier.NATIVE
+        | Modifier.STRICT;
+
+    private final String binaryName;
+
+    private final ClassFileProvider provider;
+
+    private final ModelBuilder builder;
+
+    /**
+     * @param binaryName the binary name of the top level class
+     * @param provider the provider of the class files
+     * @param builder the builder to create the model with
+     */
+    public ClassFileParser( String binaryName, ClassFileProvider provider, ModelBuilder builder )
+    {
+        this.binaryName = binaryName;
+        this.provider = provider;
+        this.builder = builder;
+    }
+
+    /**
+     * @return <code>true</code> if the class file has been parsed, <code>false</code> if there is no class file
+     * @throws IOException if a class file can't be read or is malformed
+     */
+    public boolean parse()
+        throws IOException
+    {
+        ClassFile classFile = read( binaryName );
+        if ( classFile == null )
+        {
+            return false;
+        }
+        int lastDot = binaryName.lastIndexOf( '.' );
+        if ( lastDot > 0 )
+        {
+            builder.addPackage( new PackageDef( binaryName.substring( 0, lastDot ) ) );
+        }
+        addClass( classFile, binaryName.substring( lastDot + 1 ), classFile.accessFlags );
+        return true;
+    }
+
+    private ClassFile read( String name )
+        throws IOException
+    {
+        InputStream stream = provider.getClassFile( name );
+        if ( stream == null )
+        {
+            return null;
+        }
+        try
+        {
+            return new ClassFile( new DataInputStream( new BufferedInputStream( stream ) ) );
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+
+    private void addClass( ClassFile classFile, String simpleName, int accessFlags )
+        throws IOException
+    {
+        ClassDef classDef = new ClassDef( simpleName );
+        // the implicit modifiers of interfaces, annotations and enums are left out, just like in their sources
+        int modifiers = accessFlags & CLASS_MODIFIERS;
+        if ( ( accessFlags & ACC_ANNOTATION ) != 0 )
+        {
+            classDef.setType( ClassDef.ANNOTATION_TYPE );
+            modifiers &= ~( Modifier.ABSTRACT | Modifier.STATIC );
+        }
+        else if ( ( accessFlags & Modifier.INTERFACE ) != 0 )
+        {
+            classDef.setType( ClassDef.INTERFACE );
+            modifiers &= ~( Modifier.ABSTRACT | Modifier.STATIC );
+        }
+        else if ( ( accessFlags & ACC_ENUM ) != 0 )
+        {
+            classDef.setType( ClassDef.ENUM );
+            modifiers &= ~( Modifier.ABSTRACT | Modifier.FINAL | Modifier.STATIC );
+        }
+        addModifiers( classDef.getModifiers(), modifiers );
+
+        TypeDef superClass;
+        List<TypeDef> interfaces = new LinkedList<TypeDef>();
+        if ( classFile.signature != null )
+        {
+            SignatureReader reader = new SignatureReader( classFile.signature );
+            classDef.setTypeParameters( reader.readTypeParameters() );
+            superClass = reader.readType();
+            while ( reader.hasMore() )
+            {
+                interfaces.add( reader.readType() );
+            }
+        }
+        else
+        {
+            superClass = ( classFile.superName != null ? new TypeDef( classFile.superName ) : null );
+            for ( String interfaceName : classFile.interfaceNames )
+            {
+                interfaces.add( new TypeDef( interfaceName ) );
+            }
+        }
+
+        if ( ClassDef.INTERFACE.equals( classDef.getType() ) )
+        {
+            classDef.getExtends().addAll( interfaces );
+        }
+        else if ( !ClassDef.ANNOTATION_TYPE.equals( classDef.getType() ) )
+        {
+            if ( superClass != null )
+            {
+                classDef.getExtends().add( superClass );
+            }
+            classDef.getImplements().addAll( interfaces );
+        }
+        builder.beginClass( classDef );
+
+        for ( Member field : classFile.fields )
+        {
+            if ( ( field.accessFlags & ACC_SYNTHETIC ) == 0 )
+            {
+                addField( field );
+            }
+        }
+
+        for ( Member method : classFile.methods )
+        {
+            if ( ( method.accessFlags & ( ACC_SYNTHETIC | ACC_BRIDGE ) ) == 0 && !"<clinit>".equals( method.name ) )
+            {
+                addMethod( classFile, simpleName, method, ClassDef.ENUM.equals( classDef.getType() ) );
+            }
+        }
+
+        for ( InnerClass innerClass : classFile.innerClasses )
+        {
+            if ( classFile.name.equals( innerClass.outerName ) && innerClass.simpleName != null )
+            {
+                ClassFile nestedClassFile = read( innerClass.name );
+                if ( nestedClassFile != null )
+                {
+                    addClass( nestedClassFile, innerClass.simpleName, innerClass.accessFlags );
+                }
+            }
+        }
+
+        builder.endClass();
+    }
+
+    private void addField( Member field )
+    {
+        FieldDef fieldDef = new FieldDef( field.name );
+        String signature = ( field.signature != null ? field.signature : field.descriptor );
+        fieldDef.setType( new SignatureReader( signature ).readType() );
+        fieldDef.setEnumConstant( ( field.accessFlags & ACC_ENUM ) != 0 );
+        addModifiers( fieldDef.getModifiers(), field.accessFlags & FIELD_MODIFIERS );
+        builder.beginField( fieldDef );
+        builder.endField();
+    }
+
+    private void addMethod( ClassFile classFile, String simpleName, Member method, boolean isEnum )
+    {
+        boolean isConstructor = "<init>".equals( method.name );
+        MethodDef methodDef = new MethodDef();
+        methodDef.setConstructor( isConstructor );
+        methodDef.setName( isConstructor ? simpleName : method.name );
+        addModifiers( methodDef.getModifiers(), method.accessFlags & METHOD_MODIFIERS );
+
+        SignatureReader reader;
+        // the descriptor contains the synthetic parameters, which the signature leaves out
+        int syntheticParameters = 0;
+        if ( method.signature != null )
+        {
+            reader = new SignatureReader( method.signature );
+            methodDef.setTypeParams( reader.readTypeParameters() );
+        }
+        else
+        {
+            reader = new SignatureReader( method.descriptor );
+            if ( isConstructor && isEnum )
+            {
+                // name and ordinal
+                syntheticParameters = 2;
+            }
+            else if ( isConstructor && classFile.isInnerClass() )
+            {
+                // the enclosing instance
+                syntheticParameters = 1;
+            }
+        }
+
+        List<TypeDef> parameterTypes = reader.readParameterTypes();
+        parameterTypes = parameterTypes.subList( Math.min( syntheticParameters, parameterTypes.size() ),
+                                                 parameterTypes.size() );
+        if ( isConstructor )
+        {
+            builder.beginConstructor();
+        }
+        else
+        {
+            builder.beginMethod();
+        }
+        for ( int index = 0; index < parameterTypes.size(); index++ )
+        {
+            String name = null;
+            if ( method.parameterNames != null && method.parameterNames.size() == parameterTypes.size() )
+            {
+                name = method.parameterNames.get( index );
+            }
+            FieldDef param = new FieldDef( name != null ? name : "p" + index );
+            TypeDef type = parameterTypes.get( index );
+            if ( index == parameterTypes.size() - 1 && ( method.accessFlags & ACC_VARARGS ) != 0 )
+            {
+                type.setDimensions( type.getDimensions() - 1 );
+                param.setVarArgs( true );
+            }
+            param.setType( type );
+            builder.addParameter( param );
+        }
+
+        TypeDef returnType = reader.readType();
+        List<TypeDef> exceptions = new LinkedList<TypeDef>();
+        while ( reader.hasMore() )
+        {
+            exceptions.add( reader.readThrowsType() );
+        }
+        if ( exceptions.isEmpty() )
+        {
+            for ( String exception : method.exceptionNames )
+            {
+                exceptions.add( new TypeDef( exception ) );
+            }
+        }
+        methodDef.getExceptions().addAll( exceptions );
+
+        if ( isConstructor )
+        {
+            builder.endConstructor( methodDef );
+        }
+        else
+        {
+            methodDef.setReturnType( returnType );
+            builder.endMethod( methodDef );
+        }
+    }
+
+    private static void addModifiers( Set<String> set, int modifiers )
+    {
+        String modifierString = Modifier.toString( modifiers );
+        for ( StringTokenizer stringTokenizer = new StringTokenizer( modifierString ); stringTokenizer.hasMoreTokens(); )
+        {
+            set.add( stringTokenizer.nextToken() );
+        }
+    }
+
+    /**
+     * The parts of a class file which are needed for the model.
+     */
+    private static final class ClassFile
+    {
+        private String name;
+
+        private int accessFlags;
+
+        private String superName;
+
+        private List<String> interfaceNames = new LinkedList<String>();
+
+        private List<Member> fields = new LinkedList<Member>();
+
+        private List<Member> methods = new LinkedList<Member>();
+
+        private String signature;
+
+        private List<InnerClass> innerClasses = new LinkedList<InnerClass>();
+
+        private String[] utf8;
+
+        private int[] classes;
+
+        ClassFile( DataInputStream in )
+            throws IOException
+        {
+            if ( in.readInt() != MAGIC )
+            {
+                throw new IOException( "Not a class file" );
+            }
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+            readConstantPool( in );
+
+            accessFlags = in.readUnsignedShort();
+            name = getClassName( in.readUnsignedShort() );
+            superName = getClassName( in.readUnsignedShort() );
+            for ( int count = in.readUnsignedShort(); count > 0; count-- )
+            {
+                interfaceNames.add( getClassName( in.readUnsignedShort() ) );
+            }
+            for ( int count = in.readUnsignedShort(); count > 0; count-- )
+            {
+                fields.add( readMember( in ) );
+            }
+            for ( int count = in.readUnsignedShort(); count > 0; count-- )
+            {
+                methods.add( readMember( in ) );
+            }
+            for ( int count = in.readUnsignedShort(); count > 0; count-- )
+            {
+                String attributeName = utf8[in.readUnsignedShort()];
+                int length = in.readInt();
+                if ( "Signature".equals( attributeName ) )
+                {
+                    signature = utf8[in.readUnsignedShort()];
+                }
+                else if ( "InnerClasses".equals( attributeName ) )
+                {
+                    for ( int classCount = in.readUnsignedShort(); classCount > 0; classCount-- )
+                    {
+                        InnerClass innerClass = new InnerClass();
+                        innerClass.name = getClassName( in.readUnsignedShort() );
+                        innerClass.outerName = getClassName( in.readUnsignedShort() );
+                        int simpleNameIndex = in.readUnsignedShort();
+                        innerClass.simpleName = ( simpleNameIndex != 0 ? utf8[simpleNameIndex] : null );
+                        innerClass.accessFlags = in.readUnsignedShort();
+                        innerClasses.add( innerClass );
+                    }
+                }
+                else
+                {
+                    skip( in, length );
+                }
+            }
+        }
+
+        /**
+         * @return <code>true</code> if this is a nested class with an enclosing instance
+         */
+        boolean isInnerClass()
+        {
+            for ( InnerClass innerClass : innerClasses )
+            {
+                if ( name.equals( innerClass.name ) )
+                {
+                    return ( innerClass.accessFlags & Modifier.STATIC ) == 0 && innerClass.outerName != null;
+                }
+            }
+            return false;
+        }
+
+        private void readConstantPool( DataInputStream in )
+            throws IOException
+        {
+            int count = in.readUnsignedShort();
+            utf8 = new String[count];
+            classes = new int[count];
+            for ( int index = 1; index < count; index++ )
+            {
+                int tag = in.readUnsignedByte();
+                switch ( tag )
+                {
+                    case 1: // Utf8
+                        utf8[index] = in.readUTF();
+                        break;
+                    case 7: // Class
+                        classes[index] = in.readUnsignedShort();
+                        break;
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        skip( in, 2 );
+                        break;
+                    case 15: // MethodHandle
+                        skip( in, 3 );
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        skip( in, 4 );
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        skip( in, 8 );
+                        // takes two entries
+                        index++;
+                        break;
+                    default:
+                        throw new IOException( "Unknown constant pool tag " + tag );
+                }
+            }
+        }
+
+        private Member readMember( DataInputStream in )
+            throws IOException
+        {
+            Member member = new Member();
+            member.accessFlags = in.readUnsignedShort();
+            member.name = utf8[in.readUnsignedShort()];
+            member.descriptor = utf8[in.readUnsignedShort()];
+            for ( int count = in.readUnsignedShort(); count > 0; count-- )
+            {
+                String attributeName = utf8[in.readUnsignedShort()];
+                int length = in.readInt();
+                if ( "Signature".equals( attributeName ) )
+                {
+                    member.signature = utf8[in.readUnsignedShort()];
+                }
+                else if ( "Exceptions".equals( attributeName ) )
+                {
+                    for ( int exceptionCount = in.readUnsignedShort(); exceptionCount > 0; exceptionCount-- )
+                    {
+                        member.exceptionNames.add( getClassName( in.readUnsignedShort() ) );
+                    }
+                }
+                else if ( "MethodParameters".equals( attributeName ) )
+                {
+                    member.parameterNames = new ArrayList<String>();
+                    for ( int parameterCount = in.readUnsignedByte(); parameterCount > 0; parameterCount-- )
+                    {
+                        int nameIndex = in.readUnsignedShort();
+                        int parameterFlags = in.readUnsignedShort();
+                        // synthetic and mandated parameters are not part of the signature
+                        if ( ( parameterFlags & ( ACC_SYNTHETIC | 0x8000 ) ) == 0 )
+                        {
+                            member.parameterNames.add( nameIndex != 0 ? utf8[nameIndex] : null );
+                        }
+                    }
+                }
+                else
+                {
+                    skip( in, length );
+                }
+            }
+            return member;
+        }
+
+        // the binary name, like java.util.Map$Entry
+        private String getClassName( int index )
+        {
+            return ( index != 0 ? utf8[classes[index]].replace( '/', '.' ) : null );
+        }
+
+        private static void skip( DataInputStream in, int length )
+            throws IOException
+        {
+            in.readFully( new byte[length] );
+        }
+    }
+
+    private static final class Member
+    {
+        private int accessFlags;
+
+        private String name;
+
+        private String descriptor;
+
+        private String signature;
+
+        private List<String> exceptionNames = new LinkedList<String>();
+
+        private List<String> parameterNames;
+    }
+
+    private static final class InnerClass
+    {
+        private String name;
+
+        private String outerName;
+
+        private String simpleName;
+
+        private int accessFlags;
+    }
+
+    /**
+     * Reads the types of descriptors and of <code>Signature</code> attributes, which share the same syntax.
+     */
+    private static final class SignatureReader
+    {
+        private final String signature;
+
+        private int index;
+
+        SignatureReader( String signature )
+        {
+            this.signature = signature;
+        }
+
+        boolean hasMore()
+        {
+            return index < signature.length();
+        }
+
+        List<TypeVariableDef> readTypeParameters()
+        {
+            if ( signature.charAt( index ) != '<' )
+            {
+                return null;
+            }
+            index++;
+            List<TypeVariableDef> result = new LinkedList<TypeVariableDef>();
+            while ( signature.charAt( index ) != '>' )
+            {
+                int colon = signature.indexOf( ':', index );
+                String name = signature.substring( index, colon );
+                index = colon;
+                List<TypeDef> bounds = new LinkedList<TypeDef>();
+                while ( signature.charAt( index ) == ':' )
+                {
+                    index++;
+                    // an empty class bound is followed by the interface bounds
+                    if ( signature.charAt( index ) != ':' )
+                    {
+                        TypeDef bound = readType();
+                        if ( !"java.lang.Object".equals( bound.getName() ) || bound.getDimensions() > 0 )
+                        {
+                            bounds.add( bound );
+                        }
+                    }
+                }
+                result.add( new TypeVariableDef( name, bounds.isEmpty() ? null : bounds ) );
+            }
+            index++;
+            return result;
+        }
+
+        List<TypeDef> readParameterTypes()
+        {
+            List<TypeDef> result = new LinkedList<TypeDef>();
+            // '('
+            index++;
+            while ( signature.charAt( index ) != ')' )
+            {
+                result.add( readType() );
+            }
+            index++;
+            return result;
+        }
+
+        TypeDef readThrowsType()
+        {
+            // '^'
+            index++;
+            return readType();
+        }
+
+        TypeDef readType()
+        {
+            int dimensions = 0;
+            while ( signature.charAt( index ) == '[' )
+            {
+                dimensions++;
+                index++;
+            }
+            char c = signature.charAt( index++ );
+            switch ( c )
+            {
+                case 'L':
+                    return readClassType( dimensions );
+                case 'T':
+                    int semicolon = signature.indexOf( ';', index );
+                    String name = signature.substring( index, semicolon );
+                    index = semicolon + 1;
+                    return new TypeDef( name, dimensions );
+                default:
+                    return new TypeDef( getPrimitiveName( c ), dimensions );
+            }
+        }
+
+        private TypeDef readClassType( int dimensions )
+        {
+            StringBuilder name = new StringBuilder();
+            List<TypeDef> arguments = null;
+            while ( true )
+            {
+                char c = signature.charAt( index++ );
+                if ( c == ';' )
+                {
+                    break;
+                }
+                else if ( c == '/' )
+                {
+                    name.append( '.' );
+                }
+                else if ( c == '.' )
+                {
+                    // the arguments of the enclosing class can't be expressed by a TypeDef
+                    name.append( '$' );
+                    arguments = null;
+                }
+                else if ( c == '<' )
+                {
+                    arguments = readTypeArguments();
+                }
+                else
+                {
+                    name.append( c );
+                }
+            }
+            TypeDef result = new TypeDef( name.toString(), dimensions );
+            result.setActualArgumentTypes( arguments );
+            return result;
+        }
+
+        private List<TypeDef> readTypeArguments()
+        {
+            List<TypeDef> result = new LinkedList<TypeDef>();
+            while ( true )
+            {
+                char c = signature.charAt( index );
+                if ( c == '>' )
+                {
+                    index++;
+                    return result;
+                }
+                else if ( c == '*' )
+                {
+                    index++;
+                    result.add( new WildcardTypeDef() );
+                }
+                else if ( c == '+' )
+                {
+                    index++;
+                    result.add( new WildcardTypeDef( readType(), "extends" ) );
+                }
+                else if ( c == '-' )
+                {
+                    index++;
+                    result.add( new WildcardTypeDef( readType(), "super" ) );
+                }
+                else
+                {
+                    result.add( readType() );
+                }
+            }
+        }
+
+        private static String getPrimitiveName( char c )
+        {
+            switch ( c )
+            {
+                case 'B':
+                    return "byte";
+                case 'C':
+                    return "char";
+                case 'D':
+                    return "double";
+                case 'F':
+                    return "float";
+                case 'I':
+                    return "int";
+                case 'J':
+                    return "long";
+                case 'S':
+                    return "short";
+                case 'Z':
+                    return "boolean";
+                case 'V':
+                    return "void";
+                default:
+                    throw new IllegalArgumentException( "Unknown type " + c );
+            }
+        }
+    }
+}
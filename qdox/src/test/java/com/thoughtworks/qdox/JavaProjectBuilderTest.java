@@ -4,6 +4,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
@@ -21,14 +22,18 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.TestCase;
 
+import com.thoughtworks.qdox.directorywalker.FileVisitor;
 import com.thoughtworks.qdox.library.ClassLibraryBuilder;
 import com.thoughtworks.qdox.library.ErrorHandler;
 import com.thoughtworks.qdox.library.OrderedClassLibraryBuilder;
 import com.thoughtworks.qdox.model.BeanProperty;
 import com.thoughtworks.qdox.model.DocletTag;
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
 import com.thoughtworks.qdox.model.JavaAnnotation;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaConstructor;
@@ -37,6 +42,8 @@ import com.thoughtworks.qdox.model.JavaMethod;
 import com.thoughtworks.qdox.model.JavaPackage;
 import com.thoughtworks.qdox.model.JavaSource;
 import com.thoughtworks.qdox.model.JavaType;
+import com.thoughtworks.qdox.model.impl.DefaultJavaClass;
+import com.thoughtworks.qdox.model.impl.DefaultJavaMethod;
 import com.thoughtworks.qdox.model.util.SerializationUtils;
 import com.thoughtworks.qdox.parser.ParseException;
 import com.thoughtworks.qdox.testdata.PropertyClass;
@@ -173,6 +180,229 @@ public class JavaProjectBuilderTest extends TestCase
         assertNotNull(builder.getClassByName("com.blah.subpackage.Cheese"));
     }
 
+    public void testSourceTreeWithThreads() throws Exception {
+        List<String> expected = new ArrayList<String>();
+        JavaProjectBuilder sequentialBuilder = new JavaProjectBuilder();
+        sequentialBuilder.addSourceTree(new File("target/test-source"));
+        for ( JavaSource source : sequentialBuilder.getSources() ) {
+            expected.add( source.getURL().toExternalForm() );
+        }
+
+        builder.setThreadCount( 3 );
+        builder.addSourceTree(new File("target/test-source"));
+
+        List<String> actual = new ArrayList<String>();
+        for ( JavaSource source : builder.getSources() ) {
+            actual.add( source.getURL().toExternalForm() );
+        }
+        assertEquals(expected, actual);
+        assertNotNull(builder.getClassByName("com.blah.Thing"));
+        assertNotNull(builder.getClassByName("com.blah.Another"));
+        assertNotNull(builder.getClassByName("com.blah.subpackage.Cheese"));
+    }
+
+    public void testSourceTreeWithExecutorService() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try {
+            builder.setExecutorService( executor );
+            builder.addSourceTree(new File("target/test-source"));
+            assertEquals(3, builder.getSources().size());
+            assertFalse( executor.isShutdown() );
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testSourceTreeWithThreadsReportsParseException() throws Exception {
+        createFile("target/test-source/com/blah/Bad.java", "com.blah", "@%! BAD {}}}}");
+        builder.setThreadCount( 2 );
+        try {
+            builder.addSourceTree(new File("target/test-source"));
+            fail("Expected ParseException");
+        }
+        catch ( ParseException pe ) {
+            assertTrue( pe.getMessage().indexOf( "Bad.java" ) > 0 );
+        }
+    }
+
+    public void testSourceTreeWithThreadsAndPackageInfo() throws Exception {
+        File packageInfo = new File("target/test-source/com/blah/package-info.java");
+        FileWriter writer = new FileWriter(packageInfo);
+        writer.write("/** The blah package. */\npackage com.blah;\n");
+        writer.close();
+        FileVisitor failingVisitor = new FileVisitor() {
+            public void visitFile(File file) {
+                fail("Unexpected error for " + file);
+            }
+        };
+
+        builder.setThreadCount( 2 );
+        builder.addSourceTree(new File("target/test-source"), failingVisitor);
+
+        assertEquals(3, builder.getSources().size());
+        assertEquals("The blah package.", builder.getPackageByName("com.blah").getComment());
+    }
+
+    public void testSourceTreeWithThreadsReportsHandledParseExceptionOnce() throws Exception {
+        createFile("target/test-source/com/blah/Bad.java", "com.blah", "@%! BAD {}}}}");
+        ErrorHandler mockErrorHandler = mock(ErrorHandler.class);
+        FileVisitor mockFileVisitor = mock(FileVisitor.class);
+
+        builder.setErrorHandler( mockErrorHandler );
+        builder.setThreadCount( 2 );
+        builder.addSourceTree(new File("target/test-source"), mockFileVisitor);
+
+        assertNotNull(builder.getClassByName("com.blah.Thing"));
+        verify( mockErrorHandler ).handle( any( ParseException.class ) );
+        verifyZeroInteractions( mockFileVisitor );
+    }
+
+    public void testSkipMethodBodies() throws Exception {
+        String in = ""
+            + "package x;"
+            + "public class Foo {"
+            + "  private String name = \"foo\";"
+            + "  static { System.out.println( \"{\" ); }"
+            + "  public Foo() { this.name = \"bar\"; }"
+            + "  public String getName() { if ( true ) { return name; } return null; }"
+            + "  public int size() { return 1; }"
+            + "}";
+        builder.setSkipMethodBodies( true );
+        JavaClass foo = builder.addSource( new StringReader( in ) ).getClasses().get( 0 );
+        assertEquals( 2, foo.getMethods().size() );
+        assertEquals( "", foo.getMethods().get( 0 ).getSourceCode() );
+        assertEquals( "", foo.getConstructors().get( 0 ).getSourceCode() );
+        assertEquals( "\"foo\"", foo.getFieldByName( "name" ).getInitializationExpression() );
+        assertEquals( "int", foo.getMethodBySignature( "size", null ).getReturns().getFullyQualifiedName() );
+    }
+
+    public void testSymbolsAreSharedBetweenSources() throws Exception {
+        String in = ""
+            + "package com.acme;"
+            + "import java.util.List;"
+            + "public class Foo {"
+            + "  /** @todo something */"
+            + "  private List<String> items;"
+            + "}";
+        JavaSource first = builder.addSource( new StringReader( in ) );
+        JavaSource second = builder.addSource( new StringReader( in ) );
+        assertSame( first.getPackageName(), second.getPackageName() );
+        assertSame( first.getImports().get( 0 ), second.getImports().get( 0 ) );
+        JavaField firstItems = first.getClasses().get( 0 ).getFields().get( 0 );
+        JavaField secondItems = second.getClasses().get( 0 ).getFields().get( 0 );
+        assertSame( firstItems.getName(), secondItems.getName() );
+        assertSame( firstItems.getTags().get( 0 ).getName(), secondItems.getTags().get( 0 ).getName() );
+    }
+
+    public void testLink() throws Exception {
+        String source = ""
+            + "package com.acme;\n"
+            + "import java.util.List;\n"
+            + "import com.missing.Thing;\n"
+            + "public class Foo<T extends Comparable<T>> extends Bar implements java.io.Serializable {\n"
+            + "  private List<? extends T> items;\n"
+            + "  @Deprecated public Thing thing( Unknown u, Unknown v ) throws java.io.IOException { return null; }\n"
+            + "  public <E> E pick( E[] values ) { return null; }\n"
+            + "}\n"
+            + "class Bar {}\n";
+        builder.addSource( new StringReader( source ) );
+
+        LinkStatistics statistics = builder.link();
+        assertEquals( 1, statistics.getSourceCount() );
+        assertEquals( 13, statistics.getTypeCount() );
+        assertEquals( 2, statistics.getUnresolvedCount() );
+        assertEquals( Collections.singletonMap( "Unknown", 2 ), statistics.getUnresolvedNames() );
+        JavaClass foo = builder.getClassByName( "com.acme.Foo" );
+        assertEquals( "java.util.List", foo.getFieldByName( "items" ).getType().getFullyQualifiedName() );
+    }
+
+    public void testLinkWithThreads() throws Exception {
+        builder.setThreadCount( 2 );
+        builder.addSource( new StringReader( "package a; public class A { B b; Missing m; }" ) );
+        builder.addSource( new StringReader( "package a; public class B { A a; Missing m; }" ) );
+        LinkStatistics statistics = builder.link();
+        assertEquals( 2, statistics.getSourceCount() );
+        assertEquals( 4, statistics.getTypeCount() );
+        assertEquals( Collections.singletonMap( "Missing", 2 ), statistics.getUnresolvedNames() );
+    }
+
+    public void testQualifiedSingleTypeImportDoesNotRegisterNestedName() throws Exception {
+        builder.addSource( new StringReader( "package a; import java.util.EventObject;"
+            + " public class A extends java.util.EventObject { }" ) );
+        builder.addSource( new StringReader( "package b; public class B extends java.util.EventObject { }" ) );
+        assertEquals( "java.util.EventObject", builder.getClassByName( "a.A" ).getSuperClass().getFullyQualifiedName() );
+        JavaClass b = builder.getClassByName( "b.B" );
+        assertEquals( "java.util.EventObject", b.getSuperClass().getFullyQualifiedName() );
+        assertTrue( b.isA( "java.io.Serializable" ) );
+    }
+
+    public void testConcurrentQueriesMatchSequentialQueries() throws Exception {
+        List<String> sources = new ArrayList<String>();
+        for ( int i = 0; i < 20; i++ )
+        {
+            sources.add( "package p" + ( i % 4 ) + "; import java.util.*; public class C" + i
+                + " extends java.util.EventObject implements Comparable<C" + i + "> {"
+                + " public C" + i + "() { super( null ); } public int compareTo( C" + i + " o ) { return 0; }"
+                + " public List<String> names() { return null; } public static class Inner { } }" );
+        }
+        // importing the superclass by its qualified name used to register a bogus nested name
+        sources.add( "package q; import java.util.EventObject; import java.util.EventListener;"
+            + " public class D extends java.util.EventObject implements java.util.EventListener {"
+            + " public D() { super( null ); } }" );
+
+        Map<String, String> expected = fingerprintQueries( sources, 1 );
+        for ( int round = 0; round < 5; round++ )
+        {
+            assertEquals( expected, fingerprintQueries( sources, 8 ) );
+        }
+    }
+
+    private Map<String, String> fingerprintQueries( List<String> sources, int threadCount ) throws Exception {
+        final JavaProjectBuilder projectBuilder = new JavaProjectBuilder();
+        for ( String source : sources )
+        {
+            projectBuilder.addSource( new StringReader( source ) );
+        }
+        final List<JavaClass> classes = new ArrayList<JavaClass>( projectBuilder.getClasses() );
+        if ( threadCount > 1 )
+        {
+            Collections.shuffle( classes );
+        }
+        final Map<String, String> result = Collections.synchronizedMap( new java.util.TreeMap<String, String>() );
+        ExecutorService executor = Executors.newFixedThreadPool( threadCount );
+        try
+        {
+            List<java.util.concurrent.Future<?>> futures = new ArrayList<java.util.concurrent.Future<?>>();
+            for ( final JavaClass cls : classes )
+            {
+                futures.add( executor.submit( new Runnable()
+                {
+                    public void run()
+                    {
+                        StringBuilder fingerprint = new StringBuilder();
+                        fingerprint.append( cls.getSuperClass() ).append( ' ' ).append( cls.getImplements() );
+                        fingerprint.append( ' ' ).append( cls.isA( "java.io.Serializable" ) );
+                        for ( JavaMethod method : cls.getMethods( true ) )
+                        {
+                            fingerprint.append( ' ' ).append( method.getDeclarationSignature( false ) );
+                        }
+                        result.put( cls.getFullyQualifiedName(), fingerprint.toString() );
+                    }
+                } ) );
+            }
+            for ( java.util.concurrent.Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        return result;
+    }
+
     public void testRecordFile() throws Exception {
         JavaSource source = builder.addSource(new File("target/test-source/com/blah/Thing.java"));
 
@@ -182,6 +412,67 @@ public class JavaProjectBuilderTest extends TestCase
                      source.getURL());
     }
 
+    public void testRefreshSourceTree() throws Exception {
+        builder.addSourceTree( new File( "target/test-source" ) );
+        JavaClass cheese = builder.getClassByName( "com.blah.subpackage.Cheese" );
+        assertTrue( cheese.getDerivedClasses().isEmpty() );
+
+        File thingFile = new File( "target/test-source/com/blah/Thing.java" );
+        createFile( "target/test-source/com/blah/Thing.java", "com.blah", "Thing extends Bar" );
+        thingFile.setLastModified( thingFile.lastModified() + 2000 );
+        createFile( "target/test-source/com/blah/Bar.java", "com.blah", "Bar" );
+        assertTrue( new File( "target/test-source/com/blah/Another.java" ).delete() );
+        File cheeseFile = new File( "target/test-source/com/blah/subpackage/Cheese.java" );
+        cheeseFile.setLastModified( cheeseFile.lastModified() + 2000 );
+
+        Collection<JavaSource> refreshed = builder.refreshSourceTree( new File( "target/test-source" ) );
+        assertEquals( 2, refreshed.size() );
+        assertEquals( 3, new HashSet<JavaSource>( builder.getSources() ).size() );
+        List<String> classNames = new ArrayList<String>();
+        for ( JavaClass cls : builder.getClasses() )
+        {
+            classNames.add( cls.getFullyQualifiedName() );
+        }
+        Collections.sort( classNames );
+        assertEquals( Arrays.asList( "com.blah.Bar", "com.blah.Thing", "com.blah.subpackage.Cheese" ), classNames );
+        assertSame( cheese, builder.getClassByName( "com.blah.subpackage.Cheese" ) );
+
+        JavaClass thing = builder.getClassByName( "com.blah.Thing" );
+        assertEquals( "com.blah.Bar", thing.getSuperClass().getFullyQualifiedName() );
+        assertNotNull( thing.getSuperJavaClass().getSource().getURL() );
+        assertEquals( Collections.singletonList( thing ), thing.getSuperJavaClass().getDerivedClasses() );
+        classNames.clear();
+        for ( JavaClass cls : builder.getPackageByName( "com.blah" ).getClasses() )
+        {
+            classNames.add( cls.getName() );
+        }
+        Collections.sort( classNames );
+        assertEquals( Arrays.asList( "Bar", "Thing" ), classNames );
+
+        assertTrue( builder.refreshSourceTree( new File( "target/test-source" ) ).isEmpty() );
+    }
+
+    public void testRefreshResolvesTypesOfOtherSourcesAgain() throws Exception {
+        File thingFile = new File( "target/test-source/com/blah/Thing.java" );
+        FileWriter writer = new FileWriter( thingFile );
+        writer.write( "package com.blah;\nimport com.blah.subpackage.*;\npublic class Thing extends Cheese {}\n" );
+        writer.close();
+        builder.addSourceTree( new File( "target/test-source" ) );
+        JavaClass thing = builder.getClassByName( "com.blah.Thing" );
+        assertEquals( "com.blah.subpackage.Cheese", thing.getSuperClass().getFullyQualifiedName() );
+
+        // a class of the same package hides the imported one
+        File cheeseFile = new File( "target/test-source/com/blah/Cheese.java" );
+        createFile( cheeseFile.getPath(), "com.blah", "Cheese" );
+        assertEquals( 1, builder.refreshSourceTree( new File( "target/test-source" ) ).size() );
+        assertEquals( "com.blah.Cheese", thing.getSuperClass().getFullyQualifiedName() );
+        assertEquals( "com.blah.Cheese", thing.getSuperJavaClass().getFullyQualifiedName() );
+
+        assertTrue( cheeseFile.delete() );
+        assertTrue( builder.refreshSourceTree( new File( "target/test-source" ) ).isEmpty() );
+        assertEquals( "com.blah.subpackage.Cheese", thing.getSuperClass().getFullyQualifiedName() );
+    }
+
     public void testSearcher()
         throws Exception
     {
@@ -365,6 +656,156 @@ public class JavaProjectBuilderTest extends TestCase
         assertFalse("should not be Map", arrayList.isA("java.util.Map"));
     }
 
+    public void testIsAIsUpdatedWhenSourcesAreAdded() {
+        builder.addSource(new StringReader("public class Sub extends Base {}"));
+        JavaClass sub = builder.getClassByName("Sub");
+        assertTrue(sub.isA("Base"));
+        assertFalse(sub.isA("java.io.Serializable"));
+
+        builder.addSource(new StringReader("public class Base implements java.io.Serializable {}"));
+        assertTrue(sub.isA("java.io.Serializable"));
+        assertTrue(sub.isA(builder.getClassByName("java.io.Serializable")));
+    }
+
+    public void testIsAWithCyclicHierarchy() {
+        builder.addSource(new StringReader("public class Egg extends Chicken {}"));
+        builder.addSource(new StringReader("public class Chicken extends Egg {}"));
+        JavaClass egg = builder.getClassByName("Egg");
+        assertTrue(egg.isA("Chicken"));
+        assertFalse(egg.isA("java.lang.Object"));
+    }
+
+    public void testInheritedMethodsAreUpdatedWhenSourcesAreAdded() {
+        builder.addSource(new StringReader("public interface Sub extends Base { void a(); }"));
+        JavaClass sub = builder.getClassByName("Sub");
+        assertEquals(1, sub.getMethods(true).size());
+
+        builder.addSource(new StringReader("public interface Base { void b(); }"));
+        List<JavaMethod> methods = sub.getMethods(true);
+        assertEquals(2, methods.size());
+        assertEquals("a", methods.get(0).getName());
+        assertEquals("b", methods.get(1).getName());
+        assertNotNull(sub.getMethodBySignature("b", null, true));
+    }
+
+    public void testBeanPropertiesAreUpdatedWhenSourcesAreAdded() {
+        builder.addSource(new StringReader("public class Sub extends Base { public int getA() { return 0; } }"));
+        JavaClass sub = builder.getClassByName("Sub");
+        assertEquals(1, sub.getBeanProperties(true).size());
+        assertNull(sub.getBeanProperty("b", true));
+
+        builder.addSource(new StringReader("public class Base { public String getB() { return null; } }"));
+        // getClass() of java.lang.Object counts as well
+        assertEquals(3, sub.getBeanProperties(true).size());
+        assertNotNull(sub.getBeanProperty("class", true));
+        assertEquals("java.lang.String", sub.getBeanProperty("b", true).getType().getFullyQualifiedName());
+        assertNull(sub.getBeanProperty("b"));
+        assertSame(sub.getBeanProperty("b", true), sub.getBeanProperties(true).get(1));
+
+        ((DefaultJavaClass) sub).addMethod(new DefaultJavaMethod(builder.getClassByName("int"), "getC"));
+        assertNotNull(sub.getBeanProperty("c"));
+        assertNotNull(sub.getBeanProperty("c", true));
+    }
+
+    public void testTaggedElements() {
+        builder.addSource(new StringReader("package a;\n"
+            + "/**\n * @persistent\n * @persistent twice\n */\n"
+            + "public class A {\n"
+            + "  /** @persistent */ int f;\n"
+            + "  /** @other */ int g;\n"
+            + "  /** @persistent */ A() {}\n"
+            + "  /** @persistent */ void m() {}\n"
+            + "  /** @persistent */ class Inner {}\n"
+            + "}"));
+        JavaClass a = builder.getClassByName("a.A");
+        List<JavaAnnotatedElement> tagged = builder.getTaggedElements("persistent");
+        assertEquals(5, tagged.size());
+        assertSame(a, tagged.get(0));
+        assertSame(a.getFieldByName("f"), tagged.get(1));
+        assertSame(a.getConstructors().get(0), tagged.get(2));
+        assertSame(a.getMethods().get(0), tagged.get(3));
+        assertSame(a.getNestedClassByName("Inner"), tagged.get(4));
+        assertEquals(2, a.getTagsByName("persistent").size());
+        assertEquals("", a.getTagByName("persistent").getValue());
+        assertEquals("twice", a.getTagsByName("persistent").get(1).getValue());
+        assertTrue(builder.getTaggedElements("missing").isEmpty());
+
+        builder.addSource(new StringReader("package b; /** @other */ public class B {}"));
+        tagged = builder.getTaggedElements("other");
+        assertEquals(2, tagged.size());
+        assertSame(builder.getClassByName("b.B"), tagged.get(1));
+    }
+
+    public void testTagsByNameWithCyclicHierarchy() {
+        builder.addSource(new StringReader("/** @foo egg */ public class Egg extends Chicken {}"));
+        builder.addSource(new StringReader("/** @foo chicken */ public class Chicken extends Egg {}"));
+        List<DocletTag> tags = builder.getClassByName("Egg").getTagsByName("foo", true);
+        assertEquals(2, tags.size());
+        assertEquals("egg", tags.get(0).getValue());
+        assertEquals("chicken", tags.get(1).getValue());
+    }
+
+    public void testNameLookupsOnLargeClass() {
+        StringBuilder source = new StringBuilder("package big; public class Generated {\n");
+        for (int i = 0; i < 1000; i++) {
+            source.append("  int field" + i + ";\n");
+            source.append("  void method" + i + "() {}\n");
+            source.append("  void method" + i + "(String s) {}\n");
+            source.append("  static class Nested" + i + " { class Deeper {} }\n");
+        }
+        source.append("}\n");
+        JavaSource javaSource = builder.addSource(new StringReader(source.toString()));
+        JavaClass generated = builder.getClassByName("big.Generated");
+
+        assertEquals("field999", generated.getFieldByName("field999").getName());
+        assertNull(generated.getFieldByName("field1000"));
+        JavaType string = builder.getClassByName("java.lang.String");
+        JavaMethod overload = generated.getMethodBySignature("method500", Collections.singletonList(string));
+        assertEquals(1, overload.getParameters().size());
+        assertEquals(0, generated.getMethodBySignature("method500", null).getParameters().size());
+        assertEquals("big.Generated$Nested700$Deeper",
+                     generated.getNestedClassByName("Nested700.Deeper").getFullyQualifiedName());
+        assertSame(generated.getNestedClassByName("Nested3"), javaSource.getClassByName("big.Generated$Nested3"));
+        assertSame(generated, builder.getPackageByName("big").getClassByName("Generated"));
+    }
+
+    public void testCompact() throws Exception {
+        builder.addSource(new StringReader("package a; import java.util.List;\n"
+            + "public class A implements java.io.Serializable, Cloneable {\n"
+            + "  /** @param s the value */ void m(String s) throws java.io.IOException {}\n"
+            + "  int f;\n"
+            + "  class Inner { void n() {} }\n"
+            + "}"));
+        JavaClass a = builder.getClassByName("a.A");
+        JavaClass inner = a.getNestedClasses().get(0);
+        builder.compact();
+
+        assertSame(a.getMethods(), a.getMethods());
+        assertSame(a.getImplements(), a.getImplements());
+        assertSame(inner.getMethods(), inner.getMethods());
+        assertSame(a.getSource().getImports(), a.getSource().getImports());
+        assertEquals("m", a.getMethods().get(0).getName());
+        assertEquals(2, a.getImplements().size());
+        assertEquals("java.io.IOException", a.getMethods().get(0).getExceptions().get(0).getFullyQualifiedName());
+        assertEquals("param", a.getMethods().get(0).getTags().get(0).getName());
+        assertEquals("java.util.List", a.getSource().getImports().get(0));
+        assertEquals("n", inner.getMethods().get(0).getName());
+        try {
+            a.getFields().add(null);
+            fail("the fields of a class must not be modifiable through its accessor");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        // members can still be added after compaction
+        ((DefaultJavaClass) a).addMethod(new DefaultJavaMethod("added"));
+        assertEquals(2, a.getMethods().size());
+        assertNotNull(a.getMethodBySignature("added", null));
+
+        JavaSource copy = (JavaSource) SerializationUtils.serializedCopy(a.getSource());
+        assertEquals(2, copy.getClasses().get(0).getMethods().size());
+        assertEquals(2, copy.getClasses().get(0).getImplements().size());
+    }
+
     public void testAbstractClassCanBeTestedForImplementedClassesAndInterfaces() {
         JavaClass abstractList = builder.getClassByName("java.util.AbstractList");
 
@@ -465,6 +906,37 @@ public class JavaProjectBuilderTest extends TestCase
         assertEquals(0, derivedClassesOfArrayList.size());
     }
 
+    public void testDirectDerivedClassesAreFound() {
+        builder.addSource(new StringReader("public interface Collection {}"));
+        builder.addSource(new StringReader("public interface List extends Collection {}"));
+        builder.addSource(new StringReader("public class AbstractList implements List {}"));
+        builder.addSource(new StringReader("public class ArrayList extends AbstractList {}"));
+        builder.addSource(new StringReader("public class Set implements Collection {}"));
+
+        JavaClass collection = builder.getClassByName("Collection");
+        List<JavaClass> directDerivedClasses = collection.getDirectDerivedClasses();
+        assertEquals(2, directDerivedClasses.size());
+        assertSame(builder.getClassByName("List"), directDerivedClasses.get(0));
+        assertSame(builder.getClassByName("Set"), directDerivedClasses.get(1));
+        assertEquals(1, builder.getClassByName("AbstractList").getDirectDerivedClasses().size());
+        assertEquals(0, builder.getClassByName("ArrayList").getDirectDerivedClasses().size());
+    }
+
+    public void testDerivedClassesAreUpdatedWhenSourcesAreAdded() {
+        builder.addSource(new StringReader("public interface Collection {}"));
+        builder.addSource(new StringReader("public class ArrayList extends AbstractList {}"));
+        JavaClass collection = builder.getClassByName("Collection");
+        assertEquals(0, collection.getDerivedClasses().size());
+
+        // the superclass of ArrayList is added after ArrayList has been indexed
+        builder.addSource(new StringReader("public class AbstractList implements Collection {}"));
+        List<JavaClass> derivedClasses = collection.getDerivedClasses();
+        assertEquals(2, derivedClasses.size());
+        assertTrue(derivedClasses.contains(builder.getClassByName("AbstractList")));
+        assertTrue(derivedClasses.contains(builder.getClassByName("ArrayList")));
+        assertEquals(1, collection.getDirectDerivedClasses().size());
+    }
+
     public void testSourcePropertyClass() throws IOException {
         builder.addSource(new File("src/test/java/com/thoughtworks/qdox/testdata/PropertyClass.java"));
 
@@ -578,6 +1050,20 @@ public class JavaProjectBuilderTest extends TestCase
 
     }
 
+    public void testSaveAndRestoreWithSourceFolder() throws Exception {
+        builder = new JavaProjectBuilder( new OrderedClassLibraryBuilder() );
+        builder.addSourceFolder(new File("target/test-source"));
+        builder.addSource(new StringReader("package x; class Y {}"));
+        File file = new File("target/test-source/cache.obj");
+        builder.save(file);
+        createFile("target/test-source/com/blah/Later.java", "com.blah", "Later");
+
+        JavaProjectBuilder newBuilder = JavaProjectBuilder.load(file);
+        assertNotNull(newBuilder.getClassByName("x.Y"));
+        // not part of the snapshot, but found in the restored source folder
+        assertNotNull(newBuilder.getClassByName("com.blah.Later").getSource().getURL());
+    }
+
     public void testSuperClassOfAnInterfaceReturnsNull() throws Exception {
         String in = "package x; interface I {}";
         builder.addSource(new StringReader(in));
@@ -1034,6 +1520,37 @@ public class JavaProjectBuilderTest extends TestCase
         verify( mockErrorHandler ).handle( any( ParseException.class ) );
     }
 
+    public void testMalformedJavaDocIsReportedOnceWithItsSource() throws Exception {
+        File file = new File("target/test-source/com/blah/BadDoc.java");
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        writer.write("package com.blah;\n/**@*/\npublic class BadDoc {}\n");
+        writer.close();
+
+        final List<ParseException> errors = new ArrayList<ParseException>();
+        builder.setErrorHandler(new ErrorHandler() {
+            public void handle(ParseException parseException) {
+                errors.add(parseException);
+            }
+        });
+        builder.addSource(file);
+        JavaClass badDoc = builder.getClassByName("com.blah.BadDoc");
+
+        assertEquals(0, badDoc.getTags().size());
+        assertNull(badDoc.getComment());
+        assertEquals(0, badDoc.getTags().size());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getMessage(), errors.get(0).getMessage().endsWith("BadDoc.java"));
+    }
+
+    public void testMalformedJavaDocWithoutErrorHandler() {
+        builder.addSource(new StringReader("/**@*/\npublic class BadDoc {}"));
+        JavaClass badDoc = builder.getClassByName("BadDoc");
+
+        assertEquals(0, badDoc.getTags().size());
+        assertNull(badDoc.getComment());
+    }
+
     public void testBinaryClassFieldModifiers() {
         JavaClass javaClass = builder.getClassByName(PropertyClass.class.getName());
         assertEquals("Class", PropertyClass.class.getName(), javaClass.getFullyQualifiedName());
@@ -0,0 +1,112 @@
+package com.thoughtworks.qdox.benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import com.thoughtworks.qdox.JavaProjectBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaConstructor;
+import com.thoughtworks.qdox.model.JavaField;
+import com.thoughtworks.qdox.model.JavaMethod;
+import com.thoughtworks.qdox.model.JavaParameter;
+import com.thoughtworks.qdox.model.JavaSource;
+
+/**
+ * Measures the retained heap of a model before and after {@link JavaProjectBuilder#compact()}, and the bytes allocated
+ * by a traversal of the model with a single thread. The traversal visits the lists which used to be copied by their
+ * accessors. Requires a JVM which supports <code>com.sun.management.ThreadMXBean#getThreadAllocatedBytes()</code>.
+ * <p>
+ * Usage: <code>java com.thoughtworks.qdox.benchmark.CompactionBenchmark [sourceDirectory]</code>
+ * </p>
+ */
+public class CompactionBenchmark
+{
+    public static void main( String[] args )
+        throws Exception
+    {
+        File sourceTree = SourceCorpus.get( args, 20, 50 );
+        long empty = usedHeap();
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.addSourceTree( sourceTree );
+        // parse the javadoc, so the tags count for both measurements
+        traverse( builder );
+
+        System.out.println( "model\tretained bytes\ttraversal bytes" );
+        System.out.println( "built\t" + ( usedHeap() - empty ) + "\t" + allocatedBytes( builder ) );
+        builder.compact();
+        System.out.println( "compacted\t" + ( usedHeap() - empty ) + "\t" + allocatedBytes( builder ) );
+    }
+
+    private static long usedHeap()
+        throws InterruptedException
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for ( int i = 0; i < 5; i++ )
+        {
+            System.gc();
+            Thread.sleep( 100 );
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long allocatedBytes( JavaProjectBuilder builder )
+    {
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // warm up the JIT, so its allocations don't count
+        for ( int i = 0; i < 5; i++ )
+        {
+            traverse( builder );
+        }
+        long best = Long.MAX_VALUE;
+        for ( int i = 0; i < 5; i++ )
+        {
+            long start = threadBean.getThreadAllocatedBytes( threadId );
+            traverse( builder );
+            best = Math.min( best, threadBean.getThreadAllocatedBytes( threadId ) - start );
+        }
+        return best;
+    }
+
+    private static int traverse( JavaProjectBuilder builder )
+    {
+        int result = 0;
+        for ( JavaSource source : builder.getSources() )
+        {
+            result += source.getImports().size();
+            for ( JavaClass cls : source.getClasses() )
+            {
+                result += traverse( cls );
+            }
+        }
+        return result;
+    }
+
+    private static int traverse( JavaClass cls )
+    {
+        int result = cls.getImplements().size() + cls.getInterfaces().size() + cls.getTags().size();
+        result += cls.getAnnotations().size() + cls.getTypeParameters().size();
+        for ( JavaField field : cls.getFields() )
+        {
+            result += field.getModifiers().size() + field.getTags().size();
+        }
+        for ( JavaConstructor constructor : cls.getConstructors() )
+        {
+            result += constructor.getExceptions().size() + constructor.getParameters().size();
+        }
+        for ( JavaMethod method : cls.getMethods() )
+        {
+            result += method.getExceptions().size() + method.getExceptionTypes().size() + method.getTags().size();
+            for ( JavaParameter parameter : method.getParameters() )
+            {
+                result += parameter.getAnnotations().size();
+            }
+        }
+        for ( JavaClass nestedClass : cls.getNestedClasses() )
+        {
+            result += traverse( nestedClass );
+        }
+        return result;
+    }
+}
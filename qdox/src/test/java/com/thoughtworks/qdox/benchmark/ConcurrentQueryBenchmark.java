@@ -0,0 +1,114 @@
+package com.thoughtworks.qdox.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.thoughtworks.qdox.JavaProjectBuilder;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaMethod;
+import com.thoughtworks.qdox.model.JavaParameter;
+
+/**
+ * Measures how the throughput of queries on a single model scales with the number of threads, without any external
+ * locking. Every thread visits all classes and resolves their superclasses, interfaces and method signatures.
+ * <p>
+ * Usage: <code>java com.thoughtworks.qdox.benchmark.ConcurrentQueryBenchmark [sourceDirectory]</code>
+ * </p>
+ */
+public class ConcurrentQueryBenchmark
+{
+    public static void main( String[] args )
+        throws Exception
+    {
+        File sourceTree = SourceCorpus.get( args, 20, 50 );
+        int processors = Runtime.getRuntime().availableProcessors();
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.addSourceTree( sourceTree );
+        List<JavaClass> classes = new ArrayList<JavaClass>( builder.getClasses() );
+
+        ExecutorService executor = Executors.newFixedThreadPool( processors );
+        try
+        {
+            // warm up the JIT and resolve all lazy types
+            for ( int i = 0; i < 5; i++ )
+            {
+                run( executor, classes, processors );
+            }
+
+            System.out.println( "threads\tclasses\tmillis\tclasses/s\tspeedup" );
+            double baseline = 0;
+            for ( int threads = 1; threads <= processors; threads = ( threads == processors ? threads + 1
+                            : Math.min( threads * 2, processors ) ) )
+            {
+                long best = Long.MAX_VALUE;
+                int visited = 0;
+                for ( int i = 0; i < 5; i++ )
+                {
+                    long start = System.nanoTime();
+                    visited = run( executor, classes, threads );
+                    best = Math.min( best, System.nanoTime() - start );
+                }
+                double classesPerSecond = visited / ( best / 1e9 );
+                if ( threads == 1 )
+                {
+                    baseline = classesPerSecond;
+                }
+                System.out.println( threads + "\t" + visited + "\t" + ( best / 1000000 ) + "\t"
+                    + (long) classesPerSecond + "\t" + String.format( "%.2f", classesPerSecond / baseline ) );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static int run( ExecutorService executor, final List<JavaClass> classes, int threads )
+        throws Exception
+    {
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for ( int i = 0; i < threads; i++ )
+        {
+            results.add( executor.submit( new Callable<Integer>()
+            {
+                public Integer call()
+                {
+                    int hash = 0;
+                    for ( JavaClass cls : classes )
+                    {
+                        hash += query( cls );
+                    }
+                    return hash;
+                }
+            } ) );
+        }
+        for ( Future<Integer> result : results )
+        {
+            result.get();
+        }
+        return threads * classes.size();
+    }
+
+    private static int query( JavaClass cls )
+    {
+        int result = cls.getSuperClass() != null ? cls.getSuperClass().getFullyQualifiedName().length() : 0;
+        for ( JavaClass implementz : cls.getInterfaces() )
+        {
+            result += implementz.getFullyQualifiedName().length();
+        }
+        for ( JavaMethod method : cls.getMethods() )
+        {
+            result += method.getReturns().getFullyQualifiedName().length();
+            for ( JavaParameter parameter : method.getParameters() )
+            {
+                result += parameter.getType().getFullyQualifiedName().length();
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.thoughtworks.qdox.benchmark;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.thoughtworks.qdox.JavaProjectBuilder;
+import com.thoughtworks.qdox.model.BeanProperty;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaMethod;
+import com.thoughtworks.qdox.model.JavaType;
+
+/**
+ * Measures the queries which walk the supertypes on a deep hierarchy, comparable with the component tree of Swing.
+ * Every level extends the previous one, implements an interface of its own and declares getters and setters. The
+ * queries are repeated, so what is measured is the cost once the model has been resolved.
+ * <p>
+ * Usage: <code>java com.thoughtworks.qdox.benchmark.DeepHierarchyBenchmark [depth] [methodsPerLevel]</code>
+ * </p>
+ */
+public class DeepHierarchyBenchmark
+{
+    private static final List<JavaType> NO_PARAMETERS = Collections.emptyList();
+
+    public static void main( String[] args )
+        throws Exception
+    {
+        int depth = ( args.length > 0 ? Integer.parseInt( args[0] ) : 30 );
+        int methodsPerLevel = ( args.length > 1 ? Integer.parseInt( args[1] ) : 20 );
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        List<JavaClass> classes = new ArrayList<JavaClass>();
+        for ( int level = 0; level < depth; level++ )
+        {
+            builder.addSource( new StringReader( createSource( level, methodsPerLevel ) ) );
+        }
+        for ( int level = 0; level < depth; level++ )
+        {
+            classes.add( builder.getClassByName( "deep.Level" + level ) );
+        }
+
+        System.out.println( "query\tmillis" );
+        print( "getMethods(true)", classes, 0 );
+        print( "getBeanProperties(true)", classes, 1 );
+        print( "getMethodBySignature", classes, 2 );
+        print( "isA", classes, 3 );
+        print( "getBeanProperty(true)", classes, 4 );
+    }
+
+    private static void print( String name, List<JavaClass> classes, int query )
+    {
+        // the first runs warm up the JIT
+        long best = Long.MAX_VALUE;
+        for ( int i = 0; i < 10; i++ )
+        {
+            long start = System.nanoTime();
+            for ( int j = 0; j < 10; j++ )
+            {
+                run( classes, query );
+            }
+            best = Math.min( best, System.nanoTime() - start );
+        }
+        System.out.println( name + "\t" + ( best / 1000000 ) );
+    }
+
+    private static int run( List<JavaClass> classes, int query )
+    {
+        int result = 0;
+        for ( JavaClass cls : classes )
+        {
+            switch ( query )
+            {
+                case 0:
+                    for ( JavaMethod method : cls.getMethods( true ) )
+                    {
+                        result += method.getName().length();
+                    }
+                    break;
+                case 1:
+                    result += cls.getBeanProperties( true ).size();
+                    break;
+                case 2:
+                    JavaMethod method = cls.getMethodBySignature( "getProperty0x0", NO_PARAMETERS, true );
+                    result += ( method != null ? 1 : 0 );
+                    break;
+                case 3:
+                    result += ( cls.isA( "deep.Marker0" ) ? 1 : 0 );
+                    break;
+                default:
+                    // like a generator which looks up every property it writes
+                    for ( BeanProperty property : cls.getBeanProperties( true ) )
+                    {
+                        result += ( cls.getBeanProperty( property.getName(), true ) != null ? 1 : 0 );
+                    }
+            }
+        }
+        return result;
+    }
+
+    private static String createSource( int level, int methodsPerLevel )
+    {
+        StringBuilder source = new StringBuilder( "package deep;\n" );
+        source.append( "interface Marker" ).append( level );
+        source.append( " { void mark" ).append( level ).append( "(); }\n" );
+        source.append( "public class Level" ).append( level );
+        if ( level > 0 )
+        {
+            source.append( " extends Level" ).append( level - 1 );
+        }
+        source.append( " implements Marker" ).append( level ).append( " {\n" );
+        source.append( "  public void mark" ).append( level ).append( "() {}\n" );
+        for ( int i = 0; i < methodsPerLevel / 2; i++ )
+        {
+            String property = "Property" + level + "x" + i;
+            source.append( "  public String get" ).append( property ).append( "() { return null; }\n" );
+            source.append( "  public void set" ).append( property ).append( "(String value) {}\n" );
+        }
+        return source.append( "}\n" ).toString();
+    }
+}
@@ -0,0 +1,57 @@
+package com.thoughtworks.qdox.benchmark;
+
+import java.io.File;
+
+import com.thoughtworks.qdox.JavaProjectBuilder;
+
+/**
+ * Measures how the throughput of {@link JavaProjectBuilder#addSourceTree(File)} scales with the number of threads.
+ * <p>
+ * Usage: <code>java com.thoughtworks.qdox.benchmark.ParallelSourceTreeBenchmark [sourceDirectory]</code>
+ * </p>
+ */
+public class ParallelSourceTreeBenchmark
+{
+    public static void main( String[] args )
+        throws Exception
+    {
+        File sourceTree = SourceCorpus.get( args, 40, 50 );
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        // warm up the JIT
+        for ( int i = 0; i < 3; i++ )
+        {
+            run( sourceTree, processors );
+        }
+
+        System.out.println( "threads\tfiles\tmillis\tfiles/s\tspeedup" );
+        double baseline = 0;
+        for ( int threads = 1; threads <= processors; threads = ( threads == processors ? threads + 1
+                        : Math.min( threads * 2, processors ) ) )
+        {
+            long best = Long.MAX_VALUE;
+            int files = 0;
+            for ( int i = 0; i < 5; i++ )
+            {
+                long start = System.nanoTime();
+                files = run( sourceTree, threads );
+                best = Math.min( best, System.nanoTime() - start );
+            }
+            double filesPerSecond = files / ( best / 1e9 );
+            if ( threads == 1 )
+            {
+                baseline = filesPerSecond;
+            }
+            System.out.println( threads + "\t" + files + "\t" + ( best / 1000000 ) + "\t" + (long) filesPerSecond
+                + "\t" + String.format( "%.2f", filesPerSecond / baseline ) );
+        }
+    }
+
+    private static int run( File sourceTree, int threads )
+    {
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.setThreadCount( threads );
+        builder.addSourceTree( sourceTree );
+        return builder.getSources().size();
+    }
+}
@@ -0,0 +1,83 @@
+package com.thoughtworks.qdox.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import com.thoughtworks.qdox.JavaProjectBuilder;
+
+/**
+ * Measures the bytes allocated per 1000 lines of code while parsing a source tree with a single thread. Requires a
+ * JVM which supports <code>com.sun.management.ThreadMXBean#getThreadAllocatedBytes()</code>.
+ * <p>
+ * Usage: <code>java com.thoughtworks.qdox.benchmark.ParserAllocationBenchmark [sourceDirectory]</code>
+ * </p>
+ */
+public class ParserAllocationBenchmark
+{
+    public static void main( String[] args )
+        throws Exception
+    {
+        File sourceTree = SourceCorpus.get( args, 10, 50 );
+        long lines = countLines( sourceTree );
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // warm up the JIT, so its allocations don't count
+        for ( int i = 0; i < 5; i++ )
+        {
+            run( sourceTree );
+        }
+
+        System.out.println( "lines\tbytes\tbytes/KLOC" );
+        long best = Long.MAX_VALUE;
+        for ( int i = 0; i < 5; i++ )
+        {
+            long start = threadBean.getThreadAllocatedBytes( threadId );
+            run( sourceTree );
+            best = Math.min( best, threadBean.getThreadAllocatedBytes( threadId ) - start );
+        }
+        System.out.println( lines + "\t" + best + "\t" + ( best * 1000 / lines ) );
+    }
+
+    private static void run( File sourceTree )
+    {
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.addSourceTree( sourceTree );
+    }
+
+    private static long countLines( File file )
+        throws IOException
+    {
+        if ( file.isDirectory() )
+        {
+            long result = 0;
+            for ( File child : file.listFiles() )
+            {
+                result += countLines( child );
+            }
+            return result;
+        }
+        else if ( !file.getName().endsWith( ".java" ) )
+        {
+            return 0;
+        }
+        BufferedReader reader = new BufferedReader( new FileReader( file ) );
+        try
+        {
+            long result = 0;
+            while ( reader.readLine() != null )
+            {
+                result++;
+            }
+            return result;
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+}
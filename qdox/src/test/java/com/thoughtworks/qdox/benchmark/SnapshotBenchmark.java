@@ -0,0 +1,84 @@
+package com.thoughtworks.qdox.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.thoughtworks.qdox.JavaProjectBuilder;
+import com.thoughtworks.qdox.library.SortedClassLibraryBuilder;
+
+/**
+ * Compares the time to save and load a parsed source tree and the size of the file between the snapshot format of
+ * {@link JavaProjectBuilder#save(File)} and the serialized ClassLibraryBuilder, with parsing the tree again as
+ * reference.
+ * <p>
+ * Usage: <code>java com.thoughtworks.qdox.benchmark.SnapshotBenchmark [sourceDirectory]</code>
+ * </p>
+ */
+public class SnapshotBenchmark
+{
+    public static void main( String[] args )
+        throws Exception
+    {
+        File sourceTree = SourceCorpus.get( args, 20, 100 );
+        File snapshot = File.createTempFile( "qdox", ".snapshot" );
+        File serialized = File.createTempFile( "qdox", ".ser" );
+        snapshot.deleteOnExit();
+        serialized.deleteOnExit();
+
+        long parse = Long.MAX_VALUE;
+        long saveSnapshot = Long.MAX_VALUE;
+        long loadSnapshot = Long.MAX_VALUE;
+        long saveSerialized = Long.MAX_VALUE;
+        long loadSerialized = Long.MAX_VALUE;
+        for ( int i = 0; i < 10; i++ )
+        {
+            long start = System.nanoTime();
+            SortedClassLibraryBuilder libraryBuilder = new SortedClassLibraryBuilder();
+            JavaProjectBuilder builder = new JavaProjectBuilder( libraryBuilder );
+            builder.addSourceTree( sourceTree );
+            parse = Math.min( parse, System.nanoTime() - start );
+
+            start = System.nanoTime();
+            builder.save( snapshot );
+            saveSnapshot = Math.min( saveSnapshot, System.nanoTime() - start );
+
+            start = System.nanoTime();
+            new JavaProjectBuilder( new SortedClassLibraryBuilder() ).addSnapshot( snapshot );
+            loadSnapshot = Math.min( loadSnapshot, System.nanoTime() - start );
+
+            start = System.nanoTime();
+            ObjectOutputStream out = new ObjectOutputStream( new FileOutputStream( serialized ) );
+            try
+            {
+                out.writeObject( libraryBuilder );
+            }
+            finally
+            {
+                out.close();
+            }
+            saveSerialized = Math.min( saveSerialized, System.nanoTime() - start );
+
+            start = System.nanoTime();
+            ObjectInputStream in = new ObjectInputStream( new FileInputStream( serialized ) );
+            try
+            {
+                in.readObject();
+            }
+            finally
+            {
+                in.close();
+            }
+            loadSerialized = Math.min( loadSerialized, System.nanoTime() - start );
+        }
+
+        System.out.println( "format\tsave (ms)\tload (ms)\tsize (bytes)" );
+        System.out.println( "parse\t-\t" + ( parse / 1000000 ) + "\t-" );
+        System.out.println( "snapshot\t" + ( saveSnapshot / 1000000 ) + "\t" + ( loadSnapshot / 1000000 ) + "\t"
+            + snapshot.length() );
+        System.out.println( "serialized\t" + ( saveSerialized / 1000000 ) + "\t" + ( loadSerialized / 1000000 ) + "\t"
+            + serialized.length() );
+    }
+}
@@ -0,0 +1,103 @@
+package com.thoughtworks.qdox.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Generates a tree of java sources for the benchmarks, or uses an existing directory when one is passed as argument.
+ * The generated classes have javadoc with tags, imports, fields, implementation-heavy methods and a class hierarchy,
+ * so every part of the Lexer, Parser and ModelBuilder is used.
+ */
+public final class SourceCorpus
+{
+    private SourceCorpus()
+    {
+    }
+
+    /**
+     * @param args the arguments of the benchmark, the first argument is an optional directory with sources
+     * @param packages the number of packages to generate
+     * @param classesPerPackage the number of classes per package to generate
+     * @return the directory containing the sources
+     * @throws IOException if the sources can't be written
+     */
+    public static File get( String[] args, int packages, int classesPerPackage )
+        throws IOException
+    {
+        if ( args.length > 0 )
+        {
+            return new File( args[0] );
+        }
+        File dir = new File( "target/benchmark-source/" + packages + "x" + classesPerPackage );
+        if ( !dir.exists() )
+        {
+            generate( dir, packages, classesPerPackage );
+        }
+        return dir;
+    }
+
+    private static void generate( File dir, int packages, int classesPerPackage )
+        throws IOException
+    {
+        for ( int p = 0; p < packages; p++ )
+        {
+            String packageName = "bench.p" + p;
+            File packageDir = new File( dir, packageName.replace( '.', File.separatorChar ) );
+            packageDir.mkdirs();
+            for ( int c = 0; c < classesPerPackage; c++ )
+            {
+                Writer writer = new FileWriter( new File( packageDir, "C" + c + ".java" ) );
+                try
+                {
+                    writeClass( writer, p, c );
+                }
+                finally
+                {
+                    writer.close();
+                }
+            }
+        }
+    }
+
+    private static void writeClass( Writer writer, int p, int c )
+        throws IOException
+    {
+        writer.write( "package bench.p" + p + ";\n\n" );
+        writer.write( "import java.util.*;\n" );
+        writer.write( "import java.io.Serializable;\n" );
+        if ( p > 0 )
+        {
+            writer.write( "import bench.p" + ( p - 1 ) + ".*;\n" );
+        }
+        writer.write( "\n/**\n * Generated class number " + c + " of package " + p + ".\n *\n" );
+        writer.write( " * @author benchmark\n * @since 1." + c + "\n * @hibernate.class table=\"C" + c + "\"\n */\n" );
+        String superClass = c > 0 ? "C" + ( c - 1 ) : ( p > 0 ? "bench.p" + ( p - 1 ) + ".C0" : "Object" );
+        writer.write( "public class C" + c + " extends " + superClass + " implements Serializable, Comparable<C" + c
+            + ">\n{\n" );
+        for ( int f = 0; f < 5; f++ )
+        {
+            writer.write( "    /** field " + f + " @hibernate.property */\n" );
+            writer.write( "    private List<String> field" + f + c + " = new ArrayList<String>();\n\n" );
+        }
+        for ( int m = 0; m < 10; m++ )
+        {
+            writer.write( "    /**\n     * Method " + m + " of C" + c + ".\n     *\n" );
+            writer.write( "     * @param value the value\n     * @return the result\n     * @throws IOException never\n" );
+            writer.write( "     */\n" );
+            writer.write( "    public Map<String, Integer> method" + m + c
+                + "( String value, int count ) throws java.io.IOException\n    {\n" );
+            writer.write( "        Map<String, Integer> result = new HashMap<String, Integer>();\n" );
+            writer.write( "        for ( int i = 0; i < count; i++ )\n        {\n" );
+            writer.write( "            if ( value != null && value.length() > i ) // check the length\n" );
+            writer.write( "            {\n                result.put( value.substring( i ) + \"" + m
+                + "\", Integer.valueOf( i * " + m + " ) );\n            }\n" );
+            writer.write( "            else\n            {\n                result.remove( \"x\" );\n" );
+            writer.write( "            }\n        }\n        return result;\n    }\n\n" );
+        }
+        writer.write( "    public String getName" + c + "()\n    {\n        return \"C" + c + "\";\n    }\n\n" );
+        writer.write( "    public void setName" + c + "( String name )\n    {\n    }\n\n" );
+        writer.write( "    public int compareTo( C" + c + " other )\n    {\n        return 0;\n    }\n}\n" );
+    }
+}
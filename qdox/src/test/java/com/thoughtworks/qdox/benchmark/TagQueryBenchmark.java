@@ -0,0 +1,87 @@
+package com.thoughtworks.qdox.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.thoughtworks.qdox.JavaProjectBuilder;
+import com.thoughtworks.qdox.model.JavaAnnotatedElement;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaField;
+import com.thoughtworks.qdox.model.JavaMethod;
+
+/**
+ * Measures how long it takes to find the elements which carry a doclet tag, the way generators ask for them: by
+ * scanning every class and member with <code>getTagsByName</code>, and with the index of the project. The queries are
+ * repeated, so what is measured is the cost once the javadoc has been parsed.
+ * <p>
+ * Usage: <code>java com.thoughtworks.qdox.benchmark.TagQueryBenchmark [sourceDirectory]</code>
+ * </p>
+ */
+public class TagQueryBenchmark
+{
+    private static final String[] TAG_NAMES = { "hibernate.class", "hibernate.property", "param", "missing" };
+
+    public static void main( String[] args )
+        throws Exception
+    {
+        File sourceTree = SourceCorpus.get( args, 20, 50 );
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.addSourceTree( sourceTree );
+        List<JavaClass> classes = new ArrayList<JavaClass>( builder.getClasses() );
+
+        System.out.println( "query\tmillis" );
+        print( "scan", builder, classes, false );
+        print( "index", builder, classes, true );
+    }
+
+    private static void print( String name, JavaProjectBuilder builder, List<JavaClass> classes, boolean index )
+    {
+        // the first runs warm up the JIT and parse the javadoc
+        long best = Long.MAX_VALUE;
+        for ( int i = 0; i < 10; i++ )
+        {
+            long start = System.nanoTime();
+            for ( String tagName : TAG_NAMES )
+            {
+                if ( index )
+                {
+                    builder.getTaggedElements( tagName );
+                }
+                else
+                {
+                    scan( classes, tagName );
+                }
+            }
+            best = Math.min( best, System.nanoTime() - start );
+        }
+        System.out.println( name + "\t" + ( best / 1000000.0 ) );
+    }
+
+    private static List<JavaAnnotatedElement> scan( List<JavaClass> classes, String tagName )
+    {
+        List<JavaAnnotatedElement> result = new ArrayList<JavaAnnotatedElement>();
+        for ( JavaClass cls : classes )
+        {
+            if ( !cls.getTagsByName( tagName ).isEmpty() )
+            {
+                result.add( cls );
+            }
+            for ( JavaField field : cls.getFields() )
+            {
+                if ( field.getTagByName( tagName ) != null )
+                {
+                    result.add( field );
+                }
+            }
+            for ( JavaMethod method : cls.getMethods() )
+            {
+                if ( method.getTagByName( tagName ) != null )
+                {
+                    result.add( method );
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package com.thoughtworks.qdox.builder.impl;
+
+import junit.framework.TestCase;
+
+public class DefaultSymbolTableTest
+    extends TestCase
+{
+    private DefaultSymbolTable symbolTable = new DefaultSymbolTable();
+
+    public void testInternReturnsFirstInstance()
+    {
+        String first = new String( "java.util.List" );
+        String second = new String( "java.util.List" );
+        assertSame( first, symbolTable.intern( first ) );
+        assertSame( first, symbolTable.intern( second ) );
+        assertEquals( 1, symbolTable.size() );
+    }
+
+    public void testInternNull()
+    {
+        assertNull( symbolTable.intern( null ) );
+        assertEquals( 0, symbolTable.size() );
+    }
+}
@@ -2,6 +2,8 @@ package com.thoughtworks.qdox.builder.impl;
 
 import static org.mockito.Mockito.*;
 
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.TestCase;
@@ -13,6 +15,8 @@ import com.thoughtworks.qdox.model.JavaConstructor;
 import com.thoughtworks.qdox.model.JavaField;
 import com.thoughtworks.qdox.model.JavaMethod;
 import com.thoughtworks.qdox.model.JavaSource;
+import com.thoughtworks.qdox.model.impl.DefaultJavaClass;
+import com.thoughtworks.qdox.model.impl.DefaultJavaField;
 import com.thoughtworks.qdox.parser.structs.ClassDef;
 import com.thoughtworks.qdox.parser.structs.FieldDef;
 import com.thoughtworks.qdox.parser.structs.MethodDef;
@@ -514,6 +518,26 @@ public class ModelBuilderTest extends TestCase {
         assertEquals("blah", result.getModifiers().get(1));
     }
 
+    public void testFieldWithModifierFlags() throws Exception {
+        builder.beginClass(new ClassDef());
+
+        FieldDef fld = new FieldDef();
+        fld.getModifiers().add("public");
+        fld.getModifiers().add("static");
+        fld.getModifiers().add("final");
+        builder.beginField(fld);
+        builder.endField();
+        builder.endClass();
+
+        DefaultJavaField result = (DefaultJavaField) builder.getSource().getClasses().get(0).getFields().get(0);
+        assertEquals(Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL, result.getModifierFlags());
+        assertTrue(result.isPublic());
+        assertTrue(result.isStatic());
+        assertTrue(result.isFinal());
+        assertFalse(result.isPrivate());
+        assertEquals(Arrays.asList("public", "static", "final"), result.getModifiers());
+    }
+
     public void testFieldNoArray() throws Exception {
         builder.beginClass(new ClassDef());
 
@@ -748,6 +772,33 @@ public class ModelBuilderTest extends TestCase {
 //        assertEquals("are boring", source.getClasses().get(0).getTags().get(2).getValue());
     }
 
+    public void testJavaDocCommentIsParsedWhenRequested() throws Exception {
+        builder.addJavaDocComment("/**\n * Hello\n * @cheese is good\n */", 4, 1, false, false);
+        builder.beginClass(new ClassDef());
+        builder.endClass();
+
+        JavaSource source = builder.getSource();
+        verifyZeroInteractions( docletTagFactory );
+
+        assertEquals(1, source.getClasses().get(0).getTags().size());
+        assertEquals("Hello", source.getClasses().get(0).getComment());
+        verify( docletTagFactory ).createDocletTag( eq("cheese"), eq("is good"), isA( JavaClass.class ), eq(6) );
+        verifyNoMoreInteractions( docletTagFactory );
+    }
+
+    public void testSetCommentKeepsTagsOfJavaDocComment() throws Exception {
+        builder.addJavaDocComment("/**\n * Hello\n * @cheese is good\n */", 4, 1, false, false);
+        builder.beginClass(new ClassDef());
+        builder.endClass();
+
+        DefaultJavaClass cls = (DefaultJavaClass) builder.getSource().getClasses().get(0);
+        cls.setComment("Bye");
+        verifyZeroInteractions( docletTagFactory );
+
+        assertEquals("Bye", cls.getComment());
+        assertEquals(1, cls.getTags().size());
+    }
+
     public void testDocletTagsOnMethodsAndFields() throws Exception {
         builder.addJavaDoc("");
         builder.addJavaDocTag(new TagDef("cheese", "is good"));
@@ -1,7 +1,17 @@
 package com.thoughtworks.qdox.library;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.TestCase;
 
@@ -137,4 +147,93 @@ public class AbstractClassLibraryTest
         assertEquals( null, nullClassLibrary.getJavaPackage( "java.lang" ) );
         assertEquals( null, nullClassLibrary.getJavaPackage( "com.thoughtworks" ) );
     }
+
+    public void testClassNamesRejectWithoutLookup()
+    {
+        final StringBuffer lookups = new StringBuffer();
+        AbstractClassLibrary indexedClassLibrary = new AbstractClassLibrary()
+        {
+            public Set<String> getClassNames( String packageName )
+            {
+                return "com.acme".equals( packageName ) ? Collections.singleton( "Foo" ) : null;
+            }
+            protected JavaClass resolveJavaClass( String name )
+            {
+                lookups.append( name ).append( ';' );
+                return new DefaultJavaClass( name );
+            }
+            protected JavaPackage resolveJavaPackage( String name )
+            {
+                return null;
+            }
+            protected boolean containsClassReference( String name )
+            {
+                lookups.append( name ).append( ';' );
+                return true;
+            }
+        };
+        assertTrue( indexedClassLibrary.hasClassReference( "com.acme.Foo$Bar" ) );
+        assertFalse( indexedClassLibrary.hasClassReference( "com.acme.Bar" ) );
+        assertNull( indexedClassLibrary.getJavaClass( "com.acme.Bar" ) );
+        // not indexed, so looked up
+        assertTrue( indexedClassLibrary.hasClassReference( "org.acme.Bar" ) );
+        assertEquals( "com.acme.Foo$Bar;org.acme.Bar;", lookups.toString() );
+    }
+
+    public void testConcurrentGetJavaClassResolvesOnce()
+        throws Exception
+    {
+        final AtomicInteger resolved = new AtomicInteger();
+        final AbstractClassLibrary slowClassLibrary = new AbstractClassLibrary()
+        {
+            protected JavaClass resolveJavaClass( String name )
+            {
+                resolved.incrementAndGet();
+                try
+                {
+                    Thread.sleep( 50 );
+                }
+                catch ( InterruptedException e )
+                {
+                }
+                return new DefaultJavaClass( name );
+            }
+            protected JavaPackage resolveJavaPackage( String name )
+            {
+                return null;
+            }
+            protected boolean containsClassReference( String name )
+            {
+                return false;
+            }
+        };
+        final CountDownLatch start = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            List<Future<JavaClass>> results = new ArrayList<Future<JavaClass>>();
+            for ( int i = 0; i < 4; i++ )
+            {
+                results.add( executor.submit( new Callable<JavaClass>()
+                {
+                    public JavaClass call()
+                        throws Exception
+                    {
+                        start.await();
+                        return slowClassLibrary.getJavaClass( "com.acme.Foo" );
+                    }
+                } ) );
+            }
+            start.countDown();
+            for ( Future<JavaClass> result : results )
+            {
+                assertSame( results.get( 0 ).get(), result.get() );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertEquals( 1, resolved.get() );
+    }
 }
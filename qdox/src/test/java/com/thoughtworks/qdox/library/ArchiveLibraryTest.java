@@ -0,0 +1,133 @@
+package com.thoughtworks.qdox.library;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import junit.framework.TestCase;
+
+import com.thoughtworks.qdox.model.JavaClass;
+
+public class ArchiveLibraryTest
+    extends TestCase
+{
+    private static final String FIXTURE = ClassFileLibraryTest.Fixture.class.getName();
+
+    private static final String SOURCE = "package com.acme;\n"
+        + "/** Documented */\n"
+        + "public class Foo {\n"
+        + "  public void bar(String name) {}\n"
+        + "  public static class Nested {}\n"
+        + "}\n";
+
+    private File archive = new File( "target/test-archive/archive-library.jar" );
+
+    private ArchiveLibrary archiveLibrary;
+
+    protected void setUp()
+        throws Exception
+    {
+        archive.getParentFile().mkdirs();
+        JarOutputStream out = new JarOutputStream( new FileOutputStream( archive ) );
+        try
+        {
+            for ( Class<?> cls : new Class<?>[] { ClassFileLibraryTest.class, ClassFileLibraryTest.Fixture.class,
+                ClassFileLibraryTest.Fixture.Color.class, ClassFileLibraryTest.Fixture.Inner.class } )
+            {
+                String path = cls.getName().replace( '.', '/' ) + ".class";
+                out.putNextEntry( new ZipEntry( path ) );
+                copy( new FileInputStream( new File( "target/test-classes", path ) ), out );
+            }
+            out.putNextEntry( new ZipEntry( "com/acme/Foo.java" ) );
+            out.write( SOURCE.getBytes( "UTF-8" ) );
+        }
+        finally
+        {
+            out.close();
+        }
+        // java.lang.Object isn't part of the archive
+        archiveLibrary = new ArchiveLibrary( new ClassNameLibrary() );
+        archiveLibrary.addArchive( archive );
+    }
+
+    public void testClassReferencesFromIndex()
+    {
+        assertTrue( archiveLibrary.hasClassReference( FIXTURE ) );
+        assertTrue( archiveLibrary.hasClassReference( FIXTURE + "$Color" ) );
+        assertTrue( archiveLibrary.hasClassReference( "com.acme.Foo" ) );
+        assertTrue( archiveLibrary.hasClassReference( "com.acme.Foo$Nested" ) );
+        // ClassNameLibrary knows every class, so ask the archive itself
+        assertFalse( archiveLibrary.containsClassReference( "com.acme.Bar" ) );
+        assertFalse( archiveLibrary.containsClassReference( "java.lang.String" ) );
+    }
+
+    public void testClassNames()
+    {
+        assertEquals( Collections.singleton( "Foo" ), archiveLibrary.getClassNames( "com.acme" ) );
+        assertTrue( archiveLibrary.getClassNames( "com.thoughtworks.qdox.library" ).contains( "ClassFileLibraryTest" ) );
+        assertEquals( 1, archiveLibrary.getClassNames( "com.thoughtworks.qdox.library" ).size() );
+        assertTrue( archiveLibrary.getClassNames( "com.foo" ).isEmpty() );
+    }
+
+    public void testClassFileEntry()
+    {
+        JavaClass fixture = archiveLibrary.getJavaClass( FIXTURE );
+        assertEquals( FIXTURE, fixture.getFullyQualifiedName() );
+        assertTrue( fixture.isAbstract() );
+        assertEquals( "T", fixture.getTypeParameters().get( 0 ).getName() );
+        assertTrue( fixture.getNestedClassByName( "Color" ).isEnum() );
+
+        JavaClass inner = archiveLibrary.getJavaClass( FIXTURE + "$Inner" );
+        assertEquals( fixture, inner.getDeclaringClass() );
+    }
+
+    public void testSourceEntry()
+    {
+        JavaClass foo = archiveLibrary.getJavaClass( "com.acme.Foo" );
+        assertEquals( "Documented", foo.getComment() );
+        assertEquals( "name", foo.getMethods().get( 0 ).getParameters().get( 0 ).getName() );
+
+        JavaClass nested = archiveLibrary.getJavaClass( "com.acme.Foo$Nested" );
+        assertEquals( "com.acme.Foo$Nested", nested.getFullyQualifiedName() );
+    }
+
+    public void testPackages()
+    {
+        assertNotNull( archiveLibrary.getJavaPackage( "com.acme" ) );
+        assertNotNull( archiveLibrary.getJavaPackage( "com.thoughtworks.qdox.library" ) );
+        assertNull( archiveLibrary.getJavaPackage( "com.foo" ) );
+    }
+
+    public void testBuilder()
+    {
+        ClassLibraryBuilder builder = new SortedClassLibraryBuilder();
+        builder.appendArchive( archive );
+        assertEquals( "Documented", builder.getClassLibrary().getJavaClass( "com.acme.Foo" ).getComment() );
+
+        builder = new OrderedClassLibraryBuilder();
+        builder.appendArchive( archive );
+        assertEquals( "Documented", builder.getClassLibrary().getJavaClass( "com.acme.Foo" ).getComment() );
+    }
+
+    private static void copy( InputStream in, JarOutputStream out )
+        throws IOException
+    {
+        try
+        {
+            byte[] buffer = new byte[4096];
+            for ( int read = in.read( buffer ); read >= 0; read = in.read( buffer ) )
+            {
+                out.write( buffer, 0, read );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
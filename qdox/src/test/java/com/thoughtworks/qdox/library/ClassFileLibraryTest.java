@@ -0,0 +1,168 @@
+package com.thoughtworks.qdox.library;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URL;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaConstructor;
+import com.thoughtworks.qdox.model.JavaField;
+import com.thoughtworks.qdox.model.JavaMethod;
+
+public class ClassFileLibraryTest
+    extends TestCase
+{
+    private static final String FIXTURE = Fixture.class.getName();
+
+    private ClassFileLibrary classFileLibrary;
+
+    protected void setUp()
+        throws Exception
+    {
+        classFileLibrary = new ClassFileLibrary( null );
+    }
+
+    public void testNoClassFiles()
+    {
+        assertNull( classFileLibrary.getJavaClass( "java.lang.String" ) );
+        assertFalse( classFileLibrary.hasClassReference( "java.lang.String" ) );
+    }
+
+    public void testClassLoaderResources()
+    {
+        classFileLibrary.addClassLoader( getClass().getClassLoader() );
+        assertTrue( classFileLibrary.hasClassReference( "java.util.HashMap" ) );
+        assertFalse( classFileLibrary.hasClassReference( "java.util.GoatCrusher" ) );
+        assertNull( classFileLibrary.getJavaClass( "java.util.GoatCrusher" ) );
+
+        JavaClass hashMap = classFileLibrary.getJavaClass( "java.util.HashMap" );
+        assertEquals( "java.util.HashMap", hashMap.getFullyQualifiedName() );
+        assertEquals( 2, hashMap.getTypeParameters().size() );
+        assertEquals( "java.util.AbstractMap<K,V>", hashMap.getSuperClass().getGenericFullyQualifiedName() );
+        assertEquals( "java.util.Map<K,V>", hashMap.getImplements().get( 0 ).getGenericFullyQualifiedName() );
+
+        JavaClass entry = classFileLibrary.getJavaClass( "java.util.Map$Entry" );
+        assertTrue( entry.isInterface() );
+        assertEquals( "java.util.Map", entry.getDeclaringClass().getFullyQualifiedName() );
+        assertNotNull( classFileLibrary.getJavaPackage( "java.util" ) );
+    }
+
+    public void testClassFolder()
+    {
+        // java.lang.Object isn't part of the folder
+        classFileLibrary = new ClassFileLibrary( new ClassNameLibrary() );
+        classFileLibrary.addDirectory( new File( "target/test-classes" ) );
+        assertFixture( classFileLibrary.getJavaClass( FIXTURE ) );
+    }
+
+    public void testClassNamesOfClassFolder()
+    {
+        classFileLibrary.addDirectory( new File( "target/test-classes" ) );
+        Set<String> classNames = classFileLibrary.getClassNames( getClass().getPackage().getName() );
+        assertTrue( classNames.contains( "ClassFileLibraryTest" ) );
+        assertFalse( classNames.contains( "ClassFileLibraryTest$Fixture" ) );
+        assertTrue( classFileLibrary.getClassNames( "com.foo" ).isEmpty() );
+        assertFalse( classFileLibrary.hasClassReference( "com.foo.Foo" ) );
+
+        // classloaders can't list their classes
+        classFileLibrary.addClassLoader( getClass().getClassLoader() );
+        assertNull( classFileLibrary.getClassNames( "com.foo" ) );
+    }
+
+    public void testClassesAreNeverLoaded()
+    {
+        final StringBuffer loaded = new StringBuffer();
+        classFileLibrary.addClassLoader( new ClassLoader( getClass().getClassLoader() )
+        {
+            protected Class<?> loadClass( String name, boolean resolve )
+                throws ClassNotFoundException
+            {
+                loaded.append( name );
+                return super.loadClass( name, resolve );
+            }
+
+            public URL getResource( String name )
+            {
+                return getParent().getResource( name );
+            }
+        } );
+        assertFixture( classFileLibrary.getJavaClass( FIXTURE ) );
+        assertEquals( "", loaded.toString() );
+    }
+
+    private void assertFixture( JavaClass fixture )
+    {
+        assertEquals( FIXTURE, fixture.getFullyQualifiedName() );
+        assertTrue( fixture.isAbstract() );
+        assertEquals( "T", fixture.getTypeParameters().get( 0 ).getName() );
+        assertEquals( "java.util.AbstractList<T>", fixture.getSuperClass().getGenericFullyQualifiedName() );
+        assertEquals( "java.io.Serializable", fixture.getImplements().get( 0 ).getFullyQualifiedName() );
+
+        JavaField values = fixture.getFieldByName( "values" );
+        assertTrue( values.isProtected() );
+        assertEquals( "java.util.Map<java.lang.String,java.util.List<? extends java.lang.Number>>[]",
+                      values.getType().getGenericFullyQualifiedName() );
+        assertNull( fixture.getFieldByName( "this$0" ) );
+
+        JavaConstructor constructor = fixture.getConstructors().get( 0 );
+        assertEquals( 2, constructor.getParameters().size() );
+        assertEquals( "int", constructor.getParameters().get( 0 ).getType().getFullyQualifiedName() );
+        assertTrue( constructor.getParameters().get( 1 ).isVarArgs() );
+        assertEquals( "java.lang.String", constructor.getParameters().get( 1 ).getType().getFullyQualifiedName() );
+        assertEquals( "java.io.IOException", constructor.getExceptionTypes().get( 0 ).getFullyQualifiedName() );
+
+        JavaMethod pick = fixture.getMethods().get( 0 );
+        assertEquals( "pick", pick.getName() );
+        assertEquals( "E", pick.getTypeParameters().get( 0 ).getName() );
+        assertEquals( "T", pick.getReturns().getFullyQualifiedName() );
+        assertEquals( "java.util.List<T>", pick.getParameters().get( 0 ).getType().getGenericFullyQualifiedName() );
+        assertEquals( 2, pick.getParameters().get( 1 ).getJavaClass().getDimensions() );
+        assertEquals( "E", pick.getExceptionTypes().get( 0 ).getValue() );
+
+        JavaClass color = fixture.getNestedClassByName( "Color" );
+        assertTrue( color.isEnum() );
+        assertTrue( color.getFieldByName( "RED" ).isEnumConstant() );
+        assertEquals( 0, color.getConstructors().get( 0 ).getParameters().size() );
+
+        JavaClass inner = fixture.getNestedClassByName( "Inner" );
+        assertFalse( inner.isStatic() );
+        assertEquals( 1, inner.getConstructors().get( 0 ).getParameters().size() );
+    }
+
+    public abstract static class Fixture<T extends Comparable<? super T>>
+        extends AbstractList<T>
+        implements Serializable
+    {
+        protected Map<String, List<? extends Number>>[] values;
+
+        public Fixture( int size, String... names )
+            throws IOException
+        {
+        }
+
+        public <E extends Exception> T pick( List<T> from, int[][] index )
+            throws E
+        {
+            return null;
+        }
+
+        public enum Color
+        {
+            RED, GREEN;
+        }
+
+        public class Inner
+        {
+            public Inner( String name )
+            {
+            }
+        }
+    }
+}
@@ -33,4 +33,44 @@ public class ClassLoaderLibraryTest
         assertNull(classLoaderLibrary.getJavaClass("java.util.GoatCrusher"));
     }
 
+    public void testMissingClassCache() throws Exception {
+        final int[] lookups = new int[1];
+        ClassLoader classLoader = new ClassLoader( getClass().getClassLoader() )
+        {
+            protected Class<?> loadClass( String name, boolean resolve )
+                throws ClassNotFoundException
+            {
+                lookups[0]++;
+                return super.loadClass( name, resolve );
+            }
+        };
+        MissingClassCache missingClassCache = new MissingClassCache();
+        classLoaderLibrary.setMissingClassCache( missingClassCache );
+        classLoaderLibrary.addClassLoader( classLoader );
+
+        assertFalse( classLoaderLibrary.hasClassReference( "java.util.GoatCrusher" ) );
+        assertNull( classLoaderLibrary.getJavaClass( "java.util.GoatCrusher" ) );
+        int missingLookups = lookups[0];
+        assertFalse( classLoaderLibrary.hasClassReference( "java.util.GoatCrusher" ) );
+        assertNull( classLoaderLibrary.getJavaClass( "java.util.GoatCrusher" ) );
+        assertEquals( missingLookups, lookups[0] );
+        assertEquals( 2, missingClassCache.size() );
+
+        // a new classloader might know the class
+        classLoaderLibrary.addClassLoader( getClass().getClassLoader() );
+        assertEquals( 0, missingClassCache.size() );
+        assertFalse( classLoaderLibrary.hasClassReference( "java.util.GoatCrusher" ) );
+        assertTrue( lookups[0] > missingLookups );
+    }
+
+    public void testMissingClassCacheIsBounded() throws Exception {
+        MissingClassCache missingClassCache = new MissingClassCache( 2 );
+        classLoaderLibrary.setMissingClassCache( missingClassCache );
+        assertFalse( classLoaderLibrary.hasClassReference( "a.A" ) );
+        assertFalse( classLoaderLibrary.hasClassReference( "b.B" ) );
+        assertFalse( classLoaderLibrary.hasClassReference( "c.C" ) );
+        assertEquals( 2, missingClassCache.size() );
+        assertFalse( missingClassCache.isMissing( classLoaderLibrary, "a.A", false ) );
+        assertTrue( missingClassCache.isMissing( classLoaderLibrary, "c.C", false ) );
+    }
 }
@@ -1,5 +1,11 @@
 package com.thoughtworks.qdox.library;
 
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.thoughtworks.qdox.parser.ParseException;
+
 
 public class OrderedClassLibraryBuilderTest
     extends ClassLibraryBuilderTest
@@ -8,4 +14,20 @@ public class OrderedClassLibraryBuilderTest
     {
         return new OrderedClassLibraryBuilder();
     }
+
+    public void testSettingsChangedAfterAddingSourceAreApplied()
+    {
+        final List<ParseException> errors = new ArrayList<ParseException>();
+        ClassLibraryBuilder libraryBuilder = getClassLibraryBuilder();
+        libraryBuilder.appendSource( new StringReader( "class A {}" ) );
+        libraryBuilder.setErrorHander( new ErrorHandler()
+        {
+            public void handle( ParseException parseException )
+            {
+                errors.add( parseException );
+            }
+        } );
+        libraryBuilder.appendSource( new StringReader( "class B {" ) );
+        assertEquals( 1, errors.size() );
+    }
 }
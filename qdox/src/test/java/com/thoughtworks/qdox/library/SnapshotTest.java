@@ -0,0 +1,128 @@
+package com.thoughtworks.qdox.library;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.thoughtworks.qdox.model.JavaAnnotation;
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaField;
+import com.thoughtworks.qdox.model.JavaMethod;
+import com.thoughtworks.qdox.model.JavaSource;
+
+public class SnapshotTest
+    extends TestCase
+{
+    private static final String SOURCE = "package com.acme;\n"
+        + "import java.util.*;\n"
+        + "import java.io.Serializable;\n"
+        + "/**\n"
+        + " * A generic class.\n"
+        + " * @author John Doe\n"
+        + " * @since 1.0\n"
+        + " */\n"
+        + "@SuppressWarnings( { \"unchecked\", \"rawtypes\" } )\n"
+        + "public abstract class Foo<T extends Comparable<? super T>, U> extends AbstractList<T> implements Serializable, Comparable<Foo<?, U>> {\n"
+        + "  public static final int MAX = 1 << 4 | 3;\n"
+        + "  private Map<String, List<? extends Number>>[] values = null;\n"
+        + "  /** @param values the values */\n"
+        + "  protected Foo(Map<String, List<? extends Number>>... values) throws IOException { this.values = values; }\n"
+        + "  @Deprecated @Anno(value = MAX * 2, name = \"x\" + 'y', type = String[].class, flag = !true ? 1.5f : (int) 2L)\n"
+        + "  public <E extends Exception> T get(final int index, @Anno(type = int.class) String name) throws E { return null; }\n"
+        + "  enum Color { RED(1) { int value() { return 0; } }, GREEN(MAX + 1), BLUE; Color() {} Color(int i) {} int value() { return 1; } }\n"
+        + "  interface Listener extends EventListener, Serializable { void fire(); }\n"
+        + "  @interface Anno { int value() default 0; String name(); }\n"
+        + "}\n";
+
+    private SourceLibrary library;
+
+    protected void setUp()
+        throws Exception
+    {
+        library = createLibrary();
+    }
+
+    private SourceLibrary createLibrary()
+    {
+        ClassLoaderLibrary classLoaderLibrary = new ClassLoaderLibrary( null );
+        classLoaderLibrary.addDefaultLoader();
+        return new SourceLibrary( classLoaderLibrary );
+    }
+
+    private byte[] save( JavaSource source )
+        throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotWriter writer = new SnapshotWriter( out );
+        writer.writeSource( source );
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    public void testRoundTrip()
+        throws Exception
+    {
+        JavaSource source = library.addSource( new StringReader( SOURCE ) );
+        byte[] snapshot = save( source );
+
+        SourceLibrary otherLibrary = createLibrary();
+        List<JavaSource> sources = otherLibrary.addSnapshot( new ByteArrayInputStream( snapshot ) );
+        assertEquals( 1, sources.size() );
+        JavaSource loaded = sources.get( 0 );
+
+        assertEquals( source.getImports(), loaded.getImports() );
+
+        JavaClass foo = otherLibrary.getJavaClass( "com.acme.Foo" );
+        assertEquals( "A generic class.", foo.getComment() );
+        assertEquals( "John Doe", foo.getTagByName( "author" ).getValue() );
+        assertEquals( 6, foo.getTagByName( "author" ).getLineNumber() );
+        assertEquals( source.getClasses().get( 0 ).getLineNumber(), foo.getLineNumber() );
+        assertEquals( "java.util.AbstractList<T>", foo.getSuperClass().getGenericFullyQualifiedName() );
+        assertEquals( 2, foo.getTypeParameters().size() );
+
+        JavaField values = foo.getFieldByName( "values" );
+        assertEquals( "java.util.Map<java.lang.String,java.util.List<? extends java.lang.Number>>[]",
+                      values.getType().getGenericFullyQualifiedName() );
+
+        JavaMethod get = foo.getMethods().get( 0 );
+        assertEquals( "return null;", get.getSourceCode().trim() );
+        JavaAnnotation anno = get.getAnnotations().get( 1 );
+        assertEquals( "com.acme.Foo$Anno", anno.getType().getFullyQualifiedName() );
+        JavaAnnotation originalAnno = source.getClasses().get( 0 ).getMethods().get( 0 ).getAnnotations().get( 1 );
+        assertEquals( originalAnno.getPropertyMap().toString(), anno.getPropertyMap().toString() );
+        assertTrue( foo.getConstructors().get( 0 ).getParameters().get( 0 ).isVarArgs() );
+
+        JavaClass color = foo.getNestedClassByName( "Color" );
+        assertTrue( color.isEnum() );
+        JavaField red = color.getFieldByName( "RED" );
+        assertEquals( 1, red.getEnumConstantArguments().size() );
+        JavaClass originalColor = source.getClasses().get( 0 ).getNestedClassByName( "Color" );
+        assertEquals( originalColor.getMethods().size(), color.getMethods().size() );
+        JavaField green = color.getFieldByName( "GREEN" );
+        assertEquals( "MAX + 1", green.getEnumConstantArguments().get( 0 ).getParameterValue() );
+        assertTrue( foo.getNestedClassByName( "Listener" ).isInterface() );
+        assertEquals( 2, foo.getNestedClassByName( "Listener" ).getImplements().size() );
+
+        // saving the loaded source results in the same snapshot
+        assertTrue( Arrays.equals( snapshot, save( loaded ) ) );
+    }
+
+    public void testInvalidSnapshot()
+        throws Exception
+    {
+        try
+        {
+            library.addSnapshot( new ByteArrayInputStream( "package x;".getBytes() ) );
+            fail( "Not a snapshot" );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+}
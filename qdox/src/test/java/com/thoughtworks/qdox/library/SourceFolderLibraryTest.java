@@ -0,0 +1,112 @@
+package com.thoughtworks.qdox.library;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import com.thoughtworks.qdox.model.JavaClass;
+
+public class SourceFolderLibraryTest
+    extends TestCase
+{
+    private File sourceFolder = new File( "target/test-source-folder" );
+
+    private SourceFolderLibrary sourceFolderLibrary;
+
+    protected void setUp()
+        throws Exception
+    {
+        deleteDir( sourceFolder );
+        createFile( "com/acme/Foo.java", "package com.acme; public class Foo { public static class Bar {} }" );
+        createFile( "Baz.java", "public class Baz {}" );
+        sourceFolderLibrary = new SourceFolderLibrary( null, sourceFolder );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        deleteDir( sourceFolder );
+    }
+
+    public void testClassReferences()
+    {
+        assertTrue( sourceFolderLibrary.hasClassReference( "com.acme.Foo" ) );
+        assertTrue( sourceFolderLibrary.hasClassReference( "com.acme.Foo$Bar" ) );
+        assertTrue( sourceFolderLibrary.hasClassReference( "Baz" ) );
+        assertFalse( sourceFolderLibrary.hasClassReference( "com.acme.Bar" ) );
+        assertFalse( sourceFolderLibrary.hasClassReference( "com.foo.Foo" ) );
+    }
+
+    public void testClassNames()
+    {
+        assertEquals( Collections.singleton( "Foo" ), sourceFolderLibrary.getClassNames( "com.acme" ) );
+        assertEquals( Collections.singleton( "Baz" ), sourceFolderLibrary.getClassNames( "" ) );
+        assertTrue( sourceFolderLibrary.getClassNames( "com.foo" ).isEmpty() );
+    }
+
+    public void testResolveJavaClass()
+    {
+        JavaClass bar = sourceFolderLibrary.getJavaClass( "com.acme.Foo$Bar" );
+        assertEquals( "com.acme.Foo$Bar", bar.getFullyQualifiedName() );
+        assertEquals( "Baz", sourceFolderLibrary.getJavaClass( "Baz" ).getFullyQualifiedName() );
+        assertNull( sourceFolderLibrary.getJavaClass( "com.acme.Bar" ) );
+    }
+
+    public void testFirstSourceFolderWins()
+        throws Exception
+    {
+        File otherFolder = new File( sourceFolder, "other" );
+        createFile( "other/com/acme/Foo.java", "package com.acme; public class Foo { public void other() {} }" );
+        sourceFolderLibrary = new SourceFolderLibrary( null, otherFolder );
+        sourceFolderLibrary.addSourceFolder( sourceFolder );
+        assertEquals( "other", sourceFolderLibrary.getJavaClass( "com.acme.Foo" ).getMethods().get( 0 ).getName() );
+    }
+
+    public void testAddedFileIsFoundAfterRefresh()
+        throws Exception
+    {
+        assertFalse( sourceFolderLibrary.hasClassReference( "com.acme.Bar" ) );
+
+        File directory = createFile( "com/acme/Bar.java", "package com.acme; public class Bar {}" ).getParentFile();
+        // the modification time might have a resolution of seconds
+        directory.setLastModified( directory.lastModified() + 2000 );
+        assertFalse( sourceFolderLibrary.hasClassReference( "com.acme.Bar" ) );
+
+        sourceFolderLibrary.refreshSources( Collections.<File>emptyList() );
+        assertTrue( sourceFolderLibrary.hasClassReference( "com.acme.Bar" ) );
+        assertNotNull( sourceFolderLibrary.getJavaClass( "com.acme.Bar" ) );
+    }
+
+    private File createFile( String fileName, String content )
+        throws Exception
+    {
+        File file = new File( sourceFolder, fileName );
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter( file );
+        writer.write( content );
+        writer.close();
+        return file;
+    }
+
+    private void deleteDir( File dir )
+    {
+        File[] children = dir.listFiles();
+        if ( children != null )
+        {
+            for ( File file : children )
+            {
+                if ( file.isDirectory() )
+                {
+                    deleteDir( file );
+                }
+                else
+                {
+                    file.delete();
+                }
+            }
+        }
+        dir.delete();
+    }
+}
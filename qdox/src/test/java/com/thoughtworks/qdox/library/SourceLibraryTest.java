@@ -6,14 +6,19 @@ import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.Writer;
 
 import junit.framework.TestCase;
 
+import com.thoughtworks.qdox.model.JavaClass;
+import com.thoughtworks.qdox.model.JavaSource;
 import com.thoughtworks.qdox.parser.ParseException;
 
 public class SourceLibraryTest
@@ -58,6 +63,72 @@ public class SourceLibraryTest
         dir.delete();
     }
 
+    public void testFileEncoding() throws Exception {
+        File file = new File("target/test-source/com/blah/Encoded.java");
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-16" );
+        writer.write("package com.blah;\n");
+        writer.write("/** Caf\u00e9 */\n");
+        writer.write("public class Encoded { String s = \"\u00e9\u00e8\"; }\n");
+        writer.close();
+
+        sourceLibrary.setEncoding( "UTF-16" );
+        JavaSource source = sourceLibrary.addSource( file );
+        JavaClass cls = source.getClassByName( "Encoded" );
+        assertEquals( "Caf\u00e9", cls.getComment() );
+        assertEquals( "\"\u00e9\u00e8\"", cls.getFieldByName( "s" ).getInitializationExpression() );
+    }
+
+    public void testLargeFile() throws Exception {
+        File file = new File("target/test-source/com/blah/Large.java");
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+        writer.write("package com.blah;\n");
+        writer.write("public class Large {\n");
+        for ( int i = 0; i < 10000; i++ ) {
+            writer.write("    public int method" + i + "() { return " + i + "; }\n");
+        }
+        writer.write("}\n");
+        writer.close();
+        assertTrue( file.length() > 256 * 1024 );
+
+        sourceLibrary.setEncoding( "UTF-8" );
+        JavaClass cls = sourceLibrary.addSource( file ).getClassByName( "Large" );
+        assertEquals( 10000, cls.getMethods().size() );
+        assertEquals( " return 9999; ", cls.getMethods().get( 9999 ).getSourceCode() );
+    }
+
+    public void testAddedSourceClearsMissingClassCache() throws Exception {
+        MissingClassCache missingClassCache = new MissingClassCache();
+        sourceLibrary.setMissingClassCache( missingClassCache );
+        assertFalse( sourceLibrary.hasClassReference( "com.blah.Late" ) );
+        assertNull( sourceLibrary.getJavaClass( "com.blah.Late" ) );
+        assertEquals( 2, missingClassCache.size() );
+
+        sourceLibrary.addSource( createFile( "target/test-source/com/blah/Late.java", "com.blah", "Late" ) );
+        assertTrue( sourceLibrary.hasClassReference( "com.blah.Late" ) );
+        assertNotNull( sourceLibrary.getJavaClass( "com.blah.Late" ) );
+        assertEquals( 0, missingClassCache.size() );
+    }
+
+    public void testLookupsDontChangeModificationCount() throws Exception {
+        MissingClassCache missingClassCache = new MissingClassCache();
+        sourceLibrary.setMissingClassCache( missingClassCache );
+        assertNull( sourceLibrary.getJavaClass( "com.blah.Late" ) );
+        int modificationCount = sourceLibrary.getModificationCount();
+        assertNull( sourceLibrary.getJavaClass( "com.blah.Late" ) );
+        assertFalse( sourceLibrary.hasClassReference( "com.blah.Late" ) );
+        assertEquals( modificationCount, sourceLibrary.getModificationCount() );
+        assertEquals( 2, missingClassCache.size() );
+
+        sourceLibrary.addSource( createFile( "target/test-source/com/blah/Late.java", "com.blah", "Late" ) );
+        assertEquals( 0, missingClassCache.size() );
+        int addedCount = sourceLibrary.getModificationCount();
+        assertTrue( addedCount != modificationCount );
+        assertNotNull( sourceLibrary.getJavaClass( "com.blah.Late" ) );
+        assertEquals( addedCount, sourceLibrary.getModificationCount() );
+    }
+
     //QDOX-221
     public void testClosedStream() throws Exception {
         File badFile = createFile("target/test-source/com/blah/Bad.java", "com.blah", "@%! BAD {}}}}");
@@ -1,8 +1,19 @@
 package com.thoughtworks.qdox.model.impl;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.util.Collections;
 import java.util.List;
 
+import org.junit.Test;
+
+import com.thoughtworks.qdox.JavaProjectBuilder;
 import com.thoughtworks.qdox.library.SortedClassLibraryBuilder;
+import com.thoughtworks.qdox.model.DocletTag;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaClassTest;
 import com.thoughtworks.qdox.model.JavaField;
@@ -120,4 +131,101 @@ public class DefaultJavaClassTest
         }
     }
 
+    @Test
+    public void testFullyQualifiedNameFollowsRenames()
+    {
+        DefaultJavaClass outer = newJavaClass( "Outer" );
+        DefaultJavaClass inner = newJavaClass( "Inner" );
+        inner.setParentClass( outer );
+        outer.addClass( inner );
+        DefaultJavaSource source = (DefaultJavaSource) newJavaSource();
+        source.setPackage( new DefaultJavaPackage( "a" ) );
+        outer.setSource( source );
+        inner.setSource( source );
+        source.addClass( outer );
+
+        String name = inner.getFullyQualifiedName();
+        assertEquals( "a.Outer$Inner", name );
+        assertSame( name, inner.getFullyQualifiedName() );
+
+        outer.setName( "Other" );
+        assertEquals( "a.Other$Inner", inner.getFullyQualifiedName() );
+        DefaultJavaPackage pckg = new DefaultJavaPackage( "b" );
+        pckg.addClass( outer );
+        source.setPackage( pckg );
+        assertEquals( "b.Other$Inner", inner.getFullyQualifiedName() );
+        inner.setName( "Nested" );
+        assertEquals( "b.Other$Nested", inner.getFullyQualifiedName() );
+        assertEquals( "b.Other.Nested", inner.getCanonicalName() );
+        assertEquals( 2 + "b.Other$Nested".hashCode(), inner.hashCode() );
+        pckg.setName( "c" );
+        assertEquals( "c.Other$Nested", inner.getFullyQualifiedName() );
+    }
+
+    @Test
+    public void testInheritedMethodsFollowAddedSuperclassMethods()
+    {
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.addSource( new StringReader( "class Base {} class Middle extends Base {} "
+            + "class Sub extends Middle {}" ) );
+        DefaultJavaClass base = (DefaultJavaClass) builder.getClassByName( "Base" );
+        JavaClass sub = builder.getClassByName( "Sub" );
+        List<JavaType> noParameters = Collections.emptyList();
+
+        assertNull( sub.getMethodBySignature( "doStuff", noParameters, true ) );
+        assertEquals( 0, sub.getMethodsBySignature( "doStuff", noParameters, true ).size() );
+        int methodCount = sub.getMethods( true ).size();
+
+        DefaultJavaMethod method = new DefaultJavaMethod( "doStuff" );
+        method.setParentClass( base );
+        base.addMethod( method );
+
+        assertEquals( "doStuff", sub.getMethodBySignature( "doStuff", noParameters, true ).getName() );
+        assertEquals( 1, sub.getMethodsBySignature( "doStuff", noParameters, true ).size() );
+        assertEquals( methodCount + 1, sub.getMethods( true ).size() );
+    }
+
+    @Test
+    public void testBeanPropertiesAreCopies()
+    {
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.addSource( new StringReader( "class Bean { String getName() { return null; } }" ) );
+        JavaClass bean = builder.getClassByName( "Bean" );
+
+        bean.getBeanProperties().clear();
+        assertEquals( 1, bean.getBeanProperties().size() );
+        assertEquals( "name", bean.getBeanProperties( true ).get( 0 ).getName() );
+    }
+
+    @Test
+    public void testInheritedMethodsAreCopies()
+    {
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.addSource( new StringReader( "class Base { void run() { } } class Sub extends Base { }" ) );
+        JavaClass sub = builder.getClassByName( "Sub" );
+
+        int methodCount = sub.getMethods( true ).size();
+        sub.getMethods( true ).clear();
+        assertEquals( methodCount, sub.getMethods( true ).size() );
+        assertNotNull( sub.getMethodBySignature( "run", null, true ) );
+    }
+
+    @Test
+    public void testTagsOfSourceSupertypeWithSameNameAsBinarySupertype()
+    {
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.addSource( new StringReader( "package java.io;\n"
+            + "/** @author unascribed */ public interface Serializable {}" ) );
+        // java.util.EventObject is a binary class which implements the binary java.io.Serializable
+        builder.addSource( new StringReader( "public class Sub extends java.util.EventObject "
+            + "implements java.io.Serializable {}" ) );
+        JavaClass sub = builder.getClassByName( "Sub" );
+
+        List<DocletTag> authors = sub.getTagsByName( "author", true );
+        assertEquals( 1, authors.size() );
+        assertEquals( "unascribed", authors.get( 0 ).getValue() );
+        authors.clear();
+        assertEquals( 1, sub.getTagsByName( "author", true ).size() );
+    }
+
 }
@@ -1,8 +1,15 @@
 package com.thoughtworks.qdox.model.impl;
 
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+
 import com.thoughtworks.qdox.library.ClassLibrary;
+import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaPackageTest;
 
 public class DefaultJavaPackageTest extends JavaPackageTest<DefaultJavaPackage>
@@ -15,4 +22,31 @@ public class DefaultJavaPackageTest extends JavaPackageTest<DefaultJavaPackage>
         return result;
     }
 
+    @Test
+    public void testClassesAreReadOnlyCopies()
+    {
+        DefaultJavaPackage pckg = newJavaPackage( "com.foo" );
+        when( pckg.getJavaClassLibrary().getJavaPackage( "com.foo" ) ).thenReturn( pckg );
+        JavaClass bar = new DefaultJavaClass( "Bar" );
+        JavaClass otherBar = new DefaultJavaClass( "Bar" );
+        pckg.addClass( bar );
+        Collection<JavaClass> classes = pckg.getClasses();
+        try
+        {
+            classes.add( otherBar );
+            fail( "classes should be read-only" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+        }
+
+        pckg.addClass( otherBar );
+        assertEquals( 1, classes.size() );
+        assertEquals( 2, pckg.getClasses().size() );
+
+        pckg.removeClass( bar );
+        assertSame( otherBar, pckg.getClasses().iterator().next() );
+        assertEquals( Arrays.asList( otherBar ), pckg.getClasses() );
+    }
+
 }
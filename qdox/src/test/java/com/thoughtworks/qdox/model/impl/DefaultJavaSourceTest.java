@@ -3,6 +3,7 @@ package com.thoughtworks.qdox.model.impl;
 import java.util.List;
 
 import com.thoughtworks.qdox.library.ClassLibrary;
+import com.thoughtworks.qdox.library.SortedClassLibraryBuilder;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaPackage;
 import com.thoughtworks.qdox.model.JavaSourceTest;
@@ -40,4 +41,22 @@ public class DefaultJavaSourceTest extends JavaSourceTest<DefaultJavaSource>
             source.addImport( imprt );
         }
     }
+
+    public void testResolveStaticImportOfNestedClass()
+    {
+        ClassLibrary classLibrary = new SortedClassLibraryBuilder().appendDefaultClassLoaders().getClassLibrary();
+        DefaultJavaSource source = newJavaSource( classLibrary );
+        source.addImport( "static java.util.Map.Entry" );
+        assertEquals( "java.util.Map$Entry", source.resolveType( "Entry" ) );
+    }
+
+    public void testResolveImportAddedAfterLookup()
+    {
+        ClassLibrary classLibrary = new SortedClassLibraryBuilder().appendDefaultClassLoaders().getClassLibrary();
+        DefaultJavaSource source = newJavaSource( classLibrary );
+        source.addImport( "java.util.*" );
+        assertEquals( "java.util.List", source.resolveType( "List" ) );
+        source.addImport( "java.util.concurrent.*" );
+        assertEquals( "java.util.concurrent.Callable", source.resolveType( "Callable" ) );
+    }
 }
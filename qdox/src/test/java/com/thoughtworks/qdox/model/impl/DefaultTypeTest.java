@@ -1,6 +1,7 @@
 package com.thoughtworks.qdox.model.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -69,4 +70,15 @@ public class DefaultTypeTest
         assertEquals( "Bar", type.getValue() );
         assertEquals( "foo.Bar", type.getFullyQualifiedName() );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testNestedValueAndPrimitive()
+        throws Exception
+    {
+        DefaultJavaType type = newType( "foo.Outer$Inner", 2 );
+        assertEquals( "foo.Outer.Inner[][]", type.getValue() );
+        assertEquals( "foo.Outer$Inner[][]", type.getFullyQualifiedName() );
+        assertTrue( newType( "int" ).isPrimitive() );
+        assertFalse( newType( "java.lang.Integer" ).isPrimitive() );
+    }
+}
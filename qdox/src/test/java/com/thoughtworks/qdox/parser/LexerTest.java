@@ -67,6 +67,52 @@ public class LexerTest extends TestCase {
         assertLex(0, lexer);
     }
 
+    public void testCodeBlockContent() throws Exception {
+        String in = ""
+                + "class X { "
+                + " void m() { if (a/b > 0) { s = \"}\" + '{'; } // }\n /* { */ } "
+                + "} ";
+
+        Lexer lexer = new JFlexLexer(new StringReader(in));
+        assertLex(Parser.CLASS, lexer);
+        assertLex(Parser.IDENTIFIER, "X", lexer);
+        assertLex(Parser.BRACEOPEN, lexer);
+        assertLex(Parser.IDENTIFIER, "void", lexer);
+        assertLex(Parser.IDENTIFIER, "m", lexer);
+        assertLex(Parser.PARENOPEN, lexer);
+        assertLex(Parser.PARENCLOSE, lexer);
+        assertLex(Parser.CODEBLOCK, lexer);
+        assertEquals(" if (a/b > 0) { s = \"}\" + '{'; } // }\n /* { */ ", lexer.getCodeBody());
+        assertLex(Parser.BRACECLOSE, lexer);
+        assertLex(0, lexer);
+    }
+
+    public void testSkipMethodBodies() throws Exception {
+        String in = ""
+                + "class X { "
+                + " int x = 1; "
+                + " void m() { if (a) { s = \"}\" + '{'; } // }\n /* { */ } "
+                + "} ";
+
+        JFlexLexer lexer = new JFlexLexer(new StringReader(in));
+        lexer.setSkipMethodBodies( true );
+        assertLex(Parser.CLASS, lexer);
+        assertLex(Parser.IDENTIFIER, "X", lexer);
+        assertLex(Parser.BRACEOPEN, lexer);
+        assertLex(Parser.IDENTIFIER, "int", lexer);
+        assertLex(Parser.IDENTIFIER, "x", lexer);
+        assertLex(Parser.SEMI, lexer);
+        assertEquals("1", lexer.getCodeBody());
+        assertLex(Parser.IDENTIFIER, "void", lexer);
+        assertLex(Parser.IDENTIFIER, "m", lexer);
+        assertLex(Parser.PARENOPEN, lexer);
+        assertLex(Parser.PARENCLOSE, lexer);
+        assertLex(Parser.CODEBLOCK, lexer);
+        assertEquals("", lexer.getCodeBody());
+        assertLex(Parser.BRACECLOSE, lexer);
+        assertLex(0, lexer);
+    }
+
     public void testFieldAssignment() throws Exception {
         checkAssignment("x");
         checkAssignment("(map.isEmpty ? 1 : -1)");
@@ -8,12 +8,15 @@ import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Field;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedList;
 
 import junit.framework.TestCase;
 
 import org.junit.Assert;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.mockito.stubbing.answers.ReturnsElementsOf;
 
 import com.thoughtworks.qdox.builder.Builder;
@@ -2770,8 +2773,27 @@ public class ParserTest extends TestCase {
         setupLex( token, null );
         if ( token == 0 )
         {
-            when( lexer.lex() ).thenAnswer( new ReturnsElementsOf( lexValues ) );
-            when( lexer.text() ).thenAnswer( new ReturnsElementsOf( textValues ) );
+            // the parser only asks the text of tokens with a value, so it must follow the current token
+            final Iterator<String> texts = textValues.iterator();
+            final String[] currentText = new String[1];
+            when( lexer.lex() ).thenAnswer( new Answer<Object>()
+            {
+                private final Answer<Object> tokens = new ReturnsElementsOf( lexValues );
+
+                public Object answer( InvocationOnMock invocation )
+                    throws Throwable
+                {
+                    currentText[0] = texts.hasNext() ? texts.next() : null;
+                    return tokens.answer( invocation );
+                }
+            } );
+            when( lexer.text() ).thenAnswer( new Answer<String>()
+            {
+                public String answer( InvocationOnMock invocation )
+                {
+                    return currentText[0];
+                }
+            } );
             when( lexer.getLine() ).thenReturn( -1 );
         }
     }